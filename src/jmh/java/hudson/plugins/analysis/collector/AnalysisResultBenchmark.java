@@ -0,0 +1,67 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hudson.plugins.analysis.core.ParserResult;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Measures the construction of an {@link AnalysisResult} (including counting the annotations by origin) and the
+ * merging of the results of several analysis plug-ins into a {@link ParserResult}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AnalysisResultBenchmark {
+    /** Number of annotations of each of the seven origins. */
+    @Param({"100", "10000"})
+    private int annotationsPerOrigin;
+
+    private List<List<FileAnnotation>> annotations;
+    private ParserResult parserResult;
+
+    /**
+     * Creates the synthetic annotations.
+     */
+    @Setup
+    public void createAnnotations() {
+        annotations = new AnnotationGenerator().createAnnotationsPerOrigin(annotationsPerOrigin);
+        parserResult = AnnotationGenerator.createParserResult(annotations);
+    }
+
+    /**
+     * Merges the annotations of all origins like {@link AnalysisPublisher} does.
+     *
+     * @return the merged result
+     */
+    @Benchmark
+    public ParserResult mergeResults() {
+        return AnnotationGenerator.createParserResult(annotations);
+    }
+
+    /**
+     * Creates an analysis result for the merged annotations.
+     *
+     * @return the created result
+     */
+    @Benchmark
+    public AnalysisResult createAnalysisResult() {
+        return AnnotationGenerator.createAnalysisResult(parserResult);
+    }
+}
@@ -0,0 +1,164 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import hudson.model.Run;
+import hudson.plugins.analysis.collector.handler.AndroidLintHandler;
+import hudson.plugins.analysis.collector.handler.CheckStyleHandler;
+import hudson.plugins.analysis.collector.handler.DryHandler;
+import hudson.plugins.analysis.collector.handler.FindBugsHandler;
+import hudson.plugins.analysis.collector.handler.PmdHandler;
+import hudson.plugins.analysis.collector.handler.TasksHandler;
+import hudson.plugins.analysis.collector.handler.WarningsHandler;
+import hudson.plugins.analysis.core.BuildHistory;
+import hudson.plugins.analysis.core.ParserResult;
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
+import hudson.plugins.analysis.util.model.AnnotationContainer;
+import hudson.plugins.analysis.util.model.DefaultAnnotationContainer;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Creates synthetic annotations and analysis results for the benchmarks. The generator is seeded, so each benchmark
+ * run works on the same data.
+ */
+final class AnnotationGenerator {
+    /** Origins of the supported analysis plug-ins. */
+    static final String[] ORIGINS = {"checkstyle", "dry", "findbugs", "pmd", "tasks", "warnings", "android-lint"};
+
+    private static final String[] CATEGORIES = {"Design", "Naming", "Coding", "Imports", "Javadoc"};
+    private static final int NUMBER_OF_FILES = 500;
+    private static final int NUMBER_OF_MODULES = 10;
+
+    private static final File ROOT_DIR = createRootDir();
+
+    private final Random random = new Random(42);
+
+    private static File createRootDir() {
+        try {
+            File rootDir = Files.createTempDirectory("analysis-benchmark").toFile();
+            rootDir.deleteOnExit();
+            return rootDir;
+        }
+        catch (IOException exception) {
+            throw new IllegalStateException("Can't create the folder of the benchmark builds", exception);
+        }
+    }
+
+    /**
+     * Creates the specified number of annotations for the specified origin.
+     *
+     * @param origin
+     *            the origin of the annotations
+     * @param size
+     *            the number of annotations
+     * @return the annotations
+     */
+    List<FileAnnotation> createAnnotations(final String origin, final int size) {
+        List<FileAnnotation> annotations = new ArrayList<FileAnnotation>(size);
+        for (int i = 0; i < size; i++) {
+            int file = random.nextInt(NUMBER_OF_FILES);
+            SyntheticAnnotation annotation = new SyntheticAnnotation(
+                    Priority.values()[random.nextInt(Priority.values().length)],
+                    "Synthetic warning " + random.nextInt(100) + " in line " + i, i % 1000 + 1,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], origin + "-type-" + random.nextInt(20));
+            annotation.setOrigin(origin);
+            annotation.setFileName("module-" + file % NUMBER_OF_MODULES + "/src/main/java/File" + file + ".java");
+            annotation.setModuleName("module-" + file % NUMBER_OF_MODULES);
+            annotation.setPackageName("hudson.plugins.package" + file % 50);
+            annotation.setContextHashCode(random.nextLong());
+            annotations.add(annotation);
+        }
+        return annotations;
+    }
+
+    /**
+     * Creates the annotations of all origins, each origin with the specified number of annotations.
+     *
+     * @param sizePerOrigin
+     *            the number of annotations per origin
+     * @return the annotations of each origin
+     */
+    List<List<FileAnnotation>> createAnnotationsPerOrigin(final int sizePerOrigin) {
+        List<List<FileAnnotation>> annotationsPerOrigin = new ArrayList<List<FileAnnotation>>();
+        for (String origin : ORIGINS) {
+            annotationsPerOrigin.add(createAnnotations(origin, sizePerOrigin));
+        }
+        return annotationsPerOrigin;
+    }
+
+    /**
+     * Registers the handlers of the supported analysis plug-ins, since the {@link HandlerRegistry} is empty without
+     * a running Jenkins instance.
+     */
+    static void registerHandlers() {
+        HandlerRegistry.register(Arrays.asList(new CheckStyleHandler(), new DryHandler(), new FindBugsHandler(),
+                new PmdHandler(), new TasksHandler(), new WarningsHandler(), new AndroidLintHandler()));
+    }
+
+    /**
+     * Creates a parser result with the specified annotations.
+     *
+     * @param annotationsPerOrigin
+     *            the annotations to add
+     * @return the parser result
+     */
+    static ParserResult createParserResult(final List<List<FileAnnotation>> annotationsPerOrigin) {
+        ParserResult result = new ParserResult();
+        for (List<FileAnnotation> annotations : annotationsPerOrigin) {
+            result.addAnnotations(annotations);
+        }
+        return result;
+    }
+
+    /**
+     * Creates an analysis result for the specified annotations without a reference build and without persisting
+     * the annotations. The build is a stub with an empty temporary root folder.
+     *
+     * @param result
+     *            the annotations of the build
+     * @return the analysis result
+     */
+    static AnalysisResult createAnalysisResult(final ParserResult result) {
+        Run<?, ?> build = new BenchmarkJob.BenchmarkBuild(new BenchmarkJob("benchmark"), ROOT_DIR);
+
+        return new AnalysisResult(build, new EmptyHistory(build), result, "UTF-8", false);
+    }
+
+    /**
+     * History without a reference build.
+     */
+    private static class EmptyHistory extends BuildHistory {
+        EmptyHistory(final Run<?, ?> baseline) {
+            super(baseline, AnalysisResultAction.class, false, false);
+        }
+
+        @Override
+        public AnnotationContainer getReferenceAnnotations() {
+            return new DefaultAnnotationContainer();
+        }
+    }
+
+    /**
+     * Annotation of the benchmarks.
+     */
+    private static class SyntheticAnnotation extends AbstractAnnotation {
+        private static final long serialVersionUID = -3293869738547451416L;
+
+        SyntheticAnnotation(final Priority priority, final String message, final int line,
+                final String category, final String type) {
+            super(priority, message, line, line, category, type);
+        }
+
+        @Override
+        public String getToolTip() {
+            return getMessage();
+        }
+    }
+}
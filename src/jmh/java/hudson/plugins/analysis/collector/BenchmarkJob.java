@@ -0,0 +1,86 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.File;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.plugins.analysis.core.AbstractProjectAction;
+
+/**
+ * Job of the benchmarks that provides the same project action for all analysis plug-ins. The actions are not
+ * resolved using the extensions of a running Jenkins instance.
+ */
+class BenchmarkJob extends Job<BenchmarkJob, BenchmarkJob.BenchmarkBuild> {
+    private AbstractProjectAction<?> projectAction;
+
+    /**
+     * Creates a new instance of {@link BenchmarkJob}.
+     *
+     * @param name
+     *            the name of the job
+     */
+    BenchmarkJob(final String name) {
+        super(null, name);
+    }
+
+    /**
+     * Sets the project action of all analysis plug-ins.
+     *
+     * @param projectAction
+     *            the project action
+     */
+    void setProjectAction(final AbstractProjectAction<?> projectAction) {
+        this.projectAction = projectAction;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Action> T getAction(final Class<T> type) {
+        return (T)projectAction;
+    }
+
+    @Override
+    public boolean isBuildable() {
+        return false;
+    }
+
+    @Override
+    protected SortedMap<Integer, ? extends BenchmarkBuild> _getRuns() {
+        return new TreeMap<Integer, BenchmarkBuild>();
+    }
+
+    @Override
+    protected void removeRun(final BenchmarkBuild run) {
+        // no builds
+    }
+
+    /**
+     * Build of a {@link BenchmarkJob} with its own root folder, so that the files of the build are looked up in an
+     * empty temporary folder rather than relative to the working directory.
+     */
+    static class BenchmarkBuild extends Run<BenchmarkJob, BenchmarkBuild> {
+        private final File rootDir;
+
+        /**
+         * Creates a new instance of {@link BenchmarkBuild}.
+         *
+         * @param job
+         *            the job of the build
+         * @param rootDir
+         *            the folder of the build
+         */
+        BenchmarkBuild(final BenchmarkJob job, final File rootDir) {
+            super(job, System.currentTimeMillis());
+
+            this.rootDir = rootDir;
+        }
+
+        @Override
+        public File getRootDir() {
+            return rootDir;
+        }
+    }
+}
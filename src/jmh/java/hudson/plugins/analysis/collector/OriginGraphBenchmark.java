@@ -0,0 +1,65 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link OriginGraph#computeSeries(hudson.plugins.analysis.core.BuildResult)} over long build histories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OriginGraphBenchmark {
+    /** Number of builds in the history. */
+    @Param({"100", "5000"})
+    private int numberOfBuilds;
+
+    private OriginGraph graph;
+    private List<AnalysisResult> history;
+
+    /**
+     * Creates the graph and the synthetic build history.
+     */
+    @Setup
+    public void createHistory() {
+        AnnotationGenerator.registerHandlers();
+        graph = new OriginGraph(true, true, true, true, true, true, true);
+
+        AnnotationGenerator generator = new AnnotationGenerator();
+        history = new ArrayList<AnalysisResult>(numberOfBuilds);
+        for (int build = 0; build < numberOfBuilds; build++) {
+            history.add(AnnotationGenerator.createAnalysisResult(
+                    AnnotationGenerator.createParserResult(generator.createAnnotationsPerOrigin(5))));
+        }
+    }
+
+    /**
+     * Computes the series of all builds of the history.
+     *
+     * @param blackhole
+     *            consumes the series
+     */
+    @Benchmark
+    public void computeSeries(final Blackhole blackhole) {
+        for (AnalysisResult result : history) {
+            blackhole.consume(graph.computeSeries(result));
+        }
+    }
+}
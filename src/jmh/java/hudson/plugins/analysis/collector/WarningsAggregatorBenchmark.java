@@ -0,0 +1,114 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hudson.model.Job;
+import hudson.plugins.analysis.core.AbstractProjectAction;
+import hudson.plugins.analysis.core.NullHealthDescriptor;
+
+/**
+ * Measures the computation of the total number of warnings of N jobs like the dashboard portlets and the list view
+ * column do. The benchmark calls {@link WarningsAggregator#computeCount(Job)} directly:
+ * {@link WarningsAggregator#getTotal(Job)} reads the {@link WarningsCountIndex} which requires a running Jenkins
+ * instance. The jobs and actions are small stubs rather than mocks, so the measurement does not include the
+ * dispatching of a mocking framework.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WarningsAggregatorBenchmark {
+    /** Number of distinct results the jobs are created from. */
+    private static final int NUMBER_OF_RESULTS = 10;
+
+    /** Number of jobs. */
+    @Param({"10", "1000"})
+    private int numberOfJobs;
+
+    private final WarningsAggregator aggregator = new WarningsAggregator(true, true, true, true, true, true, true);
+    private List<AnalysisResult> results;
+    private List<Job<?, ?>> jobs;
+
+    /**
+     * Creates the jobs, each job with the results of all plug-ins. The jobs share a small number of results with a
+     * different number of annotations.
+     */
+    @Setup
+    public void createJobs() {
+        AnnotationGenerator.registerHandlers();
+        AnnotationGenerator generator = new AnnotationGenerator();
+        results = new ArrayList<AnalysisResult>(NUMBER_OF_RESULTS);
+        for (int i = 0; i < NUMBER_OF_RESULTS; i++) {
+            results.add(AnnotationGenerator.createAnalysisResult(
+                    AnnotationGenerator.createParserResult(generator.createAnnotationsPerOrigin(i))));
+        }
+        jobs = new ArrayList<Job<?, ?>>(numberOfJobs);
+        for (int i = 0; i < numberOfJobs; i++) {
+            jobs.add(createJob(i));
+        }
+    }
+
+    private Job<?, ?> createJob(final int index) {
+        AnalysisResult result = results.get(index % results.size());
+        AnalysisResultAction resultAction = new AnalysisResultAction(null, NullHealthDescriptor.NULL_HEALTH_DESCRIPTOR,
+                result);
+        BenchmarkJob job = new BenchmarkJob("job-" + index);
+        job.setProjectAction(new BenchmarkProjectAction(job, resultAction));
+        return job;
+    }
+
+    /**
+     * Computes the total number of warnings of all jobs.
+     *
+     * @return the total number of warnings
+     */
+    @Benchmark
+    public int computeTotal() {
+        int total = 0;
+        for (Job<?, ?> job : jobs) {
+            total += aggregator.computeCount(job).getTotal();
+        }
+        return total;
+    }
+
+    /**
+     * Project action that always provides the same result action, without scanning the builds of the job.
+     */
+    private static class BenchmarkProjectAction extends AbstractProjectAction<AnalysisResultAction> {
+        private final AnalysisResultAction lastAction;
+
+        BenchmarkProjectAction(final Job<?, ?> job, final AnalysisResultAction lastAction) {
+            super(job, AnalysisResultAction.class, Messages._Analysis_ProjectAction_Name(),
+                    Messages._Analysis_Trend_Name(), AnalysisDescriptor.PLUGIN_ID, AnalysisDescriptor.ICON_URL,
+                    AnalysisDescriptor.RESULT_URL);
+
+            this.lastAction = lastAction;
+        }
+
+        @Override
+        public boolean hasValidResults() {
+            return true;
+        }
+
+        @Override
+        public AnalysisResultAction getLastAction() {
+            return lastAction;
+        }
+    }
+}
@@ -45,9 +45,11 @@ public class AnalysisAnnotationsAggregator extends AnnotationsAggregator {
 
     @Override
     protected Action createAction(final HealthDescriptor healthDescriptor, final String defaultEncoding, final ParserResult aggregatedResult) {
-        return new AnalysisResultAction(build, healthDescriptor,
-                new AnalysisResult(build, defaultEncoding, aggregatedResult,
-                        usePreviousBuildAsReference(), useOnlyStableBuildsAsReference()));
+        AnalysisResult result = new AnalysisResult(build, defaultEncoding, aggregatedResult,
+                usePreviousBuildAsReference(), useOnlyStableBuildsAsReference());
+        TrendStore.of(build.getParent()).append(result);
+
+        return new AnalysisResultAction(build, healthDescriptor, result);
     }
 
     @Override
@@ -2,11 +2,20 @@ package hudson.plugins.analysis.collector;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import com.google.common.collect.Sets;
 
+import jenkins.model.Jenkins;
+
 import hudson.Extension;
+import hudson.ExtensionListListener;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
 import hudson.model.AbstractProject;
+import hudson.model.Descriptor;
+import hudson.plugins.analysis.collector.handler.AnalysisHandler;
 import hudson.plugins.analysis.core.PluginDescriptor;
 
 /**
@@ -33,36 +42,63 @@ public final class AnalysisDescriptor extends PluginDescriptor {
     public static final String WARNINGS = "warnings";
     public static final String ANDROID_LINT = "android-lint";
 
+    private static final Logger LOGGER = Logger.getLogger(AnalysisDescriptor.class.getName());
+
+    private static volatile InstalledTools installedTools;
+
     /**
      * Returns the activated plug-ins.
      *
      * @return the activated plug-ins
      */
     public static Collection<String> getPlugins() {
-        HashSet<String> plugins = Sets.newHashSet();
+        HashSet<String> plugins = Sets.newHashSet(getInstalledTools().getOrigins());
 
-        if (isCheckStyleInstalled()) {
-            plugins.add(CHECKSTYLE);
-        }
-        if (isDryInstalled()) {
-            plugins.add(DRY);
-        }
-        if (isFindBugsInstalled()) {
-            plugins.add(FINDBUGS);
-        }
-        if (isPmdInstalled()) {
-            plugins.add(PMD);
-        }
-        if (isOpenTasksInstalled()) {
-            plugins.add(TASKS);
-        }
-        if (isWarningsInstalled()) {
-            plugins.add(WARNINGS);
+        return plugins;
+    }
+
+    /**
+     * Returns the plug-ins that are installed, i.e. the plug-ins of the {@link HandlerRegistry}. The plug-ins are
+     * detected once after all plug-ins have been started and again whenever plug-ins are loaded dynamically.
+     *
+     * @return the installed plug-ins
+     */
+    static InstalledTools getInstalledTools() {
+        InstalledTools tools = installedTools;
+        if (tools == null) {
+            tools = refreshInstalledTools();
         }
-        if (isAndroidLintInstalled()) {
-            plugins.add(ANDROID_LINT);
+        return tools;
+    }
+
+    /**
+     * Detects the installed plug-ins and creates the {@link HandlerRegistry} after all plug-ins have been started.
+     * Registers a listener that repeats the detection when the extensions of Jenkins change, i.e. when a plug-in
+     * has been loaded dynamically.
+     */
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void detectInstalledTools() {
+        HandlerRegistry.refresh();
+        refreshInstalledTools();
+
+        ExtensionListListener listener = new ExtensionListListener() {
+            @Override
+            public void onChange() {
+                HandlerRegistry.refresh();
+                refreshInstalledTools();
+            }
+        };
+        Jenkins.getInstance().getExtensionList(Descriptor.class).addListener(listener);
+        Jenkins.getInstance().getExtensionList(AnalysisHandler.class).addListener(listener);
+    }
+
+    private static InstalledTools refreshInstalledTools() {
+        InstalledTools tools = InstalledTools.of(HandlerRegistry.getInstance());
+        if (!tools.equals(installedTools)) {
+            LOGGER.log(Level.FINE, "Installed analysis plug-ins: " + tools);
         }
-        return plugins;
+        installedTools = tools;
+        return tools;
     }
 
     /**
@@ -72,7 +108,7 @@ public final class AnalysisDescriptor extends PluginDescriptor {
      *         <code>false</code> if not.
      */
     public static boolean isCheckStyleInstalled() {
-        return isPluginInstalled(CHECKSTYLE);
+        return getInstalledTools().contains(CHECKSTYLE);
     }
 
     /**
@@ -82,7 +118,7 @@ public final class AnalysisDescriptor extends PluginDescriptor {
      *         <code>false</code> if not.
      */
     public static boolean isDryInstalled() {
-        return isPluginInstalled(DRY);
+        return getInstalledTools().contains(DRY);
     }
 
     /**
@@ -92,7 +128,7 @@ public final class AnalysisDescriptor extends PluginDescriptor {
      *         <code>false</code> if not.
      */
     public static boolean isFindBugsInstalled() {
-        return isPluginInstalled(FINDBUGS);
+        return getInstalledTools().contains(FINDBUGS);
     }
 
     /**
@@ -102,7 +138,7 @@ public final class AnalysisDescriptor extends PluginDescriptor {
      *         <code>false</code> if not.
      */
     public static boolean isPmdInstalled() {
-        return isPluginInstalled(PMD);
+        return getInstalledTools().contains(PMD);
     }
 
     /**
@@ -112,7 +148,7 @@ public final class AnalysisDescriptor extends PluginDescriptor {
      *         <code>false</code> if not.
      */
     public static boolean isOpenTasksInstalled() {
-        return isPluginInstalled(TASKS);
+        return getInstalledTools().contains(TASKS);
     }
 
     /**
@@ -122,7 +158,7 @@ public final class AnalysisDescriptor extends PluginDescriptor {
      *         <code>false</code> if not.
      */
     public static boolean isWarningsInstalled() {
-        return isPluginInstalled(WARNINGS);
+        return getInstalledTools().contains(WARNINGS);
     }
 
     /**
@@ -132,7 +168,7 @@ public final class AnalysisDescriptor extends PluginDescriptor {
      *         <code>false</code> if not.
      */
     public static boolean isAndroidLintInstalled() {
-        return isPluginInstalled(ANDROID_LINT);
+        return getInstalledTools().contains(ANDROID_LINT);
     }
 
     /**
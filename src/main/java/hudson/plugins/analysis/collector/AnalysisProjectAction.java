@@ -1,13 +1,16 @@
 package hudson.plugins.analysis.collector;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
 
 import hudson.model.Job;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.graph.BuildResultGraph;
 import hudson.plugins.analysis.graph.GraphConfigurationView;
+import hudson.util.Graph;
 
 /**
  * Entry point to visualize the trend graph in the project screen. Drawing of the graph is delegated to the associated
@@ -44,14 +47,7 @@ public class AnalysisProjectAction extends AbstractProjectAction<AnalysisResultA
     }
 
     private void createAggregator() {
-        warningsAggregator = new WarningsAggregator(
-                AnalysisDescriptor.isCheckStyleInstalled(),
-                AnalysisDescriptor.isDryInstalled(),
-                AnalysisDescriptor.isFindBugsInstalled(),
-                AnalysisDescriptor.isPmdInstalled(),
-                AnalysisDescriptor.isOpenTasksInstalled(),
-                AnalysisDescriptor.isWarningsInstalled(),
-                AnalysisDescriptor.isAndroidLintInstalled());
+        warningsAggregator = AnalysisDescriptor.getInstalledTools().createAggregator();
         warningsAggregator.hideJobPrefix();
     }
 
@@ -78,6 +74,42 @@ public class AnalysisProjectAction extends AbstractProjectAction<AnalysisResultA
                 request.getCookies(), createBuildHistory());
     }
 
+    /**
+     * Returns the trend graph of the user configuration. The rendered images of the graph are cached until the next
+     * build of the job has been completed.
+     *
+     * @param request
+     *            Stapler request
+     * @return the trend graph
+     * @see CachedTrendGraph
+     */
+    @Override
+    public Object getTrendGraph(final StaplerRequest request) {
+        AnalysisGraphConfiguration configuration = createConfiguration();
+        GraphConfigurationView view = new AnalysisUserGraphConfigurationView(configuration, getOwner(),
+                getUrlName(), request.getCookies(), createBuildHistory());
+        if (view.hasMeaningfulGraph()) {
+            Graph graph = view.getGraphRenderer(getUrlName());
+            return new CachedTrendGraph(getOwner(), graph, configuration);
+        }
+        return super.getTrendGraph(request);
+    }
+
+    /**
+     * Sends the series of the trend graphs of this job as JSON.
+     *
+     * @param request
+     *            Stapler request
+     * @param response
+     *            Stapler response
+     * @throws IOException
+     *             in case of an error
+     * @see TrendData
+     */
+    public void doTrendData(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        TrendData.writeJobTrend(getOwner(), request, response);
+    }
+
     /**
      * Creates the graph configuration.
      *
@@ -153,6 +185,15 @@ public class AnalysisProjectAction extends AbstractProjectAction<AnalysisResultA
         return warningsAggregator.hasAndroidLint(getOwner());
     }
 
+    /**
+     * Returns the number of warnings of the activated plug-ins for this action.
+     *
+     * @return the number of warnings
+     */
+    public WarningsCount getCount() {
+        return warningsAggregator.getCount(getOwner());
+    }
+
     /**
      * Returns the number of Checkstyle warnings for this action.
      *
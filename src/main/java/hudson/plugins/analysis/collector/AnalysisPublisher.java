@@ -2,7 +2,6 @@ package hudson.plugins.analysis.collector; // NOPMD
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -14,19 +13,11 @@ import hudson.matrix.MatrixAggregator;
 import hudson.matrix.MatrixBuild;
 import hudson.model.BuildListener;
 import hudson.model.Run;
-import hudson.plugins.analysis.collector.handler.AndroidLintHandler;
-import hudson.plugins.analysis.collector.handler.CheckStyleHandler;
-import hudson.plugins.analysis.collector.handler.DryHandler;
-import hudson.plugins.analysis.collector.handler.FindBugsHandler;
-import hudson.plugins.analysis.collector.handler.PmdHandler;
-import hudson.plugins.analysis.collector.handler.TasksHandler;
-import hudson.plugins.analysis.collector.handler.WarningsHandler;
 import hudson.plugins.analysis.core.BuildResult;
 import hudson.plugins.analysis.core.HealthAwarePublisher;
 import hudson.plugins.analysis.core.ParserResult;
 import hudson.plugins.analysis.core.ResultAction;
 import hudson.plugins.analysis.util.PluginLogger;
-import hudson.plugins.analysis.util.model.FileAnnotation;
 
 /**
  * Collects the results of the various analysis plug-ins.
@@ -44,6 +35,12 @@ public class AnalysisPublisher extends HealthAwarePublisher {
     private boolean isOpenTasksDeactivated;
     private boolean isWarningsDeactivated;
     private boolean isAndroidLintDeactivated;
+    /** Determines whether the results of the plug-ins are loaded concurrently. @since 2.0.1 */
+    private boolean collectInParallel;
+    /** Determines whether only the summary of the results is persisted. @since 2.0.1 */
+    private boolean summaryOnly;
+    /** Determines whether the annotations are persisted after the build step has been finished. @since 2.0.1 */
+    private boolean persistInBackground;
 
     private static final String PLUGIN_ID = "ANALYSIS-COLLECTOR";
 
@@ -175,37 +172,81 @@ public class AnalysisPublisher extends HealthAwarePublisher {
         isAndroidLintDeactivated = !lintActivated;
     }
 
+    /**
+     * Returns whether the results of the participating plug-ins should be loaded concurrently.
+     *
+     * @return <code>true</code> if the results should be loaded concurrently, <code>false</code> if the results
+     *         should be loaded one after another
+     */
+    public boolean isCollectInParallel() {
+        return collectInParallel;
+    }
+
+    /**
+     * @see #isCollectInParallel()
+     */
+    @DataBoundSetter
+    public void setCollectInParallel(final boolean collectInParallel) {
+        this.collectInParallel = collectInParallel;
+    }
+
+    /**
+     * Returns whether only the summary of the results should be persisted. In this mode the annotations are not
+     * copied into the result of this plug-in but resolved from the results of the participating plug-ins when
+     * needed.
+     *
+     * @return <code>true</code> if only the summary should be persisted, <code>false</code> if all annotations
+     *         should be persisted
+     */
+    public boolean isSummaryOnly() {
+        return summaryOnly;
+    }
+
+    /**
+     * @see #isSummaryOnly()
+     */
+    @DataBoundSetter
+    public void setSummaryOnly(final boolean summaryOnly) {
+        this.summaryOnly = summaryOnly;
+    }
+
+    /**
+     * Returns whether the annotations should be persisted in the background. In this mode the executor is released
+     * before the annotations have been written, until then the annotations are kept in memory.
+     *
+     * @return <code>true</code> if the annotations should be persisted in the background, <code>false</code> if
+     *         the annotations should be persisted before the build step is finished
+     */
+    public boolean isPersistInBackground() {
+        return persistInBackground;
+    }
+
+    /**
+     * @see #isPersistInBackground()
+     */
+    @DataBoundSetter
+    public void setPersistInBackground(final boolean persistInBackground) {
+        this.persistInBackground = persistInBackground;
+    }
+
     /**
      * Initializes the plug-ins that should participate in the results of this
      * analysis collector.
      *
      * @return the plug-in actions to read the results from
+     * @see HandlerRegistry
      */
-    @SuppressWarnings({"PMD.NPathComplexity", "PMD.CyclomaticComplexity"})
     private List<Class<? extends ResultAction<? extends BuildResult>>> getParticipatingPlugins() {
         ArrayList<Class<? extends ResultAction<? extends BuildResult>>> pluginResults;
         pluginResults = new ArrayList<Class<? extends ResultAction<? extends BuildResult>>>();
 
-        if (AnalysisDescriptor.isCheckStyleInstalled() && isCheckStyleActivated()) {
-            pluginResults.addAll(new CheckStyleHandler().getResultActions());
-        }
-        if (AnalysisDescriptor.isDryInstalled() && isDryActivated()) {
-            pluginResults.addAll(new DryHandler().getResultActions());
-        }
-        if (AnalysisDescriptor.isFindBugsInstalled() && isFindBugsActivated()) {
-            pluginResults.addAll(new FindBugsHandler().getResultActions());
-        }
-        if (AnalysisDescriptor.isPmdInstalled() && isPmdActivated()) {
-            pluginResults.addAll(new PmdHandler().getResultActions());
-        }
-        if (AnalysisDescriptor.isOpenTasksInstalled() && isOpenTasksActivated()) {
-            pluginResults.addAll(new TasksHandler().getResultActions());
-        }
-        if (AnalysisDescriptor.isWarningsInstalled() && isWarningsActivated()) {
-            pluginResults.addAll(new WarningsHandler().getResultActions());
-        }
-        if (AnalysisDescriptor.isAndroidLintInstalled() && isAndroidLintActivated()) {
-            pluginResults.addAll(new AndroidLintHandler().getResultActions());
+        WarningsAggregator activatedTools = new WarningsAggregator(isCheckStyleActivated(), isDryActivated(),
+                isFindBugsActivated(), isPmdActivated(), isOpenTasksActivated(), isWarningsActivated(),
+                isAndroidLintActivated());
+        for (HandlerRegistry.Tool tool : HandlerRegistry.getInstance().getTools()) {
+            if (activatedTools.isActivated(tool)) {
+                pluginResults.addAll(tool.getResultActions());
+            }
         }
 
         return pluginResults;
@@ -213,19 +254,23 @@ public class AnalysisPublisher extends HealthAwarePublisher {
 
     @Override
     public BuildResult perform(final Run<?, ?> build, final FilePath workspace, final PluginLogger logger) throws InterruptedException, IOException {
+        List<Class<? extends ResultAction<? extends BuildResult>>> participatingPlugins = getParticipatingPlugins();
+
         ParserResult overallResult = new ParserResult(workspace);
-        for (Class<? extends ResultAction<? extends BuildResult>> result : getParticipatingPlugins()) {
-            ResultAction<? extends BuildResult> action = build.getAction(result);
-            if (action != null) {
-                BuildResult actualResult = action.getResult();
-                Collection<FileAnnotation> annotations = actualResult.getAnnotations();
-                overallResult.addAnnotations(annotations);
-            }
-        }
+        new AnnotationCollector(build, participatingPlugins).collect(overallResult, isCollectInParallel());
 
-        AnalysisResult result = new AnalysisResult(build, getDefaultEncoding(), overallResult,
-                usePreviousBuildAsReference(), useOnlyStableBuildsAsReference());
+        AnalysisResult result;
+        if (isSummaryOnly()) {
+            result = new AnalysisResult(build, getDefaultEncoding(), overallResult,
+                    usePreviousBuildAsReference(), useOnlyStableBuildsAsReference(), participatingPlugins);
+        }
+        else {
+            result = new AnalysisResult(build, getDefaultEncoding(), overallResult,
+                    usePreviousBuildAsReference(), useOnlyStableBuildsAsReference(), participatingPlugins,
+                    isPersistInBackground());
+        }
         build.addAction(new AnalysisResultAction(build, this, result));
+        TrendStore.of(build.getParent()).append(result);
 
         return result;
     }
@@ -1,11 +1,25 @@
 package hudson.plugins.analysis.collector; // NOPMD
 
 import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-import com.google.common.collect.Maps;
+import javax.annotation.CheckForNull;
 
-import hudson.model.AbstractBuild;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import jenkins.model.Jenkins;
+
+import hudson.model.Action;
 import hudson.model.Run;
 
 import hudson.plugins.analysis.core.BuildHistory;
@@ -13,21 +27,92 @@ import hudson.plugins.analysis.core.BuildResult;
 import hudson.plugins.analysis.core.ParserResult;
 import hudson.plugins.analysis.core.ResultAction;
 import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.JavaProject;
+import hudson.plugins.analysis.util.model.Priority;
+import hudson.plugins.analysis.views.AttributeDetail;
+import hudson.plugins.analysis.views.DetailFactory;
 
 /**
  * Stores the results of the analysis plug-ins. One instance of this class is
- * persisted for each build via an XML file.
+ * persisted for each build via an XML file. The annotations are persisted in
+ * compact binary {@link AnnotationShards}, one shard per origin, unless the
+ * system property
+ * <code>hudson.plugins.analysis.collector.AnalysisResult.writeXml</code> is
+ * set. If the annotations can't be encoded, then they are persisted as
+ * compressed XML in {@link #getSerializationFileName()}. Builds of older
+ * releases keep their annotations in the plain XML file
+ * {@link #getSerializationFileName()}. Only the counts and the summary are
+ * kept in memory, the annotations are read on demand and kept in the global
+ * {@link AnnotationCache}.
  *
  * @author Ulli Hafner
  */
 public class AnalysisResult extends BuildResult {
     /** Unique identifier of this class. */
     private static final long serialVersionUID = 847650789493429154L;
+    private static final Logger LOGGER = Logger.getLogger(AnalysisResult.class.getName());
+    /**
+     * Determines whether the annotations of new builds are written to the XML file of the super class instead of
+     * the binary {@link AnnotationShards}. Builds with binary annotations can't be read by releases of this plug-in
+     * that do not know the binary format, so upgrading is a one-way step. Setting the system property
+     * <code>hudson.plugins.analysis.collector.AnalysisResult.writeXml</code> to <code>true</code> keeps the
+     * annotations of new builds readable by these releases.
+     */
+    private static final boolean WRITE_XML = Boolean.getBoolean(AnalysisResult.class.getName() + ".writeXml");
+    /** Prefix of the link to the annotations of an origin, e.g. <code>origin.findbugs</code>. */
+    private static final String ORIGIN_LINK = "origin.";
 
-    /** Number of annotations by origin mapping. Serialized @since 1.20. */
+    /**
+     * Number of annotations by origin mapping. Serialized @since 1.20.
+     *
+     * @deprecated replaced by {@link #origins} and {@link #originCounts}, only read from old builds
+     */
+    @Deprecated
     private Map<String, Integer> annotationsByOrigin;
+    /** Origins of the annotations. Serialized @since 2.0.1. */
+    private String[] origins;
+    /** Number of annotations of each of the {@link #origins}. Serialized @since 2.0.1. */
+    private int[] originCounts;
 
+    /**
+     * Class names of the result actions to resolve the annotations from if only the summary of this result has been
+     * persisted. If <code>null</code> then the annotations are persisted in {@link #getSerializationFileName()}.
+     * Serialized @since 2.0.1.
+     */
+    private List<String> summaryOnlyResultActions;
+
+    /**
+     * Number of new warnings computed by the {@link FingerprintDifferencer}. If <code>null</code> then the new
+     * warnings have been computed by {@link BuildResult}. Serialized @since 2.0.1.
+     */
+    private Integer numberOfNewFingerprints;
+    /** Number of fixed warnings computed by the {@link FingerprintDifferencer}. Serialized @since 2.0.1. */
+    private Integer numberOfFixedFingerprints;
+    /** Determines whether the previous build is used as reference build. Serialized @since 2.0.1. */
+    private boolean isPreviousBuildReference;
+    /** Determines whether only stable builds are used as reference builds. Serialized @since 2.0.1. */
+    private boolean isStableBuildReference;
+
+    private transient WeakReference<FingerprintDifferencer> difference;
     private transient Object mappingLock = new Object();
+    /** Annotations that are not written yet, see {@link AnnotationWriter}. */
+    private transient volatile JavaProject pendingProject;
+    /** Annotations that exceed the budget of the {@link AnnotationCache} on their own. */
+    private transient volatile SoftReference<JavaProject> uncachedProject;
+    /** Annotations that are kept in memory while they are aggregated, see {@link ParallelResultLoader}. */
+    private transient volatile JavaProject pinnedProject;
+    /** Number of aggregations that pinned the annotations, guarded by the mapping lock. */
+    private transient int pinCount;
+    /**
+     * Determines whether the annotations are persisted in the {@link AnnotationShards} or the
+     * {@link CompressedXmlFile}.
+     */
+    private transient volatile Boolean hasAnnotationFile;
+    /**
+     * Number of annotations indexed by the {@link OriginTable}. The array is filled before it is published, readers
+     * outside of the mapping lock see the filled array since the field is volatile.
+     */
+    private transient volatile int[] countsByOriginIndex;
 
     /**
      * Creates a new instance of {@link AnalysisResult}.
@@ -47,49 +132,594 @@ public class AnalysisResult extends BuildResult {
      */
     public AnalysisResult(final Run<?, ?> build, final String defaultEncoding, final ParserResult result,
             final boolean usePreviousBuildAsReference, final boolean useStableBuildAsReference) {
-        this(build, new BuildHistory(build, AnalysisResultAction.class, usePreviousBuildAsReference, useStableBuildAsReference),
-                result, defaultEncoding, true);
+        this(build, new FingerprintBuildHistory(build, result.getAnnotations(),
+                usePreviousBuildAsReference, useStableBuildAsReference), result, defaultEncoding, true);
+    }
+
+    /**
+     * Creates a new instance of {@link AnalysisResult} that persists only the summary of the specified result. The
+     * annotations are not copied, they are resolved from the result actions of the participating plug-ins on demand.
+     *
+     * @param build
+     *            the current build as owner of this action
+     * @param defaultEncoding
+     *            the default encoding to be used when reading and parsing files
+     * @param result
+     *            the parsed result with all annotations
+     * @param usePreviousBuildAsReference
+     *            determines whether the previous build should be used as the
+     *            reference build
+     * @param useStableBuildAsReference
+     *            determines whether only stable builds should be used as
+     *            reference builds or not
+     * @param participatingPlugins
+     *            the result actions of the plug-ins that contributed to the result
+     */
+    public AnalysisResult(final Run<?, ?> build, final String defaultEncoding, final ParserResult result,
+            final boolean usePreviousBuildAsReference, final boolean useStableBuildAsReference,
+            final Collection<Class<? extends ResultAction<? extends BuildResult>>> participatingPlugins) {
+        this(build, new FingerprintBuildHistory(build, result.getAnnotations(),
+                usePreviousBuildAsReference, useStableBuildAsReference), result, defaultEncoding, false);
+
+        summaryOnlyResultActions = new ArrayList<String>();
+        for (Class<? extends ResultAction<? extends BuildResult>> action : participatingPlugins) {
+            summaryOnlyResultActions.add(action.getName());
+        }
+    }
+
+    /**
+     * Creates a new instance of {@link AnalysisResult} that optionally persists the annotations of the specified
+     * result in the background. Until the annotations have been written, they are served from memory.
+     *
+     * @param build
+     *            the current build as owner of this action
+     * @param defaultEncoding
+     *            the default encoding to be used when reading and parsing files
+     * @param result
+     *            the parsed result with all annotations
+     * @param usePreviousBuildAsReference
+     *            determines whether the previous build should be used as the
+     *            reference build
+     * @param useStableBuildAsReference
+     *            determines whether only stable builds should be used as
+     *            reference builds or not
+     * @param participatingPlugins
+     *            the result actions of the plug-ins that contributed to the result, the annotations are collected
+     *            again from these actions if Jenkins is stopped before the annotations have been written
+     * @param persistInBackground
+     *            determines whether the annotations should be written by the {@link AnnotationWriter}
+     */
+    public AnalysisResult(final Run<?, ?> build, final String defaultEncoding, final ParserResult result,
+            final boolean usePreviousBuildAsReference, final boolean useStableBuildAsReference,
+            final Collection<Class<? extends ResultAction<? extends BuildResult>>> participatingPlugins,
+            final boolean persistInBackground) {
+        this(build, new FingerprintBuildHistory(build, result.getAnnotations(),
+                usePreviousBuildAsReference, useStableBuildAsReference), result, defaultEncoding,
+                !persistInBackground);
+
+        if (persistInBackground) {
+            setPendingAnnotations(result.getAnnotations());
+            AnnotationWriter.schedule(this, participatingPlugins);
+        }
     }
 
     AnalysisResult(final Run<?, ?> build, final BuildHistory history,
             final ParserResult result, final String defaultEncoding, final boolean canSerialize) {
         super(build, history, result, defaultEncoding);
 
-        annotationsByOrigin = countAnnotations();
+        if (history instanceof FingerprintBuildHistory) {
+            storeDifference((FingerprintBuildHistory)history);
+        }
+        countAnnotations();
         if (canSerialize) {
             serializeAnnotations(result.getAnnotations());
         }
     }
 
+    private void storeDifference(final FingerprintBuildHistory history) {
+        isPreviousBuildReference = history.isPreviousBuildReference();
+        isStableBuildReference = history.isStableBuildReference();
+
+        FingerprintDifferencer differencer = history.takeDifference();
+        if (differencer != null) {
+            numberOfNewFingerprints = differencer.getNewAnnotations().size();
+            numberOfFixedFingerprints = differencer.getFixedAnnotations().size();
+            difference = new WeakReference<FingerprintDifferencer>(differencer);
+        }
+    }
+
+    /**
+     * Returns the difference to the reference build. The difference is recomputed if it has been reclaimed by the
+     * garbage collector or if this result has been loaded from disk.
+     *
+     * @return the difference to the reference build
+     */
+    private FingerprintDifferencer getDifference() {
+        FingerprintDifferencer differencer = difference == null ? null : difference.get();
+        if (differencer == null) {
+            BuildHistory history = new BuildHistory(getOwner(), AnalysisResultAction.class,
+                    isPreviousBuildReference, isStableBuildReference);
+            differencer = new FingerprintDifferencer(getAnnotations(),
+                    history.getReferenceAnnotations().getAnnotations());
+            difference = new WeakReference<FingerprintDifferencer>(differencer);
+        }
+        return differencer;
+    }
+
+    private boolean hasFingerprints() {
+        return numberOfNewFingerprints != null && numberOfFixedFingerprints != null;
+    }
+
+    @Override
+    public int getNumberOfNewWarnings() {
+        if (hasFingerprints()) {
+            return numberOfNewFingerprints;
+        }
+        return super.getNumberOfNewWarnings();
+    }
+
+    @Override
+    public int getNumberOfFixedWarnings() {
+        if (hasFingerprints()) {
+            return numberOfFixedFingerprints;
+        }
+        return super.getNumberOfFixedWarnings();
+    }
+
+    @Override
+    public Collection<FileAnnotation> getNewWarnings() {
+        if (hasFingerprints()) {
+            return getDifference().getNewAnnotations();
+        }
+        return super.getNewWarnings();
+    }
+
+    @Override
+    public Collection<FileAnnotation> getFixedWarnings() {
+        if (hasFingerprints()) {
+            return getDifference().getFixedAnnotations();
+        }
+        return super.getFixedWarnings();
+    }
+
     @Override
     public String getHeader() {
         return Messages.Analysis_ResultAction_Header();
     }
 
     @Override
+    @SuppressWarnings("deprecation")
     protected Object readResolve() {
         super.readResolve();
 
         mappingLock = new Object();
+        if (annotationsByOrigin != null) {
+            origins = annotationsByOrigin.keySet().toArray(new String[annotationsByOrigin.size()]);
+            originCounts = new int[origins.length];
+            for (int i = 0; i < origins.length; i++) {
+                originCounts[i] = annotationsByOrigin.get(origins[i]);
+            }
+            annotationsByOrigin = null;
+        }
+        if (origins != null) {
+            int[] counts = new int[0];
+            for (int i = 0; i < origins.length; i++) {
+                int index = OriginTable.indexOf(origins[i]);
+                origins[i] = OriginTable.getOrigin(index);
+                counts = ensureCapacity(counts, index);
+                counts[index] = originCounts[i];
+            }
+            countsByOriginIndex = counts;
+        }
 
         return this;
     }
 
     /**
-     * Count the annotations by origin.
+     * Returns whether only the summary of this result has been persisted.
+     *
+     * @return <code>true</code> if the annotations are resolved from the results of the participating plug-ins,
+     *         <code>false</code> if the annotations are persisted with this result
+     */
+    public boolean isSummaryOnly() {
+        return summaryOnlyResultActions != null;
+    }
+
+    @Override
+    public JavaProject getProject() {
+        JavaProject pending = pendingProject;
+        if (pending != null) {
+            return pending;
+        }
+        JavaProject pinned = pinnedProject;
+        if (pinned != null) {
+            return pinned;
+        }
+        if (isSummaryOnly() || hasAnnotationFile()) {
+            synchronized (mappingLock) {
+                JavaProject project = getUncachedProject();
+                if (project == null) {
+                    project = AnnotationCache.getInstance().get(getCacheKey());
+                }
+                if (project == null) {
+                    project = isSummaryOnly() ? resolveProject(summaryOnlyResultActions) : readProject();
+                    if (project == null) {
+                        return super.getProject();
+                    }
+                    cache(project);
+                }
+                return project;
+            }
+        }
+        return super.getProject();
+    }
+
+    /**
+     * Loads the annotations of this result and keeps them in memory until {@link #unpin()} is called, so that they
+     * are not read again if they are evicted from the {@link AnnotationCache} in the meantime. Called by the
+     * {@link ParallelResultLoader}, the annotations stay in memory until all aggregations that pinned them are done.
+     */
+    void pin() {
+        JavaProject project = getProject();
+        synchronized (mappingLock) {
+            pinCount++;
+            if (pinnedProject == null) {
+                pinnedProject = project;
+            }
+        }
+    }
+
+    /**
+     * Releases the annotations that have been pinned by {@link #pin()}.
+     */
+    void unpin() {
+        synchronized (mappingLock) {
+            if (pinCount > 0) {
+                pinCount--;
+                if (pinCount == 0) {
+                    pinnedProject = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the annotations from the specified origin. If the annotations are not in memory, then only the shard
+     * of the origin is read.
      *
-     * @return the mapping
+     * @param origin
+     *            the origin
+     * @return the annotations from the specified origin
      */
-    private Map<String, Integer> countAnnotations() {
-        Map<String, Integer> mapping = Maps.newHashMap();
+    public Collection<FileAnnotation> getAnnotationsByOrigin(final String origin) {
+        if (!isSummaryOnly() && hasAnnotationShards() && !isCached()) {
+            try {
+                return getAnnotationShards().readOrigin(origin, getClassLoader());
+            }
+            catch (IOException exception) {
+                LOGGER.log(Level.WARNING, "Failed to read annotations of " + origin + " in build " + getOwner(),
+                        exception);
+            }
+        }
+        List<FileAnnotation> annotations = new ArrayList<FileAnnotation>();
         for (FileAnnotation annotation : getAnnotations()) {
-            if (!mapping.containsKey(annotation.getOrigin())) {
-                mapping.put(annotation.getOrigin(), 0);
+            if (StringUtils.equals(origin, annotation.getOrigin())) {
+                annotations.add(annotation);
             }
-            mapping.put(annotation.getOrigin(),
-                    mapping.get(annotation.getOrigin()) + 1);
         }
-        return mapping;
+        return annotations;
+    }
+
+    /**
+     * Returns the annotations of the specified file. If the annotations are not in memory, then only the shards
+     * that contain annotations of the file are read.
+     *
+     * @param fileName
+     *            the name of the file
+     * @return the annotations of the specified file
+     */
+    public Collection<FileAnnotation> getAnnotationsOfFile(final String fileName) {
+        if (!isSummaryOnly() && hasAnnotationShards() && !isCached()) {
+            try {
+                return getAnnotationShards().readFile(fileName, getClassLoader());
+            }
+            catch (IOException exception) {
+                LOGGER.log(Level.WARNING, "Failed to read annotations of " + fileName + " in build " + getOwner(),
+                        exception);
+            }
+        }
+        List<FileAnnotation> annotations = new ArrayList<FileAnnotation>();
+        for (FileAnnotation annotation : getAnnotations()) {
+            if (StringUtils.equals(fileName, annotation.getFileName())) {
+                annotations.add(annotation);
+            }
+        }
+        return annotations;
+    }
+
+    /**
+     * Returns the details of the specified link. In addition to the details of the super class, the annotations of
+     * a single origin (<code>origin.&lt;origin&gt;</code>) are shown, these links are part of the
+     * {@link #createDeltaMessage() details of the summary}. If the annotations are not in memory, then only the shard
+     * of the origin is read.
+     *
+     * @param link
+     *            the link to the details
+     * @param request
+     *            Stapler request
+     * @param response
+     *            Stapler response
+     * @return the details
+     */
+    @Override
+    public Object getDynamic(final String link, final StaplerRequest request, final StaplerResponse response) {
+        if (link.startsWith(ORIGIN_LINK)) {
+            String origin = StringUtils.substringAfter(link, ORIGIN_LINK);
+            return createDetail(getAnnotationsByOrigin(origin), origin);
+        }
+        return super.getDynamic(link, request, response);
+    }
+
+    private AttributeDetail createDetail(final Collection<FileAnnotation> annotations, final String header) {
+        return new AttributeDetail(getOwner(), new DetailFactory(), annotations, getDefaultEncoding(), header);
+    }
+
+    private boolean isCached() {
+        return getUncachedProject() != null || AnnotationCache.getInstance().contains(getCacheKey());
+    }
+
+    /**
+     * Puts the specified annotations into the {@link AnnotationCache}. If the annotations exceed the budget of the
+     * cache, then they are softly referenced by this result, so that they are not read again for each request until
+     * the garbage collector reclaims them.
+     *
+     * @param project
+     *            the annotations of this result
+     */
+    private void cache(final JavaProject project) {
+        if (AnnotationCache.getInstance().put(getCacheKey(), project)) {
+            uncachedProject = null;
+        }
+        else {
+            uncachedProject = new SoftReference<JavaProject>(project);
+        }
+    }
+
+    @CheckForNull
+    private JavaProject getUncachedProject() {
+        SoftReference<JavaProject> reference = uncachedProject;
+        return reference == null ? null : reference.get();
+    }
+
+    /**
+     * Writes the annotations to the compact binary {@link AnnotationShards}. If the annotations could not be
+     * encoded, then they are written as {@link CompressedXmlFile compressed XML} to the file of the super class. If
+     * the binary format has been disabled (see {@link #WRITE_XML}), then they are written to the uncompressed XML
+     * file of the super class.
+     *
+     * @param annotations
+     *            the annotations to write
+     */
+    @Override
+    protected void serializeAnnotations(final Collection<FileAnnotation> annotations) {
+        if (WRITE_XML) {
+            super.serializeAnnotations(annotations);
+            return;
+        }
+        try {
+            getAnnotationShards().write(annotations);
+            hasAnnotationFile = Boolean.TRUE;
+
+            JavaProject project = new JavaProject();
+            project.addAnnotations(annotations);
+            cache(project);
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to write binary annotations of build " + getOwner()
+                    + ", writing XML instead", exception);
+            serializeCompressedXml(annotations);
+        }
+    }
+
+    private void serializeCompressedXml(final Collection<FileAnnotation> annotations) {
+        try {
+            getCompressedXmlFile().write(annotations);
+            hasAnnotationFile = Boolean.TRUE;
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to write compressed XML annotations of build " + getOwner(), exception);
+            super.serializeAnnotations(annotations);
+        }
+    }
+
+    /**
+     * Keeps a snapshot of the specified annotations in memory until they have been written by the
+     * {@link AnnotationWriter}. Until then, the annotations of this result are served from the snapshot.
+     *
+     * @param annotations
+     *            the annotations to write
+     */
+    void setPendingAnnotations(final Collection<FileAnnotation> annotations) {
+        JavaProject snapshot = new JavaProject();
+        snapshot.addAnnotations(annotations);
+        pendingProject = snapshot;
+    }
+
+    /**
+     * Writes the annotations that are kept in memory since this result has been created. Called by the
+     * {@link AnnotationWriter}. The recovery marker is deleted and the snapshot is released only if the annotations
+     * have been written, so a failed write can be recovered.
+     */
+    synchronized void writePendingAnnotations() {
+        JavaProject project = pendingProject;
+        if (project != null) {
+            serializeAnnotations(project.getAnnotations());
+            AnnotationWriter.deleteMarker(getOwner());
+            pendingProject = null;
+        }
+    }
+
+    /**
+     * Releases the annotations that are kept in memory since this result has been created. Called by the
+     * {@link AnnotationWriter} if the annotations could not be written. The recovery marker is kept, so the
+     * annotations are collected again from the results of the participating plug-ins when they are requested.
+     */
+    synchronized void discardPendingAnnotations() {
+        pendingProject = null;
+        hasAnnotationFile = null;
+    }
+
+    /**
+     * Writes the annotations of this result if Jenkins has been stopped before the {@link AnnotationWriter} wrote
+     * them or if the {@link AnnotationWriter} failed to write them. The annotations are collected again from the
+     * results of the participating plug-ins.
+     */
+    private synchronized void recoverPendingAnnotations() {
+        if (isSummaryOnly() || pendingProject != null) {
+            return;
+        }
+        List<String> pendingActions = AnnotationWriter.getPendingActions(getOwner());
+        if (pendingActions != null) {
+            LOGGER.log(Level.INFO, "Recovering annotations of build " + getOwner() + " that have not been written");
+            serializeAnnotations(resolveProject(pendingActions).getAnnotations());
+            AnnotationWriter.deleteMarker(getOwner());
+        }
+    }
+
+    /**
+     * Reads the annotations of this result from the compact binary {@link AnnotationShards} or from the
+     * {@link CompressedXmlFile} if the annotations could not be encoded.
+     *
+     * @return the annotations or <code>null</code> if the files could not be read
+     */
+    @CheckForNull
+    private JavaProject readProject() {
+        try {
+            JavaProject project = new JavaProject();
+            if (hasAnnotationShards()) {
+                project.addAnnotations(getAnnotationShards().read(getClassLoader()));
+            }
+            else {
+                project.addAnnotations(getCompressedXmlFile().read());
+            }
+            return project;
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to read binary annotations of build " + getOwner(), exception);
+            return null;
+        }
+    }
+
+    private ClassLoader getClassLoader() {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null) {
+            return AnalysisResult.class.getClassLoader(); // e.g. in tests, without the other plug-ins
+        }
+        return jenkins.getPluginManager().uberClassLoader;
+    }
+
+    private boolean hasAnnotationFile() {
+        Boolean exists = hasAnnotationFile;
+        if (exists == null) {
+            if (pendingProject != null) {
+                return false; // the files are being written right now
+            }
+            recoverPendingAnnotations();
+            exists = getAnnotationShards().exists() || getCompressedXmlFile().isCompressed();
+            hasAnnotationFile = exists;
+        }
+        return exists;
+    }
+
+    private boolean hasAnnotationShards() {
+        return hasAnnotationFile() && getAnnotationShards().exists();
+    }
+
+    private AnnotationShards getAnnotationShards() {
+        return AnnotationShards.of(getOwner());
+    }
+
+    private CompressedXmlFile getCompressedXmlFile() {
+        return CompressedXmlFile.of(getOwner(), getSerializationFileName());
+    }
+
+    private String getCacheKey() {
+        return getOwner().getExternalizableId();
+    }
+
+    /**
+     * Resolves the annotations of this result from the result actions of the participating plug-ins.
+     *
+     * @param actionNames
+     *            the class names of the result actions of the participating plug-ins
+     * @return the resolved annotations
+     */
+    private JavaProject resolveProject(final List<String> actionNames) {
+        JavaProject project = new JavaProject();
+        for (String actionName : actionNames) {
+            try {
+                Class<?> type = getClassLoader().loadClass(actionName);
+                for (Action action : getOwner().getActions()) {
+                    if (type.isInstance(action)) {
+                        project.addAnnotations(((ResultAction<?>)action).getResult().getAnnotations());
+                    }
+                }
+            }
+            catch (ClassNotFoundException exception) {
+                LOGGER.log(Level.WARNING, "Skipping results of uninstalled plug-in " + actionName, exception);
+            }
+        }
+        return project;
+    }
+
+    private AnalysisSummary createSummary() {
+        return new AnalysisSummary(getNumberOfAnnotations(),
+                getNumberOfAnnotations(Priority.HIGH), getNumberOfAnnotations(Priority.NORMAL),
+                getNumberOfAnnotations(Priority.LOW),
+                getNumberOfNewWarnings(), getNumberOfFixedWarnings(), getNumberOfModules(), origins, originCounts);
+    }
+
+    /**
+     * Count the annotations by origin. The annotations are counted in a single pass using the indices of the
+     * {@link OriginTable}.
+     */
+    private void countAnnotations() {
+        int[] counts = new int[OriginTable.size()];
+        for (FileAnnotation annotation : getAnnotations()) {
+            int index = OriginTable.indexOf(annotation.getOrigin());
+            counts = ensureCapacity(counts, index);
+            counts[index]++;
+        }
+        setCountsByOriginIndex(counts);
+    }
+
+    private void setCountsByOriginIndex(final int[] counts) {
+        int size = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                size++;
+            }
+        }
+        String[] usedOrigins = new String[size];
+        int[] usedCounts = new int[size];
+        int position = 0;
+        for (int index = 0; index < counts.length; index++) {
+            if (counts[index] > 0) {
+                usedOrigins[position] = OriginTable.getOrigin(index);
+                usedCounts[position] = counts[index];
+                position++;
+            }
+        }
+        origins = usedOrigins;
+        originCounts = usedCounts;
+        countsByOriginIndex = counts;
+    }
+
+    private static int[] ensureCapacity(final int[] counts, final int index) {
+        if (index < counts.length) {
+            return counts;
+        }
+        return Arrays.copyOf(counts, Math.max(index + 1, OriginTable.size()));
     }
 
     @Override
@@ -98,9 +728,26 @@ public class AnalysisResult extends BuildResult {
                 + createDefaultSummary(AnalysisDescriptor.RESULT_URL, getNumberOfAnnotations(), getNumberOfModules());
     }
 
+    /**
+     * Creates the details of the summary: the links to the new and fixed warnings and a link to the warnings of each
+     * participating plug-in that reported warnings.
+     *
+     * @return the details
+     */
     @Override
     protected String createDeltaMessage() {
-        return createDefaultDeltaMessage(AnalysisDescriptor.RESULT_URL, getNumberOfNewWarnings(), getNumberOfFixedWarnings());
+        StringBuilder message = new StringBuilder(createDefaultDeltaMessage(AnalysisDescriptor.RESULT_URL,
+                getNumberOfNewWarnings(), getNumberOfFixedWarnings()));
+        for (HandlerRegistry.Tool tool : HandlerRegistry.getInstance().getTools()) {
+            int count = getNumberOfAnnotationsByOrigin(tool.getOrigin());
+            if (count > 0) {
+                message.append(String.format("<li><a href=\"%s/%s%s\">%s: %s</a></li>", AnalysisDescriptor.RESULT_URL,
+                        ORIGIN_LINK, tool.getOrigin(), tool.getHandler().getOriginLabel(),
+                        count == 1 ? Messages.Analysis_ResultAction_OneWarning()
+                                : Messages.Analysis_ResultAction_MultipleWarnings(count)));
+            }
+        }
+        return message.toString();
     }
 
     @Override
@@ -127,20 +774,65 @@ public class AnalysisResult extends BuildResult {
      * @return the number of annotations from the specified origin
      */
     public int getNumberOfAnnotationsByOrigin(final String origin) {
+        int index = OriginTable.find(origin);
+        if (index == OriginTable.UNKNOWN) {
+            return 0;
+        }
+        return getNumberOfAnnotationsByOrigin(index);
+    }
+
+    /**
+     * Returns the number of annotations from the origin with the specified index in the {@link OriginTable}. If
+     * there are no annotations, then 0 is returned.
+     *
+     * @param originIndex
+     *            the index of the origin
+     * @return the number of annotations from the specified origin
+     */
+    int getNumberOfAnnotationsByOrigin(final int originIndex) {
+        int[] counts = getCountsByOriginIndex();
+        if (originIndex < counts.length) {
+            return counts[originIndex];
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the summary of this result for the trend of the job.
+     *
+     * @return the summary
+     */
+    AnalysisSummary getTrendSummary() {
         synchronized (mappingLock) {
-            if (annotationsByOrigin == null) {
-                annotationsByOrigin = countAnnotations();
-                try {
-                    getOwner().save();
-                }
-                catch (IOException exception) {
-                    // ignore
-                }
+            getCountsByOriginIndex();
+            return createSummary();
+        }
+    }
+
+    /**
+     * Counts the annotations by origin if the build record of this result does not contain the counts yet. The
+     * {@link LegacyResultMigration} calls this method before the build record is saved, since the build may have
+     * been loaded again after the counts have been computed on a read path.
+     */
+    void migrateCounts() {
+        synchronized (mappingLock) {
+            if (countsByOriginIndex == null) {
+                countAnnotations();
             }
         }
-        if (annotationsByOrigin.containsKey(origin)) {
-            return annotationsByOrigin.get(origin);
+    }
+
+    private int[] getCountsByOriginIndex() {
+        int[] counts = countsByOriginIndex;
+        if (counts == null) {
+            synchronized (mappingLock) {
+                if (countsByOriginIndex == null) {
+                    countAnnotations();
+                    LegacyResultMigration.schedule(getOwner());
+                }
+                counts = countsByOriginIndex;
+            }
         }
-        return 0;
+        return counts;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,215 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact summary of an {@link AnalysisResult}. The summaries of all builds of a job are stored in the
+ * {@link TrendStore} of the job so that trend graphs can obtain the numbers of a build without loading the build.
+ * <p>
+ * Layout: total, high, normal, low, new, fixed, modules, number of origins, followed by the pairs (origin, count).
+ * </p>
+ */
+public final class AnalysisSummary {
+    private final int numberOfAnnotations;
+    private final int numberOfHighPriorityAnnotations;
+    private final int numberOfNormalPriorityAnnotations;
+    private final int numberOfLowPriorityAnnotations;
+    private final int numberOfNewWarnings;
+    private final int numberOfFixedWarnings;
+    private final int numberOfModules;
+    private final String[] origins;
+    private final int[] originCounts;
+
+    /**
+     * Creates a new instance of {@link AnalysisSummary}.
+     *
+     * @param numberOfAnnotations
+     *            total number of annotations
+     * @param numberOfHighPriorityAnnotations
+     *            number of annotations with priority high
+     * @param numberOfNormalPriorityAnnotations
+     *            number of annotations with priority normal
+     * @param numberOfLowPriorityAnnotations
+     *            number of annotations with priority low
+     * @param numberOfNewWarnings
+     *            number of new warnings
+     * @param numberOfFixedWarnings
+     *            number of fixed warnings
+     * @param numberOfModules
+     *            number of modules
+     * @param origins
+     *            the origins of the annotations
+     * @param originCounts
+     *            the number of annotations for each of the origins
+     */
+    // CHECKSTYLE:OFF
+    AnalysisSummary(final int numberOfAnnotations, final int numberOfHighPriorityAnnotations,
+            final int numberOfNormalPriorityAnnotations, final int numberOfLowPriorityAnnotations,
+            final int numberOfNewWarnings, final int numberOfFixedWarnings, final int numberOfModules,
+            final String[] origins, final int[] originCounts) {
+        // CHECKSTYLE:ON
+        this.numberOfAnnotations = numberOfAnnotations;
+        this.numberOfHighPriorityAnnotations = numberOfHighPriorityAnnotations;
+        this.numberOfNormalPriorityAnnotations = numberOfNormalPriorityAnnotations;
+        this.numberOfLowPriorityAnnotations = numberOfLowPriorityAnnotations;
+        this.numberOfNewWarnings = numberOfNewWarnings;
+        this.numberOfFixedWarnings = numberOfFixedWarnings;
+        this.numberOfModules = numberOfModules;
+        this.origins = Arrays.copyOf(origins, origins.length);
+        this.originCounts = Arrays.copyOf(originCounts, originCounts.length);
+    }
+
+    public int getNumberOfAnnotations() {
+        return numberOfAnnotations;
+    }
+
+    public int getNumberOfHighPriorityAnnotations() {
+        return numberOfHighPriorityAnnotations;
+    }
+
+    public int getNumberOfNormalPriorityAnnotations() {
+        return numberOfNormalPriorityAnnotations;
+    }
+
+    public int getNumberOfLowPriorityAnnotations() {
+        return numberOfLowPriorityAnnotations;
+    }
+
+    public int getNumberOfNewWarnings() {
+        return numberOfNewWarnings;
+    }
+
+    public int getNumberOfFixedWarnings() {
+        return numberOfFixedWarnings;
+    }
+
+    public int getNumberOfModules() {
+        return numberOfModules;
+    }
+
+    /**
+     * Returns the number of annotations from the specified origin. If there are no annotations, then 0 is returned.
+     *
+     * @param origin
+     *            the origin
+     * @return the number of annotations from the specified origin
+     */
+    public int getNumberOfAnnotationsByOrigin(final String origin) {
+        for (int i = 0; i < origins.length; i++) {
+            if (origins[i].equals(origin)) {
+                return originCounts[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a new summary that contains the sum of the counts of this summary and the specified summary.
+     *
+     * @param other
+     *            the summary to add
+     * @return the sum of both summaries
+     */
+    AnalysisSummary add(final AnalysisSummary other) {
+        Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < origins.length; i++) {
+            counts.put(origins[i], originCounts[i]);
+        }
+        for (int i = 0; i < other.origins.length; i++) {
+            Integer count = counts.get(other.origins[i]);
+            counts.put(other.origins[i], count == null ? other.originCounts[i] : count + other.originCounts[i]);
+        }
+        String[] sumOrigins = counts.keySet().toArray(new String[counts.size()]);
+        int[] sumCounts = new int[sumOrigins.length];
+        for (int i = 0; i < sumOrigins.length; i++) {
+            sumCounts[i] = counts.get(sumOrigins[i]);
+        }
+        return new AnalysisSummary(numberOfAnnotations + other.numberOfAnnotations,
+                numberOfHighPriorityAnnotations + other.numberOfHighPriorityAnnotations,
+                numberOfNormalPriorityAnnotations + other.numberOfNormalPriorityAnnotations,
+                numberOfLowPriorityAnnotations + other.numberOfLowPriorityAnnotations,
+                numberOfNewWarnings + other.numberOfNewWarnings,
+                numberOfFixedWarnings + other.numberOfFixedWarnings,
+                numberOfModules + other.numberOfModules, sumOrigins, sumCounts);
+    }
+
+    /**
+     * Returns a copy of this summary with the specified number of new and fixed warnings.
+     *
+     * @param newWarnings
+     *            the number of new warnings
+     * @param fixedWarnings
+     *            the number of fixed warnings
+     * @return the copy
+     */
+    AnalysisSummary withNewAndFixedWarnings(final int newWarnings, final int fixedWarnings) {
+        return new AnalysisSummary(numberOfAnnotations, numberOfHighPriorityAnnotations,
+                numberOfNormalPriorityAnnotations, numberOfLowPriorityAnnotations, newWarnings, fixedWarnings,
+                numberOfModules, origins, originCounts);
+    }
+
+    /**
+     * Returns the origins of the annotations in this summary.
+     *
+     * @return the origins
+     */
+    String[] getOrigins() {
+        return Arrays.copyOf(origins, origins.length);
+    }
+
+    /**
+     * Writes the counts of this summary to the specified output.
+     *
+     * @param output
+     *            the output to write to
+     * @throws IOException
+     *             if the summary could not be written
+     */
+    void writeTo(final DataOutput output) throws IOException {
+        output.writeInt(numberOfAnnotations);
+        output.writeInt(numberOfHighPriorityAnnotations);
+        output.writeInt(numberOfNormalPriorityAnnotations);
+        output.writeInt(numberOfLowPriorityAnnotations);
+        output.writeInt(numberOfNewWarnings);
+        output.writeInt(numberOfFixedWarnings);
+        output.writeInt(numberOfModules);
+        output.writeInt(origins.length);
+        for (int i = 0; i < origins.length; i++) {
+            output.writeUTF(origins[i]);
+            output.writeInt(originCounts[i]);
+        }
+    }
+
+    /**
+     * Reads the counts of a summary from the specified input.
+     *
+     * @param input
+     *            the input to read from
+     * @return the summary
+     * @throws IOException
+     *             if the summary could not be read
+     */
+    static AnalysisSummary readFrom(final DataInput input) throws IOException {
+        int total = input.readInt();
+        int high = input.readInt();
+        int normal = input.readInt();
+        int low = input.readInt();
+        int newWarnings = input.readInt();
+        int fixedWarnings = input.readInt();
+        int modules = input.readInt();
+        int size = input.readInt();
+        String[] origins = new String[size];
+        int[] originCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            origins[i] = input.readUTF();
+            originCounts[i] = input.readInt();
+        }
+        return new AnalysisSummary(total, high, normal, low, newWarnings, fixedWarnings, modules,
+                origins, originCounts);
+    }
+}
@@ -0,0 +1,261 @@
+package hudson.plugins.analysis.collector;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import hudson.plugins.analysis.util.model.JavaProject;
+
+/**
+ * Global cache of the annotations of the {@link AnalysisResult} instances. An {@link AnalysisResult} keeps only its
+ * counts and its summary, the annotations are read from the build folder on demand and put into this cache. The
+ * cache is bounded by a budget of bytes: the size of an entry is estimated from the number of its annotations, the
+ * least recently used entries are evicted if the budget is exceeded. Additionally, the entries are softly referenced
+ * so that the garbage collector can reclaim them under memory pressure; the reclaimed entries are removed and no
+ * longer count towards the size of the cache.
+ * <p>
+ * The budget is configured by the system property
+ * <code>hudson.plugins.analysis.collector.AnnotationCache.budget</code> (in bytes). The statistics of the cache are
+ * available via JMX as {@link #OBJECT_NAME}.
+ * </p>
+ */
+public final class AnnotationCache implements AnnotationCacheMBean {
+    /** Default budget in bytes. */
+    static final long DEFAULT_BUDGET = 64L * 1024 * 1024;
+    /** Estimated size of an annotation in bytes. */
+    static final long ANNOTATION_SIZE = 1024;
+    /** Name of the cache in the platform MBean server. */
+    public static final String OBJECT_NAME = "hudson.plugins.analysis.collector:type=AnnotationCache";
+
+    private static final Logger LOGGER = Logger.getLogger(AnnotationCache.class.getName());
+
+    private static final AnnotationCache INSTANCE = new AnnotationCache(
+            Long.getLong(AnnotationCache.class.getName() + ".budget", DEFAULT_BUDGET));
+
+    private final long budget;
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final ReferenceQueue<JavaProject> reclaimed = new ReferenceQueue<JavaProject>();
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Returns the global cache.
+     *
+     * @return the cache
+     */
+    public static AnnotationCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the statistics of the global cache in the platform MBean server.
+     */
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        }
+        catch (JMException exception) {
+            LOGGER.log(Level.WARNING, "Failed to register " + OBJECT_NAME, exception);
+        }
+    }
+
+    /**
+     * Creates a new instance of {@link AnnotationCache}.
+     *
+     * @param budget
+     *            the maximum estimated size of all cached annotations in bytes
+     */
+    AnnotationCache(final long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the cached annotations of the specified build.
+     *
+     * @param key
+     *            the externalizable ID of the build
+     * @return the annotations or <code>null</code> if the annotations are not cached
+     */
+    @CheckForNull
+    synchronized JavaProject get(final String key) {
+        removeReclaimedEntries();
+
+        Entry entry = entries.get(key);
+        JavaProject project = entry == null ? null : entry.get();
+        if (project == null) {
+            if (entry != null) {
+                remove(key, entry);
+                evictions++;
+            }
+            misses++;
+        }
+        else {
+            hits++;
+        }
+        return project;
+    }
+
+    /**
+     * Returns whether the annotations of the specified build are cached. The statistics of the cache are not changed.
+     *
+     * @param key
+     *            the externalizable ID of the build
+     * @return <code>true</code> if the annotations are cached, <code>false</code> otherwise
+     */
+    synchronized boolean contains(final String key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.get() != null;
+    }
+
+    /**
+     * Caches the annotations of the specified build. If the annotations exceed the budget on their own, then they
+     * are not cached.
+     *
+     * @param key
+     *            the externalizable ID of the build
+     * @param project
+     *            the annotations of the build
+     * @return <code>true</code> if the annotations have been cached, <code>false</code> if they exceed the budget
+     */
+    synchronized boolean put(final String key, final JavaProject project) {
+        removeReclaimedEntries();
+
+        Entry previous = entries.get(key);
+        if (previous != null) {
+            remove(key, previous);
+        }
+        long weight = ANNOTATION_SIZE * (project.getNumberOfAnnotations() + 1);
+        if (weight > budget) {
+            return false;
+        }
+
+        entries.put(key, new Entry(key, project, weight, reclaimed));
+        size += weight;
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > budget && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            size -= eldest.getValue().weight;
+            iterator.remove();
+            evictions++;
+        }
+        return true;
+    }
+
+    /**
+     * Removes the entries whose annotations have been reclaimed by the garbage collector.
+     */
+    private void removeReclaimedEntries() {
+        for (Reference<? extends JavaProject> reference = reclaimed.poll(); reference != null;
+                reference = reclaimed.poll()) {
+            Entry entry = (Entry)reference;
+            if (entries.get(entry.key) == entry) {
+                remove(entry.key, entry);
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * Removes the annotations of the specified build.
+     *
+     * @param key
+     *            the externalizable ID of the build
+     */
+    synchronized void remove(final String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            remove(key, entry);
+        }
+    }
+
+    private void remove(final String key, final Entry entry) {
+        entries.remove(key);
+        size -= entry.weight;
+    }
+
+    @Override
+    public long getBudget() {
+        return budget;
+    }
+
+    @Override
+    public synchronized long getSize() {
+        removeReclaimedEntries();
+
+        return size;
+    }
+
+    @Override
+    public synchronized int getNumberOfEntries() {
+        removeReclaimedEntries();
+
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    @Override
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d of %d bytes, %d hits, %d misses, %d evictions",
+                size, budget, hits, misses, evictions);
+    }
+
+    /**
+     * Softly referenced annotations and their estimated size. The entry is enqueued when the annotations have been
+     * reclaimed by the garbage collector.
+     */
+    private static class Entry extends SoftReference<JavaProject> {
+        private final String key;
+        private final long weight;
+
+        Entry(final String key, final JavaProject project, final long weight,
+                final ReferenceQueue<JavaProject> queue) {
+            super(project, queue);
+
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Removes the annotations of deleted builds.
+     */
+    @Extension
+    public static class EvictingRunListener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onDeleted(final Run<?, ?> run) {
+            getInstance().remove(run.getExternalizableId());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package hudson.plugins.analysis.collector;
+
+/**
+ * Statistics of the {@link AnnotationCache} that are available via JMX.
+ */
+public interface AnnotationCacheMBean {
+    /**
+     * Returns the maximum estimated size of all cached annotations.
+     *
+     * @return the budget in bytes
+     */
+    long getBudget();
+
+    /**
+     * Returns the estimated size of all cached annotations.
+     *
+     * @return the size in bytes
+     */
+    long getSize();
+
+    /**
+     * Returns the number of builds whose annotations are cached.
+     *
+     * @return the number of entries
+     */
+    int getNumberOfEntries();
+
+    /**
+     * Returns the number of requests that have been served from the cache.
+     *
+     * @return the number of hits
+     */
+    long getHits();
+
+    /**
+     * Returns the number of requests that required to read the annotations from the build folder.
+     *
+     * @return the number of misses
+     */
+    long getMisses();
+
+    /**
+     * Returns the number of entries that have been evicted because the budget has been exceeded or because they
+     * have been reclaimed by the garbage collector.
+     *
+     * @return the number of evictions
+     */
+    long getEvictions();
+}
@@ -0,0 +1,894 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.thoughtworks.xstream.converters.reflection.ReflectionProvider;
+import com.thoughtworks.xstream.core.JVM;
+
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Encodes object graphs like the annotations of the analysis plug-ins into a compact binary form. The fields of
+ * objects are written reflectively, the same way XStream writes them to XML: all non-static and non-transient fields
+ * of the class hierarchy are written and <code>readResolve</code> is called after reading. Each value is prefixed by
+ * a tag, so values of unknown fields can be skipped. Like the reference marshaller of XStream, an object, collection,
+ * map or array that has already been written is written as a back-reference to its first occurrence, so shared and
+ * cyclic references (e.g., the links between duplicate code fragments) are restored as they were. JDK types other
+ * than collections and maps with a public default constructor are rejected, so that the caller can fall back to XML.
+ * Classes that customize their serialization (<code>writeObject</code>, <code>readObject</code>,
+ * <code>writeReplace</code> or {@link Externalizable}) and sorted collections with a comparator are rejected as
+ * well, since their state is not contained in their fields.
+ * </p>
+ * <p>
+ * Only implementations of {@link FileAnnotation} and the types of the fields of the classes that have been accepted
+ * before are written and read, see {@link TypeFilter}. So a corrupt or foreign file can't instantiate arbitrary
+ * classes of the class loader.
+ * </p>
+ * <p>
+ * Strings, class names and field names are stored in a dictionary: the first occurrence is written inline and
+ * receives the next index, later occurrences are written as index. Numbers are written as variable length integers.
+ * The dictionary of an {@link Encoder} or {@link Decoder} grows with the encoded values, so a new instance should be
+ * created for each block of values that should be decodable independently.
+ * </p>
+ */
+final class AnnotationCodec {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int INT = 2;
+    private static final int LONG = 3;
+    private static final int TRUE = 4;
+    private static final int FALSE = 5;
+    private static final int DOUBLE = 6;
+    private static final int FLOAT = 7;
+    private static final int SHORT = 8;
+    private static final int BYTE = 9;
+    private static final int CHAR = 10;
+    private static final int ENUM = 11;
+    private static final int OBJECT = 12;
+    private static final int COLLECTION = 13;
+    private static final int MAP = 14;
+    private static final int ARRAY = 15;
+    private static final int BYTES = 16;
+    // 17 has been used by values of Java serialization, these values are not supported anymore
+    private static final int REFERENCE = 18;
+
+    private static final ConcurrentMap<Class<?>, ClassInfo> CLASSES = new ConcurrentHashMap<Class<?>, ClassInfo>();
+    private static final ReflectionProvider REFLECTION_PROVIDER = JVM.newReflectionProvider();
+    /** Types of fields that don't restrict the classes of their values. */
+    private static final Set<Class<?>> BROAD_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            Object.class, Serializable.class, Cloneable.class, Comparable.class));
+
+    private AnnotationCodec() {
+        // prevents instantiation
+    }
+
+    /**
+     * Writes the specified value as variable length integer.
+     *
+     * @param output
+     *            the output to write to
+     * @param value
+     *            the value, negative values are written with 5 bytes
+     * @throws IOException
+     *             if the value could not be written
+     */
+    static void writeVarInt(final DataOutput output, final int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            output.writeByte(remaining & 0x7F | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte(remaining);
+    }
+
+    /**
+     * Reads a variable length integer.
+     *
+     * @param input
+     *            the input to read from
+     * @return the value
+     * @throws IOException
+     *             if the value could not be read
+     */
+    static int readVarInt(final DataInput input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int current = input.readByte();
+            value |= (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length integer");
+    }
+
+    private static void writeVarLong(final DataOutput output, final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            output.writeByte((int)(remaining & 0x7F | 0x80));
+            remaining >>>= 7;
+        }
+        output.writeByte((int)remaining);
+    }
+
+    private static long readVarLong(final DataInput input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int current = input.readByte();
+            value |= (long)(current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length integer");
+    }
+
+    private static ClassInfo getClassInfo(final Class<?> type) {
+        ClassInfo info = CLASSES.get(type);
+        if (info == null) {
+            info = new ClassInfo(type);
+            CLASSES.put(type, info);
+        }
+        return info;
+    }
+
+    private static boolean isJdkType(final Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.");
+    }
+
+    private static boolean hasComparator(final Object collection) {
+        if (collection instanceof SortedSet) {
+            return ((SortedSet<?>)collection).comparator() != null;
+        }
+        if (collection instanceof SortedMap) {
+            return ((SortedMap<?, ?>)collection).comparator() != null;
+        }
+        if (collection instanceof PriorityQueue) {
+            return ((PriorityQueue<?>)collection).comparator() != null;
+        }
+        return false;
+    }
+
+    private static boolean hasDefaultConstructor(final Class<?> type) {
+        try {
+            return Modifier.isPublic(type.getConstructor().getModifiers());
+        }
+        catch (NoSuchMethodException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes values to a {@link DataOutput}.
+     */
+    static final class Encoder {
+        private final DataOutput output;
+        private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+        private final Map<Object, Integer> references = new IdentityHashMap<Object, Integer>();
+        private final Map<ClassInfo, ClassInfo> definedClasses = new IdentityHashMap<ClassInfo, ClassInfo>();
+        private final TypeFilter filter = new TypeFilter();
+
+        /**
+         * Creates a new instance of {@link Encoder}.
+         *
+         * @param output
+         *            the output to write to
+         */
+        Encoder(final DataOutput output) {
+            this.output = output;
+        }
+
+        /**
+         * Writes the specified value.
+         *
+         * @param value
+         *            the value to write
+         * @throws IOException
+         *             if the value could not be written, e.g. because it contains a type that is not supported
+         */
+        void write(final Object value) throws IOException {
+            if (value == null) {
+                output.writeByte(NULL);
+            }
+            else if (value instanceof String) {
+                output.writeByte(STRING);
+                writeString((String)value);
+            }
+            else if (value instanceof Integer) {
+                output.writeByte(INT);
+                writeVarInt(output, zigZag((Integer)value));
+            }
+            else if (value instanceof Long) {
+                output.writeByte(LONG);
+                long number = (Long)value;
+                writeVarLong(output, number << 1 ^ number >> 63);
+            }
+            else if (value instanceof Boolean) {
+                output.writeByte((Boolean)value ? TRUE : FALSE);
+            }
+            else if (value instanceof Double) {
+                output.writeByte(DOUBLE);
+                output.writeDouble((Double)value);
+            }
+            else if (value instanceof Float) {
+                output.writeByte(FLOAT);
+                output.writeFloat((Float)value);
+            }
+            else if (value instanceof Short) {
+                output.writeByte(SHORT);
+                writeVarInt(output, zigZag((Short)value));
+            }
+            else if (value instanceof Byte) {
+                output.writeByte(BYTE);
+                output.writeByte((Byte)value);
+            }
+            else if (value instanceof Character) {
+                output.writeByte(CHAR);
+                writeVarInt(output, (Character)value);
+            }
+            else if (value instanceof Enum) {
+                Class<?> type = ((Enum<?>)value).getDeclaringClass();
+                if (!filter.accept(type)) {
+                    throw new NotSerializableException("Unsupported type " + type.getName());
+                }
+                output.writeByte(ENUM);
+                writeString(((Enum<?>)value).getDeclaringClass().getName());
+                writeString(((Enum<?>)value).name());
+            }
+            else if (value instanceof byte[]) {
+                byte[] bytes = (byte[])value;
+                output.writeByte(BYTES);
+                writeVarInt(output, bytes.length);
+                output.write(bytes);
+            }
+            else {
+                writeReference(value);
+            }
+        }
+
+        private void writeReference(final Object value) throws IOException {
+            Integer reference = references.get(value);
+            if (reference != null) {
+                output.writeByte(REFERENCE);
+                writeVarInt(output, reference);
+                return;
+            }
+
+            Class<?> type = value.getClass();
+            if (type.isArray()) {
+                references.put(value, references.size());
+                writeArray(value);
+            }
+            else if (isJdkType(type)) {
+                if (!hasDefaultConstructor(type) || !(value instanceof Collection || value instanceof Map)) {
+                    throw new NotSerializableException("Unsupported type " + type.getName());
+                }
+                if (hasComparator(value)) {
+                    throw new NotSerializableException("Unsupported comparator of " + type.getName());
+                }
+                references.put(value, references.size());
+                if (value instanceof Collection) {
+                    writeCollection((Collection<?>)value);
+                }
+                else {
+                    writeMap((Map<?, ?>)value);
+                }
+            }
+            else {
+                references.put(value, references.size());
+                writeObject(value);
+            }
+        }
+
+        private void writeArray(final Object array) throws IOException {
+            output.writeByte(ARRAY);
+            writeString(array.getClass().getComponentType().getName());
+            int length = Array.getLength(array);
+            writeVarInt(output, length);
+            for (int i = 0; i < length; i++) {
+                write(Array.get(array, i));
+            }
+        }
+
+        private void writeCollection(final Collection<?> collection) throws IOException {
+            output.writeByte(COLLECTION);
+            writeString(collection.getClass().getName());
+            writeVarInt(output, collection.size());
+            for (Object element : collection) {
+                write(element);
+            }
+        }
+
+        private void writeMap(final Map<?, ?> map) throws IOException {
+            output.writeByte(MAP);
+            writeString(map.getClass().getName());
+            writeVarInt(output, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(entry.getKey());
+                write(entry.getValue());
+            }
+        }
+
+        private void writeObject(final Object value) throws IOException {
+            ClassInfo info = getClassInfo(value.getClass());
+            if (info.getCustomSerialization() != null) {
+                throw new NotSerializableException("Unsupported " + info.getCustomSerialization() + " of "
+                        + info.getName());
+            }
+            if (!filter.accept(info.getType())) {
+                throw new NotSerializableException("Unsupported type " + info.getName());
+            }
+            output.writeByte(OBJECT);
+            writeString(info.getName());
+            boolean isNewClass = definedClasses.put(info, info) == null;
+            output.writeBoolean(isNewClass);
+            if (isNewClass) {
+                writeVarInt(output, info.getFields().length);
+                for (String key : info.getKeys()) {
+                    writeString(key);
+                }
+            }
+            for (Field field : info.getFields()) {
+                try {
+                    write(field.get(value));
+                }
+                catch (IllegalAccessException exception) {
+                    throw new NotSerializableException(field.toString());
+                }
+            }
+        }
+
+        private void writeString(final String value) throws IOException {
+            Integer index = dictionary.get(value);
+            if (index == null) {
+                dictionary.put(value, dictionary.size());
+                byte[] bytes = value.getBytes(UTF_8);
+                writeVarInt(output, 0);
+                writeVarInt(output, bytes.length);
+                output.write(bytes);
+            }
+            else {
+                writeVarInt(output, index + 1);
+            }
+        }
+
+        private static int zigZag(final int value) {
+            return value << 1 ^ value >> 31;
+        }
+    }
+
+    /**
+     * Reads values from a {@link DataInput}.
+     */
+    static final class Decoder {
+        private final DataInput input;
+        private final ClassLoader classLoader;
+        private final StringPool pool;
+        private final List<String> dictionary = new ArrayList<String>();
+        private final Map<String, String[]> keysByClass = new HashMap<String, String[]>();
+        private final List<Object> references = new ArrayList<Object>();
+        private final TypeFilter filter = new TypeFilter();
+
+        /**
+         * Creates a new instance of {@link Decoder}.
+         *
+         * @param input
+         *            the input to read from
+         * @param classLoader
+         *            the class loader to resolve the classes of the values
+         */
+        Decoder(final DataInput input, final ClassLoader classLoader) {
+            this(input, classLoader, new StringPool());
+        }
+
+        /**
+         * Creates a new instance of {@link Decoder} that shares its strings with other decoders.
+         *
+         * @param input
+         *            the input to read from
+         * @param classLoader
+         *            the class loader to resolve the classes of the values
+         * @param pool
+         *            the pool of the strings that are read
+         */
+        Decoder(final DataInput input, final ClassLoader classLoader, final StringPool pool) {
+            this.input = input;
+            this.classLoader = classLoader;
+            this.pool = pool;
+        }
+
+        /**
+         * Reads the next value.
+         *
+         * @return the value
+         * @throws IOException
+         *             if the value could not be read, e.g. because it contains a type that is not supported
+         */
+        Object read() throws IOException {
+            int tag = input.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readString();
+                case INT:
+                    return unZigZag(readVarInt(input));
+                case LONG:
+                    long number = readVarLong(input);
+                    return number >>> 1 ^ -(number & 1);
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case DOUBLE:
+                    return input.readDouble();
+                case FLOAT:
+                    return input.readFloat();
+                case SHORT:
+                    return (short)unZigZag(readVarInt(input));
+                case BYTE:
+                    return input.readByte();
+                case CHAR:
+                    return (char)readVarInt(input);
+                case ENUM:
+                    return readEnum();
+                case OBJECT:
+                    return readObject();
+                case COLLECTION:
+                    return readCollection();
+                case MAP:
+                    return readMap();
+                case ARRAY:
+                    return readArray();
+                case BYTES:
+                    return readBytes();
+                case REFERENCE:
+                    return readReference();
+                default:
+                    throw new StreamCorruptedException("Unknown tag " + tag);
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object readEnum() throws IOException {
+            Class type = loadClass(readString());
+            if (!type.isEnum() || !filter.accept(type)) {
+                throw new InvalidClassException(type.getName(), "Unsupported type");
+            }
+            return Enum.valueOf(type, readString());
+        }
+
+        private Object readObject() throws IOException {
+            String name = readString();
+            String[] keys;
+            if (input.readBoolean()) {
+                keys = new String[readVarInt(input)];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = readString();
+                }
+                keysByClass.put(name, keys);
+            }
+            else {
+                keys = keysByClass.get(name);
+                if (keys == null) {
+                    throw new StreamCorruptedException("Undefined class " + name);
+                }
+            }
+
+            Class<?> type = loadClass(name);
+            if (type.isArray() || type.isPrimitive() || isJdkType(type) || !filter.accept(type)) {
+                throw new InvalidClassException(name, "Unsupported type");
+            }
+            ClassInfo info = getClassInfo(type);
+            if (info.getCustomSerialization() != null) {
+                throw new InvalidClassException(name, "Unsupported " + info.getCustomSerialization());
+            }
+            Object object = REFLECTION_PROVIDER.newInstance(info.getType());
+            int reference = register(object);
+            for (String key : keys) {
+                Object value = read();
+                Field field = info.getField(key);
+                if (field != null) {
+                    try {
+                        field.set(object, value);
+                    }
+                    catch (IllegalArgumentException exception) {
+                        // ignore values of fields that changed their type
+                    }
+                    catch (IllegalAccessException exception) {
+                        throw new StreamCorruptedException("Can't set " + field);
+                    }
+                }
+            }
+            Object resolved = info.resolve(object);
+            references.set(reference, resolved);
+            return resolved;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object readCollection() throws IOException {
+            Collection<Object> collection = (Collection<Object>)newInstance(readString(), Collection.class);
+            register(collection);
+            int size = readVarInt(input);
+            for (int i = 0; i < size; i++) {
+                collection.add(read());
+            }
+            return collection;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object readMap() throws IOException {
+            Map<Object, Object> map = (Map<Object, Object>)newInstance(readString(), Map.class);
+            register(map);
+            int size = readVarInt(input);
+            for (int i = 0; i < size; i++) {
+                Object key = read();
+                map.put(key, read());
+            }
+            return map;
+        }
+
+        private Object readArray() throws IOException {
+            Class<?> componentType = loadClass(readString());
+            int length = readVarInt(input);
+            Object array = Array.newInstance(componentType, length);
+            register(array);
+            for (int i = 0; i < length; i++) {
+                Array.set(array, i, read());
+            }
+            return array;
+        }
+
+        private byte[] readBytes() throws IOException {
+            byte[] bytes = new byte[readVarInt(input)];
+            input.readFully(bytes);
+            return bytes;
+        }
+
+        private int register(final Object value) {
+            references.add(value);
+            return references.size() - 1;
+        }
+
+        private Object readReference() throws IOException {
+            int index = readVarInt(input);
+            if (index < 0 || index >= references.size()) {
+                throw new StreamCorruptedException("Unknown reference " + index);
+            }
+            return references.get(index);
+        }
+
+        private Object newInstance(final String name, final Class<?> expectedType) throws IOException {
+            Class<?> type = loadClass(name);
+            if (!isJdkType(type) || !expectedType.isAssignableFrom(type) || !hasDefaultConstructor(type)) {
+                throw new InvalidClassException(name, "Unsupported type");
+            }
+            try {
+                return type.newInstance();
+            }
+            catch (InstantiationException exception) {
+                throw new StreamCorruptedException("Can't create " + name);
+            }
+            catch (IllegalAccessException exception) {
+                throw new StreamCorruptedException("Can't create " + name);
+            }
+        }
+
+        private Class<?> loadClass(final String name) throws IOException {
+            Class<?> primitive = PrimitiveTypes.get(name);
+            if (primitive != null) {
+                return primitive;
+            }
+            try {
+                return Class.forName(name, false, classLoader);
+            }
+            catch (ClassNotFoundException exception) {
+                throw new StreamCorruptedException("Unknown class " + name);
+            }
+        }
+
+        private String readString() throws IOException {
+            int index = readVarInt(input);
+            if (index == 0) {
+                return readNewString();
+            }
+            return readString(index - 1);
+        }
+
+        private String readString(final int index) throws IOException {
+            if (index < 0 || index >= dictionary.size()) {
+                throw new StreamCorruptedException("Unknown string " + index);
+            }
+            return dictionary.get(index);
+        }
+
+        private String readNewString() throws IOException {
+            String value = pool.intern(new String(readBytes(), UTF_8));
+            dictionary.add(value);
+            return value;
+        }
+
+        private static int unZigZag(final int value) {
+            return value >>> 1 ^ -(value & 1);
+        }
+    }
+
+    /**
+     * The names of the primitive types, {@link Class#forName(String)} does not resolve these names.
+     */
+    private static final class PrimitiveTypes {
+        private static final Map<String, Class<?>> TYPES = new HashMap<String, Class<?>>();
+
+        static {
+            for (Class<?> type : new Class<?>[] {boolean.class, byte.class, char.class, short.class, int.class,
+                    long.class, float.class, double.class}) {
+                TYPES.put(type.getName(), type);
+            }
+        }
+
+        static Class<?> get(final String name) {
+            return TYPES.get(name);
+        }
+    }
+
+    /**
+     * Decides which classes may be written and read. Initially only implementations of {@link FileAnnotation} are
+     * accepted. When a class is accepted, then the declared types of its persistent fields are accepted as well,
+     * including the element types of generic collections, maps and arrays. Types that every class implements, like
+     * {@link Object} or {@link Serializable}, are ignored. An {@link Encoder} and a {@link Decoder} of the same values
+     * accept the classes in the same order, so each class that is written can be read.
+     */
+    private static final class TypeFilter {
+        private final Set<Class<?>> permitted = new LinkedHashSet<Class<?>>();
+        private final Set<Class<?>> accepted = new HashSet<Class<?>>();
+
+        TypeFilter() {
+            permitted.add(FileAnnotation.class);
+        }
+
+        /**
+         * Returns whether the specified class may be written and read.
+         *
+         * @param type
+         *            the class of an object or enumeration
+         * @return <code>true</code> if the class is accepted, <code>false</code> otherwise
+         */
+        boolean accept(final Class<?> type) {
+            if (accepted.contains(type)) {
+                return true;
+            }
+            for (Class<?> candidate : permitted) {
+                if (candidate.isAssignableFrom(type)) {
+                    accepted.add(type);
+                    if (!type.isEnum()) {
+                        permitted.addAll(getClassInfo(type).getFieldTypes());
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The persistent fields of a class. The fields of a super class precede the fields of its subclasses, so objects
+     * that are referenced back while they are read already have the fields that are used by <code>equals</code> and
+     * <code>hashCode</code>. Fields that are hidden by fields of a subclass are prefixed with the name of the
+     * declaring class.
+     */
+    private static final class ClassInfo {
+        private final Class<?> type;
+        private final Field[] fields;
+        private final String[] keys;
+        private final Map<String, Field> fieldsByKey = new LinkedHashMap<String, Field>();
+        private final Set<Class<?>> fieldTypes = new LinkedHashSet<Class<?>>();
+        private final Method readResolve;
+        private final String customSerialization;
+
+        ClassInfo(final Class<?> type) {
+            this.type = type;
+
+            List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+            List<String> names = new ArrayList<String>();
+            for (Class<?> current = type; current != null && current != Object.class;
+                    current = current.getSuperclass()) {
+                hierarchy.add(current);
+            }
+            for (Class<?> current : hierarchy) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (isPersistent(field)) {
+                        names.add(field.getName());
+                    }
+                }
+            }
+            Collections.reverse(hierarchy);
+            for (Class<?> current : hierarchy) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (isPersistent(field)) {
+                        field.setAccessible(true);
+                        String key = field.getName();
+                        names.remove(key);
+                        if (names.contains(key)) {
+                            key = current.getName() + '.' + key;
+                        }
+                        fieldsByKey.put(key, field);
+                    }
+                }
+            }
+            fields = fieldsByKey.values().toArray(new Field[fieldsByKey.size()]);
+            keys = fieldsByKey.keySet().toArray(new String[fieldsByKey.size()]);
+            for (Field field : fields) {
+                collectTypes(field.getGenericType());
+            }
+            readResolve = findReadResolve(type);
+            customSerialization = findCustomSerialization(type);
+        }
+
+        private void collectTypes(final Type type) {
+            if (type instanceof Class) {
+                Class<?> raw = (Class<?>)type;
+                if (raw.isArray()) {
+                    collectTypes(raw.getComponentType());
+                }
+                else if (!raw.isPrimitive() && !BROAD_TYPES.contains(raw)) {
+                    fieldTypes.add(raw);
+                }
+            }
+            else if (type instanceof ParameterizedType) {
+                collectTypes(((ParameterizedType)type).getRawType());
+                for (Type argument : ((ParameterizedType)type).getActualTypeArguments()) {
+                    collectTypes(argument);
+                }
+            }
+            else if (type instanceof GenericArrayType) {
+                collectTypes(((GenericArrayType)type).getGenericComponentType());
+            }
+            else if (type instanceof WildcardType) {
+                for (Type bound : ((WildcardType)type).getUpperBounds()) {
+                    collectTypes(bound);
+                }
+            }
+            else if (type instanceof TypeVariable) {
+                for (Type bound : ((TypeVariable<?>)type).getBounds()) {
+                    collectTypes(bound);
+                }
+            }
+        }
+
+        private static String findCustomSerialization(final Class<?> type) {
+            if (Externalizable.class.isAssignableFrom(type)) {
+                return "Externalizable";
+            }
+            for (Class<?> current = type; current != null && current != Object.class;
+                    current = current.getSuperclass()) {
+                if (declares(current, "writeObject", ObjectOutputStream.class)) {
+                    return "writeObject";
+                }
+                if (declares(current, "readObject", ObjectInputStream.class)) {
+                    return "readObject";
+                }
+                if (declares(current, "writeReplace")) {
+                    return "writeReplace";
+                }
+            }
+            return null;
+        }
+
+        private static boolean declares(final Class<?> type, final String name, final Class<?>... parameterTypes) {
+            try {
+                type.getDeclaredMethod(name, parameterTypes);
+                return true;
+            }
+            catch (NoSuchMethodException exception) {
+                return false;
+            }
+        }
+
+        private static boolean isPersistent(final Field field) {
+            int modifiers = field.getModifiers();
+            return !Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers);
+        }
+
+        private static Method findReadResolve(final Class<?> type) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                try {
+                    Method method = current.getDeclaredMethod("readResolve");
+                    method.setAccessible(true);
+                    return method;
+                }
+                catch (NoSuchMethodException exception) {
+                    // try the super class
+                }
+            }
+            return null;
+        }
+
+        Class<?> getType() {
+            return type;
+        }
+
+        String getName() {
+            return type.getName();
+        }
+
+        Field[] getFields() {
+            return fields;
+        }
+
+        String[] getKeys() {
+            return keys;
+        }
+
+        Field getField(final String key) {
+            return fieldsByKey.get(key);
+        }
+
+        Set<Class<?>> getFieldTypes() {
+            return fieldTypes;
+        }
+
+        /**
+         * Returns how the class customizes its serialization.
+         *
+         * @return the customization or <code>null</code> if the state of the objects is contained in their fields
+         */
+        String getCustomSerialization() {
+            return customSerialization;
+        }
+
+        Object resolve(final Object object) throws IOException {
+            if (readResolve == null) {
+                return object;
+            }
+            try {
+                return readResolve.invoke(object);
+            }
+            catch (IllegalAccessException exception) {
+                throw new StreamCorruptedException("Can't resolve " + type.getName());
+            }
+            catch (InvocationTargetException exception) {
+                throw new StreamCorruptedException("Can't resolve " + type.getName() + ": " + exception.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import hudson.model.Run;
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ParserResult;
+import hudson.plugins.analysis.core.ResultAction;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+/**
+ * Collects the annotations of the participating analysis plug-ins of a build. The results of the individual plug-ins
+ * are loaded either sequentially or concurrently on a bounded thread pool. In both modes the annotations are merged
+ * into the {@link ParserResult} in the order of the participating plug-ins. The annotations are merged as they are:
+ * they belong to the results of the other plug-ins, so their strings are not deduplicated. Equal strings are shared
+ * only after the annotations have been read back from the annotation file of the collector, see {@link StringPool}.
+ */
+final class AnnotationCollector {
+    /** Maximum number of plug-in results that are loaded concurrently. */
+    private static final int POOL_SIZE = Math.max(1, Math.min(7, Runtime.getRuntime().availableProcessors()));
+
+    private static ExecutorService executor;
+
+    private final Run<?, ?> build;
+    private final List<Class<? extends ResultAction<? extends BuildResult>>> participatingPlugins;
+
+    /**
+     * Creates a new instance of {@link AnnotationCollector}.
+     *
+     * @param build
+     *            the build to get the plug-in results from
+     * @param participatingPlugins
+     *            the plug-in actions to read the results from
+     */
+    AnnotationCollector(final Run<?, ?> build,
+            final List<Class<? extends ResultAction<? extends BuildResult>>> participatingPlugins) {
+        this.build = build;
+        this.participatingPlugins = participatingPlugins;
+    }
+
+    /**
+     * Adds the annotations of all participating plug-ins to the specified result.
+     *
+     * @param overallResult
+     *            the result to add the annotations to
+     * @param inParallel
+     *            determines whether the plug-in results should be loaded concurrently
+     * @throws InterruptedException
+     *             if the user canceled the build while waiting for the results
+     * @throws IOException
+     *             if a plug-in result could not be read
+     */
+    public void collect(final ParserResult overallResult, final boolean inParallel)
+            throws InterruptedException, IOException {
+        List<Collection<FileAnnotation>> annotationsPerPlugin;
+        if (inParallel) {
+            annotationsPerPlugin = loadInParallel();
+        }
+        else {
+            annotationsPerPlugin = loadSequentially();
+        }
+        for (Collection<FileAnnotation> annotations : annotationsPerPlugin) {
+            overallResult.addAnnotations(annotations);
+        }
+    }
+
+    private List<Collection<FileAnnotation>> loadSequentially() {
+        List<Collection<FileAnnotation>> annotationsPerPlugin = new ArrayList<Collection<FileAnnotation>>();
+        for (Class<? extends ResultAction<? extends BuildResult>> result : participatingPlugins) {
+            annotationsPerPlugin.add(load(result));
+        }
+        return annotationsPerPlugin;
+    }
+
+    private List<Collection<FileAnnotation>> loadInParallel() throws InterruptedException, IOException {
+        List<Future<Collection<FileAnnotation>>> futures = new ArrayList<Future<Collection<FileAnnotation>>>();
+        try {
+            for (final Class<? extends ResultAction<? extends BuildResult>> result : participatingPlugins) {
+                futures.add(getExecutor().submit(new Callable<Collection<FileAnnotation>>() {
+                    @Override
+                    public Collection<FileAnnotation> call() {
+                        return load(result);
+                    }
+                }));
+            }
+
+            List<Collection<FileAnnotation>> annotationsPerPlugin = new ArrayList<Collection<FileAnnotation>>();
+            for (Future<Collection<FileAnnotation>> future : futures) {
+                annotationsPerPlugin.add(future.get());
+            }
+            return annotationsPerPlugin;
+        }
+        catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
+        }
+        finally {
+            for (Future<Collection<FileAnnotation>> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Collection<FileAnnotation> load(final Class<? extends ResultAction<? extends BuildResult>> type) {
+        ResultAction<? extends BuildResult> action = build.getAction(type);
+        if (action != null) {
+            BuildResult actualResult = action.getResult();
+            return actualResult.getAnnotations();
+        }
+        return Collections.emptyList();
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(POOL_SIZE,
+                    new NamingThreadFactory(new DaemonThreadFactory(), "AnalysisCollector.loader"));
+        }
+        return executor;
+    }
+}
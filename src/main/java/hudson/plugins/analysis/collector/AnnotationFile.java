@@ -0,0 +1,406 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Stores the annotations of a build in a compact binary file. Compared to the XML file written by XStream, the file
+ * is smaller and can be read an order of magnitude faster. The annotations are written and read as a stream, so the
+ * file is never held in memory as a whole.
+ * <p>
+ * Layout: magic number, version, followed by the blocks of annotations, the block index and the position of the block
+ * index. Each block contains up to {@link #BLOCK_SIZE} annotations encoded with their own {@link AnnotationCodec}
+ * dictionary, so each block can be decoded independently. The block index contains the number of blocks and for each
+ * block its position and number of annotations.
+ * </p>
+ * <p>
+ * Since version 2 each block is compressed with deflate: the block starts with the number of annotations and the
+ * length of the compressed data. Only the compressed data of the current block is held in memory while reading, the
+ * annotations are decoded while the data is inflated. Files of version 1 contain uncompressed blocks and are still
+ * read.
+ * </p>
+ */
+final class AnnotationFile {
+    /** Default name of an annotation file, the {@link AnnotationShards} name their files by the shard. */
+    static final String FILE_NAME = "analysis.bin";
+    /** Maximum number of annotations of a block. */
+    static final int BLOCK_SIZE = 1000;
+
+    private static final int MAGIC = 0x41534142; // ASAB
+    private static final int VERSION = 2;
+    private static final int UNCOMPRESSED_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int INDEX_ENTRY_SIZE = 12;
+
+    private final File file;
+
+    /**
+     * Creates a new instance of {@link AnnotationFile}.
+     *
+     * @param file
+     *            the file of the annotations
+     */
+    AnnotationFile(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns whether the annotations have been written to this file.
+     *
+     * @return <code>true</code> if the file exists, <code>false</code> otherwise
+     */
+    boolean exists() {
+        return file.isFile();
+    }
+
+    /**
+     * Writes the specified annotations. The annotations are written to a temporary file that replaces this file
+     * when all annotations have been written. If the annotations could not be written, then the temporary file is
+     * deleted and this file is not changed.
+     *
+     * @param annotations
+     *            the annotations to write
+     * @throws IOException
+     *             if the annotations could not be written
+     */
+    void write(final Collection<? extends FileAnnotation> annotations) throws IOException {
+        File temporary = new File(file.getParentFile(), file.getName() + ".tmp");
+        CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+        DataOutputStream output = new DataOutputStream(counter);
+        boolean isWritten = false;
+        CompressedBlock compressed = null;
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+
+            List<long[]> index = new ArrayList<long[]>();
+            AnnotationCodec.Encoder encoder = null;
+            int remaining = annotations.size();
+            int remainingInBlock = 0;
+            for (FileAnnotation annotation : annotations) {
+                if (remainingInBlock == 0) {
+                    remainingInBlock = Math.min(BLOCK_SIZE, remaining);
+                    index.add(new long[] {counter.getByteCount(), remainingInBlock});
+                    AnnotationCodec.writeVarInt(output, remainingInBlock);
+                    compressed = new CompressedBlock();
+                    encoder = new AnnotationCodec.Encoder(compressed.getOutput());
+                }
+                encoder.write(annotation);
+                remainingInBlock--;
+                remaining--;
+                if (remainingInBlock == 0) {
+                    compressed.writeTo(output);
+                }
+            }
+
+            long indexPosition = counter.getByteCount();
+            output.writeInt(index.size());
+            for (long[] block : index) {
+                output.writeLong(block[0]);
+                output.writeInt((int)block[1]);
+            }
+            output.writeLong(indexPosition);
+            output.close();
+            isWritten = true;
+        }
+        finally {
+            if (compressed != null) {
+                compressed.end();
+            }
+            IOUtils.closeQuietly(output);
+            if (!isWritten) {
+                FileUtils.deleteQuietly(temporary);
+            }
+        }
+        if (!temporary.renameTo(file)) {
+            if (!file.delete() || !temporary.renameTo(file)) {
+                throw new IOException("Can't rename " + temporary + " to " + file);
+            }
+        }
+    }
+
+    /**
+     * Reads all annotations. Equal strings of the annotations are read as a single instance.
+     *
+     * @param classLoader
+     *            the class loader to resolve the classes of the annotations
+     * @return the annotations
+     * @throws IOException
+     *             if the annotations could not be read
+     */
+    List<FileAnnotation> read(final ClassLoader classLoader) throws IOException {
+        BlockIndex index = readIndex();
+
+        List<FileAnnotation> annotations = new ArrayList<FileAnnotation>(index.getNumberOfAnnotations());
+        StringPool pool = new StringPool();
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            IOUtils.skipFully(input, HEADER_SIZE);
+            for (int block = 0; block < index.getNumberOfBlocks(); block++) {
+                readBlock(input, index.getVersion(), classLoader, pool, annotations);
+            }
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+        return annotations;
+    }
+
+    /**
+     * Returns the number of blocks of this file.
+     *
+     * @return the number of blocks
+     * @throws IOException
+     *             if the block index could not be read
+     */
+    int getNumberOfBlocks() throws IOException {
+        return readIndex().getNumberOfBlocks();
+    }
+
+    /**
+     * Reads the annotations of the specified block. The block is mapped into memory, the other blocks are not read.
+     *
+     * @param block
+     *            the index of the block
+     * @param classLoader
+     *            the class loader to resolve the classes of the annotations
+     * @return the annotations of the block
+     * @throws IOException
+     *             if the annotations could not be read
+     */
+    List<FileAnnotation> readBlock(final int block, final ClassLoader classLoader) throws IOException {
+        BlockIndex index = readIndex();
+        if (block < 0 || block >= index.getNumberOfBlocks()) {
+            throw new IndexOutOfBoundsException("No block " + block + " in " + file);
+        }
+        long start = index.getStart(block);
+        long end = index.getEnd(block);
+
+        List<FileAnnotation> annotations = new ArrayList<FileAnnotation>(index.getSize(block));
+        RandomAccessFile access = new RandomAccessFile(file, "r");
+        try {
+            MappedByteBuffer buffer = access.getChannel().map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            readBlock(new DataInputStream(new ByteBufferInputStream(buffer)), index.getVersion(), classLoader,
+                    new StringPool(), annotations);
+        }
+        finally {
+            IOUtils.closeQuietly(access);
+        }
+        return annotations;
+    }
+
+    private void readBlock(final DataInput input, final int version, final ClassLoader classLoader,
+            final StringPool pool, final List<FileAnnotation> annotations) throws IOException {
+        int size = AnnotationCodec.readVarInt(input);
+        if (version == UNCOMPRESSED_VERSION) {
+            decode(input, size, classLoader, pool, annotations);
+            return;
+        }
+
+        byte[] compressed = new byte[AnnotationCodec.readVarInt(input)];
+        input.readFully(compressed);
+        Inflater inflater = new Inflater();
+        try {
+            decode(new DataInputStream(new BufferedInputStream(
+                    new InflaterInputStream(new ByteArrayInputStream(compressed), inflater))),
+                    size, classLoader, pool, annotations);
+        }
+        finally {
+            inflater.end();
+        }
+    }
+
+    private void decode(final DataInput input, final int size, final ClassLoader classLoader,
+            final StringPool pool, final List<FileAnnotation> annotations) throws IOException {
+        AnnotationCodec.Decoder decoder = new AnnotationCodec.Decoder(input, classLoader, pool);
+        for (int i = 0; i < size; i++) {
+            Object value = decoder.read();
+            if (!(value instanceof FileAnnotation)) {
+                throw new StreamCorruptedException("No annotation in " + file + ": " + value);
+            }
+            annotations.add((FileAnnotation)value);
+        }
+    }
+
+    /**
+     * Reads the block index. Verifies the header so that truncated or foreign files are rejected before any
+     * annotation is decoded.
+     *
+     * @return the block index
+     * @throws IOException
+     *             if the file is not a complete annotation file
+     */
+    private BlockIndex readIndex() throws IOException {
+        RandomAccessFile access = new RandomAccessFile(file, "r");
+        try {
+            long length = access.length();
+            if (length < HEADER_SIZE + 12 || access.readInt() != MAGIC) {
+                throw new StreamCorruptedException("Unknown format of " + file);
+            }
+            int version = access.readInt();
+            if (version != VERSION && version != UNCOMPRESSED_VERSION) {
+                throw new StreamCorruptedException("Unknown version " + version + " of " + file);
+            }
+            access.seek(length - 8);
+            long position = access.readLong();
+            if (position < HEADER_SIZE || position > length - 12) {
+                throw new StreamCorruptedException("Invalid block index in " + file);
+            }
+            access.seek(position);
+            int blocks = access.readInt();
+            if (blocks < 0 || position + 4 + (long)blocks * INDEX_ENTRY_SIZE != length - 8) {
+                throw new StreamCorruptedException("Invalid block index in " + file);
+            }
+            long[] starts = new long[blocks + 1];
+            int[] sizes = new int[blocks];
+            for (int block = 0; block < blocks; block++) {
+                starts[block] = access.readLong();
+                sizes[block] = access.readInt();
+            }
+            starts[blocks] = position;
+            return new BlockIndex(version, starts, sizes);
+        }
+        catch (EOFException exception) {
+            throw new StreamCorruptedException("Truncated file " + file);
+        }
+        finally {
+            IOUtils.closeQuietly(access);
+        }
+    }
+
+    /**
+     * The block index of an annotation file.
+     */
+    private static class BlockIndex {
+        private final int version;
+        private final long[] starts;
+        private final int[] sizes;
+
+        BlockIndex(final int version, final long[] starts, final int[] sizes) {
+            this.version = version;
+            this.starts = starts;
+            this.sizes = sizes;
+        }
+
+        int getVersion() {
+            return version;
+        }
+
+        int getNumberOfBlocks() {
+            return sizes.length;
+        }
+
+        long getStart(final int block) {
+            return starts[block];
+        }
+
+        long getEnd(final int block) {
+            return starts[block + 1];
+        }
+
+        int getSize(final int block) {
+            return sizes[block];
+        }
+
+        int getNumberOfAnnotations() {
+            int total = 0;
+            for (int size : sizes) {
+                total += size;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Collects the deflated data of a block, so that the length of the data can be written before the data.
+     */
+    private static class CompressedBlock {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Deflater deflater = new Deflater();
+        private final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(bytes, deflater)));
+
+        DataOutputStream getOutput() {
+            return output;
+        }
+
+        void writeTo(final DataOutputStream target) throws IOException {
+            try {
+                output.close();
+            }
+            finally {
+                end();
+            }
+            AnnotationCodec.writeVarInt(target, bytes.size());
+            bytes.writeTo(target);
+        }
+
+        /**
+         * Releases the native resources of the deflater. Called when the block has been written or when the block
+         * could not be encoded.
+         */
+        void end() {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Reads the remaining bytes of a {@link ByteBuffer}.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            super();
+
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (buffer.hasRemaining()) {
+                return buffer.get() & 0xFF;
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+
+import hudson.model.Run;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Stores the annotations of a build sharded by their origin. The annotations of each origin are written to their own
+ * {@link AnnotationFile}, so views that show the annotations of a single plug-in or of a single file read only the
+ * shards they need. The shards are described by a small manifest that is written after all shards.
+ * <p>
+ * Manifest layout: magic number, version, number of shards, followed for each shard by its origin, its number of
+ * annotations and the sorted hash codes of the file names of its annotations. The shard with index <code>i</code>
+ * is stored in the file <code>analysis-i.bin</code>.
+ * </p>
+ */
+final class AnnotationShards {
+    /** Name of the manifest file in the build folder. */
+    static final String FILE_NAME = "analysis-shards.bin";
+
+    private static final int MAGIC = 0x41534153; // ASAS
+    private static final int VERSION = 1;
+
+    private final File folder;
+
+    /**
+     * Returns the shards of the specified build.
+     *
+     * @param build
+     *            the build
+     * @return the shards
+     */
+    static AnnotationShards of(final Run<?, ?> build) {
+        return new AnnotationShards(build.getRootDir());
+    }
+
+    /**
+     * Creates a new instance of {@link AnnotationShards}.
+     *
+     * @param folder
+     *            the folder of the manifest and the shards
+     */
+    AnnotationShards(final File folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Returns whether the annotations have been written to shards.
+     *
+     * @return <code>true</code> if the manifest exists, <code>false</code> otherwise
+     */
+    boolean exists() {
+        return getManifestFile().isFile();
+    }
+
+    /**
+     * Writes the specified annotations, one shard per origin. The manifest is replaced when all shards have been
+     * written; shards of a previous write that are not referenced by the new manifest are deleted. Since the
+     * shards of a previous manifest are overwritten, that manifest is deleted before the first shard is written. If
+     * the annotations could not be written, then all shards are deleted, so no orphaned shards remain.
+     *
+     * @param annotations
+     *            the annotations to write
+     * @throws IOException
+     *             if the annotations could not be written
+     */
+    void write(final Collection<? extends FileAnnotation> annotations) throws IOException {
+        Map<String, List<FileAnnotation>> annotationsByOrigin = new LinkedHashMap<String, List<FileAnnotation>>();
+        for (FileAnnotation annotation : annotations) {
+            String origin = StringUtils.defaultString(annotation.getOrigin());
+            List<FileAnnotation> shard = annotationsByOrigin.get(origin);
+            if (shard == null) {
+                shard = new ArrayList<FileAnnotation>();
+                annotationsByOrigin.put(origin, shard);
+            }
+            shard.add(annotation);
+        }
+
+        FileUtils.deleteQuietly(getManifestFile());
+        List<Shard> shards = new ArrayList<Shard>();
+        boolean isWritten = false;
+        try {
+            for (Map.Entry<String, List<FileAnnotation>> entry : annotationsByOrigin.entrySet()) {
+                List<FileAnnotation> shard = entry.getValue();
+                getShardFile(shards.size()).write(shard);
+                shards.add(new Shard(entry.getKey(), shard.size(), hashFileNames(shard)));
+            }
+            writeManifest(shards);
+            isWritten = true;
+        }
+        finally {
+            deleteShards(isWritten ? shards.size() : 0);
+        }
+    }
+
+    /**
+     * Deletes the shard files starting with the specified index.
+     *
+     * @param from
+     *            the index of the first shard to delete
+     */
+    private void deleteShards(final int from) {
+        for (int index = from; getShardPath(index).exists(); index++) {
+            FileUtils.deleteQuietly(getShardPath(index));
+        }
+    }
+
+    private static int[] hashFileNames(final List<FileAnnotation> annotations) {
+        Set<Integer> hashes = new HashSet<Integer>();
+        for (FileAnnotation annotation : annotations) {
+            hashes.add(hashFileName(annotation.getFileName()));
+        }
+        int[] sorted = new int[hashes.size()];
+        int position = 0;
+        for (Integer hash : hashes) {
+            sorted[position++] = hash;
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int hashFileName(final String fileName) {
+        return StringUtils.defaultString(fileName).hashCode();
+    }
+
+    /**
+     * Reads the annotations of all shards.
+     *
+     * @param classLoader
+     *            the class loader to resolve the classes of the annotations
+     * @return the annotations
+     * @throws IOException
+     *             if the annotations could not be read
+     */
+    List<FileAnnotation> read(final ClassLoader classLoader) throws IOException {
+        List<Shard> shards = readManifest();
+        List<FileAnnotation> annotations = new ArrayList<FileAnnotation>(getNumberOfAnnotations(shards));
+        for (int index = 0; index < shards.size(); index++) {
+            annotations.addAll(getShardFile(index).read(classLoader));
+        }
+        return annotations;
+    }
+
+    private static int getNumberOfAnnotations(final List<Shard> shards) {
+        int total = 0;
+        for (Shard shard : shards) {
+            total += shard.size;
+        }
+        return total;
+    }
+
+    /**
+     * Reads the annotations of the specified origin. The shards of the other origins are not read.
+     *
+     * @param origin
+     *            the origin of the annotations
+     * @param classLoader
+     *            the class loader to resolve the classes of the annotations
+     * @return the annotations of the origin
+     * @throws IOException
+     *             if the annotations could not be read
+     */
+    List<FileAnnotation> readOrigin(final String origin, final ClassLoader classLoader) throws IOException {
+        List<Shard> shards = readManifest();
+        for (int index = 0; index < shards.size(); index++) {
+            if (shards.get(index).origin.equals(StringUtils.defaultString(origin))) {
+                return getShardFile(index).read(classLoader);
+            }
+        }
+        return new ArrayList<FileAnnotation>();
+    }
+
+    /**
+     * Reads the annotations of the specified file. Only the shards that contain annotations of the file are read.
+     *
+     * @param fileName
+     *            the name of the file
+     * @param classLoader
+     *            the class loader to resolve the classes of the annotations
+     * @return the annotations of the file
+     * @throws IOException
+     *             if the annotations could not be read
+     */
+    List<FileAnnotation> readFile(final String fileName, final ClassLoader classLoader) throws IOException {
+        List<Shard> shards = readManifest();
+        int hash = hashFileName(fileName);
+        List<FileAnnotation> annotations = new ArrayList<FileAnnotation>();
+        for (int index = 0; index < shards.size(); index++) {
+            if (Arrays.binarySearch(shards.get(index).fileNameHashes, hash) >= 0) {
+                for (FileAnnotation annotation : getShardFile(index).read(classLoader)) {
+                    if (StringUtils.equals(fileName, annotation.getFileName())) {
+                        annotations.add(annotation);
+                    }
+                }
+            }
+        }
+        return annotations;
+    }
+
+    /**
+     * Returns the origins of the shards.
+     *
+     * @return the origins
+     * @throws IOException
+     *             if the manifest could not be read
+     */
+    List<String> getOrigins() throws IOException {
+        List<String> origins = new ArrayList<String>();
+        for (Shard shard : readManifest()) {
+            origins.add(shard.origin);
+        }
+        return origins;
+    }
+
+    private AnnotationFile getShardFile(final int index) {
+        return new AnnotationFile(getShardPath(index));
+    }
+
+    private File getShardPath(final int index) {
+        return new File(folder, "analysis-" + index + ".bin");
+    }
+
+    private File getManifestFile() {
+        return new File(folder, FILE_NAME);
+    }
+
+    private void writeManifest(final List<Shard> shards) throws IOException {
+        File manifest = getManifestFile();
+        File temporary = new File(folder, FILE_NAME + ".tmp");
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+        boolean isWritten = false;
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(shards.size());
+            for (Shard shard : shards) {
+                output.writeUTF(shard.origin);
+                output.writeInt(shard.size);
+                output.writeInt(shard.fileNameHashes.length);
+                for (int hash : shard.fileNameHashes) {
+                    output.writeInt(hash);
+                }
+            }
+            output.close();
+            isWritten = true;
+        }
+        finally {
+            IOUtils.closeQuietly(output);
+            if (!isWritten) {
+                FileUtils.deleteQuietly(temporary);
+            }
+        }
+        if (!temporary.renameTo(manifest)) {
+            if (!manifest.delete() || !temporary.renameTo(manifest)) {
+                throw new IOException("Can't rename " + temporary + " to " + manifest);
+            }
+        }
+    }
+
+    private List<Shard> readManifest() throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(getManifestFile())));
+        try {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new StreamCorruptedException("Unknown format of " + getManifestFile());
+            }
+            int count = input.readInt();
+            List<Shard> shards = new ArrayList<Shard>(count);
+            for (int i = 0; i < count; i++) {
+                String origin = input.readUTF();
+                int size = input.readInt();
+                int[] hashes = new int[input.readInt()];
+                for (int j = 0; j < hashes.length; j++) {
+                    hashes[j] = input.readInt();
+                }
+                shards.add(new Shard(origin, size, hashes));
+            }
+            return shards;
+        }
+        catch (EOFException exception) {
+            throw new StreamCorruptedException("Truncated file " + getManifestFile());
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    /**
+     * Entry of the manifest.
+     */
+    private static class Shard {
+        private final String origin;
+        private final int size;
+        private final int[] fileNameHashes;
+
+        Shard(final String origin, final int size, final int[] fileNameHashes) {
+            this.origin = origin;
+            this.size = size;
+            this.fileNameHashes = fileNameHashes;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+
+import org.apache.commons.io.FileUtils;
+
+import hudson.model.Run;
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ResultAction;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+/**
+ * Writes the annotations of {@link AnalysisResult} instances on a dedicated thread, so that the executor of a build
+ * is released before the annotations have been written. Before a write is queued, a recovery marker with the
+ * participating plug-ins is written to the build folder; the marker is deleted when the annotations have been
+ * written. If Jenkins is stopped before or if the annotations could not be written, then the annotations are
+ * collected again from the results of the participating plug-ins when they are requested for the first time.
+ */
+final class AnnotationWriter {
+    /** Name of the recovery marker in the build folder. */
+    static final String MARKER_FILE_NAME = "analysis-pending.txt";
+
+    private static final Logger LOGGER = Logger.getLogger(AnnotationWriter.class.getName());
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "AnalysisCollector.writer"));
+
+    private AnnotationWriter() {
+        // prevents instantiation
+    }
+
+    /**
+     * Writes the pending annotations of the specified result in the background.
+     *
+     * @param result
+     *            the result with pending annotations
+     * @param participatingPlugins
+     *            the result actions of the plug-ins that contributed to the result
+     */
+    static void schedule(final AnalysisResult result,
+            final Collection<Class<? extends ResultAction<? extends BuildResult>>> participatingPlugins) {
+        Run<?, ?> build = result.getOwner();
+        List<String> actionNames = new ArrayList<String>();
+        for (Class<? extends ResultAction<? extends BuildResult>> action : participatingPlugins) {
+            actionNames.add(action.getName());
+        }
+        writeMarker(build, actionNames);
+
+        EXECUTOR.execute(new PendingWrite(result, build));
+    }
+
+    /**
+     * Writes the recovery marker of the specified build.
+     *
+     * @param build
+     *            the build
+     * @param actionNames
+     *            the class names of the result actions of the participating plug-ins
+     */
+    static void writeMarker(final Run<?, ?> build, final List<String> actionNames) {
+        try {
+            FileUtils.writeLines(getMarkerFile(build), "UTF-8", actionNames);
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to write recovery marker of build " + build, exception);
+        }
+    }
+
+    /**
+     * Returns the participating plug-ins of the specified build if its annotations have not been written.
+     *
+     * @param build
+     *            the build
+     * @return the class names of the result actions of the participating plug-ins or <code>null</code> if there
+     *         is no recovery marker
+     */
+    @CheckForNull
+    static List<String> getPendingActions(final Run<?, ?> build) {
+        File marker = getMarkerFile(build);
+        if (!marker.isFile()) {
+            return null;
+        }
+        try {
+            return FileUtils.readLines(marker, "UTF-8");
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to read recovery marker of build " + build, exception);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the recovery marker of the specified build.
+     *
+     * @param build
+     *            the build
+     */
+    static void deleteMarker(final Run<?, ?> build) {
+        File marker = getMarkerFile(build);
+        if (marker.exists() && !marker.delete()) {
+            LOGGER.log(Level.WARNING, "Failed to delete recovery marker " + marker);
+        }
+    }
+
+    private static File getMarkerFile(final Run<?, ?> build) {
+        return new File(build.getRootDir(), MARKER_FILE_NAME);
+    }
+
+    /**
+     * Writes the pending annotations of a result. The result deletes the recovery marker when the annotations have
+     * been written. If the annotations could not be written, then the pending annotations are released but the
+     * recovery marker is kept, so that the annotations are recovered when they are requested.
+     */
+    static class PendingWrite implements Runnable {
+        private final AnalysisResult result;
+        private final Run<?, ?> build;
+
+        /**
+         * Creates a new instance of {@link PendingWrite}.
+         *
+         * @param result
+         *            the result with pending annotations
+         * @param build
+         *            the build of the result
+         */
+        PendingWrite(final AnalysisResult result, final Run<?, ?> build) {
+            this.result = result;
+            this.build = build;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result.writePendingAnnotations();
+            }
+            catch (RuntimeException exception) {
+                LOGGER.log(Level.SEVERE, "Failed to write annotations of build " + build
+                        + ", keeping the recovery marker", exception);
+                result.discardPendingAnnotations();
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import hudson.plugins.analysis.graph.GraphConfiguration;
+import hudson.util.Graph;
+
+/**
+ * Renders a trend graph of a job as PNG image and caches the rendered image. The cache is bounded and keyed by the
+ * job, the last completed build of the job, the serialized graph configuration, the size of the image and the
+ * locale of the request, since the labels of the graph are localized. Each image is sent with a strong entity tag
+ * that is derived from the key, so conditional requests of an unchanged graph are answered with 304 (not modified)
+ * without rendering the graph at all.
+ */
+public class CachedTrendGraph {
+    /** Maximum number of rendered images in the cache. */
+    static final int MAX_ENTRIES = 200;
+
+    private static final Map<String, byte[]> IMAGES = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+        private static final long serialVersionUID = -4618006462016367870L;
+
+        @Override
+        protected boolean removeEldestEntry(final Entry<String, byte[]> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    /** Number of deleted builds by job: the graph changes if a build of the history has been deleted. */
+    private static final ConcurrentMap<String, AtomicInteger> GENERATIONS = new ConcurrentHashMap<String, AtomicInteger>();
+    /** Distinguishes the entity tags of different JVM instances, the generations are not persisted. */
+    private static final String INSTANCE_ID = Long.toHexString(System.currentTimeMillis());
+
+    private final Graph graph;
+    private final GraphConfiguration configuration;
+    private final String prefix;
+
+    /**
+     * Creates a new instance of {@link CachedTrendGraph}.
+     *
+     * @param job
+     *            the job the graph belongs to
+     * @param graph
+     *            the graph that renders the image
+     * @param configuration
+     *            the configuration of the graph
+     */
+    public CachedTrendGraph(final Job<?, ?> job, final Graph graph, final GraphConfiguration configuration) {
+        this.graph = graph;
+        this.configuration = configuration;
+
+        Run<?, ?> lastCompletedBuild = job.getLastCompletedBuild();
+        prefix = job.getFullName() + '#' + getGeneration(job.getFullName())
+                + '#' + (lastCompletedBuild == null ? 0 : lastCompletedBuild.getNumber())
+                + '#' + configuration.serializeToString();
+    }
+
+    /**
+     * Sends the PNG image of the graph. The image is rendered only if it is not in the cache yet.
+     *
+     * @param request
+     *            Stapler request
+     * @param response
+     *            Stapler response
+     * @throws IOException
+     *             in case of an error
+     */
+    public void doPng(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        if (hasCustomColors(request)) {
+            graph.doPng(request, response);
+            return;
+        }
+
+        int width = NumberUtils.toInt(request.getParameter("width"), configuration.getWidth());
+        int height = NumberUtils.toInt(request.getParameter("height"), configuration.getHeight());
+        String key = prefix + '#' + width + 'x' + height + '#' + request.getLocale();
+        String entityTag = '"' + Util.getDigestOf(INSTANCE_ID + '#' + key) + '"';
+
+        response.setHeader("ETag", entityTag);
+        response.setHeader("Cache-Control", "private, no-cache");
+        if (entityTag.equals(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] image = getImage(key, width, height);
+        response.setContentType("image/png");
+        response.setContentLength(image.length);
+        ServletOutputStream output = response.getOutputStream();
+        output.write(image);
+        output.close();
+    }
+
+    /**
+     * Sends the clickable map of the graph. The map is not cached.
+     *
+     * @param request
+     *            Stapler request
+     * @param response
+     *            Stapler response
+     * @throws IOException
+     *             in case of an error
+     */
+    public void doMap(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        graph.doMap(request, response);
+    }
+
+    private boolean hasCustomColors(final StaplerRequest request) {
+        return StringUtils.isNotEmpty(request.getParameter("graphBg"))
+                || StringUtils.isNotEmpty(request.getParameter("plotBg"));
+    }
+
+    private byte[] getImage(final String key, final int width, final int height) throws IOException {
+        synchronized (IMAGES) {
+            byte[] image = IMAGES.get(key);
+            if (image != null) {
+                return image;
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(graph.createImage(width, height), "PNG", png);
+        byte[] image = png.toByteArray();
+        synchronized (IMAGES) {
+            IMAGES.put(key, image);
+        }
+        return image;
+    }
+
+    private static int getGeneration(final String fullName) {
+        AtomicInteger generation = GENERATIONS.get(fullName);
+        if (generation == null) {
+            return 0;
+        }
+        return generation.get();
+    }
+
+    /**
+     * Invalidates the cached images of a job whose build history has been changed.
+     *
+     * @param fullName
+     *            the full name of the job
+     */
+    static void invalidate(final String fullName) {
+        AtomicInteger generation = GENERATIONS.get(fullName);
+        if (generation == null) {
+            GENERATIONS.putIfAbsent(fullName, new AtomicInteger());
+            generation = GENERATIONS.get(fullName);
+        }
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Invalidates the cached images of a job if one of its builds has been deleted. Images of other generations are
+     * never requested again and will be evicted from the cache.
+     */
+    @Extension
+    public static class InvalidatingRunListener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onDeleted(final Run<?, ?> run) {
+            invalidate(run.getParent().getFullName());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StreamCorruptedException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+
+import hudson.model.Run;
+import hudson.plugins.analysis.util.model.AnnotationStream;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Stores the annotations of a build as compressed XML in the file that {@link hudson.plugins.analysis.core.BuildResult}
+ * writes uncompressed. The XML document is the same as the one written by the super class, but it is compressed with
+ * gzip, i.e. deflate blocks. The document is compressed while it is written and decompressed while it is parsed, so
+ * neither the compressed nor the decompressed document is held in memory as a whole. Whether a file is compressed is
+ * detected by the gzip magic number, so uncompressed files of older builds are still read by the super class.
+ */
+final class CompressedXmlFile {
+    private static final XStream XSTREAM = new AnnotationStream();
+    private static final String ENCODING = "UTF-8";
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    private final File file;
+
+    /**
+     * Returns the XML file of the specified build.
+     *
+     * @param build
+     *            the build
+     * @param fileName
+     *            the name of the file in the build folder
+     * @return the XML file
+     */
+    static CompressedXmlFile of(final Run<?, ?> build, final String fileName) {
+        return new CompressedXmlFile(new File(build.getRootDir(), fileName));
+    }
+
+    /**
+     * Creates a new instance of {@link CompressedXmlFile}.
+     *
+     * @param file
+     *            the XML file
+     */
+    CompressedXmlFile(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns whether the file exists and is compressed.
+     *
+     * @return <code>true</code> if the file is compressed, <code>false</code> if it does not exist or has been
+     *         written uncompressed
+     */
+    boolean isCompressed() {
+        if (!file.isFile()) {
+            return false;
+        }
+        InputStream input = null;
+        try {
+            input = new FileInputStream(file);
+            int first = input.read();
+            int second = input.read();
+            return (second << 8 | first) == GZIP_MAGIC;
+        }
+        catch (IOException exception) {
+            return false;
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    /**
+     * Writes the specified annotations. The annotations are written to a temporary file that replaces this file
+     * when all annotations have been written. If the annotations could not be written, then the temporary file is
+     * deleted and this file is not changed.
+     *
+     * @param annotations
+     *            the annotations to write
+     * @throws IOException
+     *             if the annotations could not be written
+     */
+    void write(final Collection<? extends FileAnnotation> annotations) throws IOException {
+        File temporary = new File(file.getParentFile(), file.getName() + ".tmp");
+        Writer output = new OutputStreamWriter(new GZIPOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporary))), ENCODING);
+        boolean isWritten = false;
+        try {
+            output.write("<?xml version='1.0' encoding='" + ENCODING + "'?>\n");
+            XSTREAM.toXML(annotations.toArray(new FileAnnotation[annotations.size()]), output);
+            output.close();
+            isWritten = true;
+        }
+        catch (XStreamException exception) {
+            throw new IOException("Can't write " + file, exception);
+        }
+        finally {
+            IOUtils.closeQuietly(output);
+            if (!isWritten) {
+                FileUtils.deleteQuietly(temporary);
+            }
+        }
+        if (!temporary.renameTo(file)) {
+            if (!file.delete() || !temporary.renameTo(file)) {
+                throw new IOException("Can't rename " + temporary + " to " + file);
+            }
+        }
+    }
+
+    /**
+     * Reads all annotations.
+     *
+     * @return the annotations
+     * @throws IOException
+     *             if the annotations could not be read
+     */
+    List<FileAnnotation> read() throws IOException {
+        Reader input = new InputStreamReader(new GZIPInputStream(
+                new BufferedInputStream(new FileInputStream(file))), ENCODING);
+        try {
+            Object annotations = XSTREAM.fromXML(input);
+            if (!(annotations instanceof FileAnnotation[])) {
+                throw new StreamCorruptedException("No annotations in " + file);
+            }
+            return Arrays.asList((FileAnnotation[])annotations);
+        }
+        catch (XStreamException exception) {
+            throw new IOException("Can't read " + file, exception);
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+}
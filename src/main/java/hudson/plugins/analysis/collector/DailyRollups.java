@@ -0,0 +1,457 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+
+import hudson.model.Job;
+
+/**
+ * Daily rollups of the trend of a job. The rollups contain one record per calendar day with builds: the number of
+ * builds of that day, the counts of the last build of that day (total, priorities and origins) and the sum of the new
+ * and fixed warnings of all builds of that day. The rollups are derived from the {@link TrendStore} of the job. When a
+ * build is appended to the store, then the updated rollup of its day is appended to the rollups; if a day has been
+ * rolled up several times then the last rollup wins. When a build is removed from the store, then the rollups are
+ * created again. Graphs that cover the last N days need to read only the rollups of N days per job.
+ * <p>
+ * Layout: magic number, version, followed by the rollups (day, number of builds, summary, length of the rollup) in
+ * ascending order of days. The trailing length allows to read the last rollup without reading the whole file.
+ * </p>
+ */
+final class DailyRollups {
+    /** Name of the rollup file in the job folder. */
+    static final String FILE_NAME = "analysis-daily.bin";
+
+    private static final Logger LOGGER = Logger.getLogger(DailyRollups.class.getName());
+    private static final int MAGIC = 0x41534452; // ASDR
+    private static final int VERSION = 2;
+    private static final int HEADER_LENGTH = 8;
+    private static final int TRAILER_LENGTH = 4;
+
+    private final File file;
+
+    /**
+     * Returns the daily rollups of the specified job.
+     *
+     * @param job
+     *            the job
+     * @return the daily rollups
+     */
+    static DailyRollups of(final Job<?, ?> job) {
+        return new DailyRollups(new File(job.getRootDir(), FILE_NAME));
+    }
+
+    /**
+     * Creates a new instance of {@link DailyRollups}.
+     *
+     * @param file
+     *            the file of the rollups
+     */
+    DailyRollups(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the day of the specified timestamp in the form <code>yyyyMMdd</code>.
+     *
+     * @param timestamp
+     *            the timestamp in milliseconds
+     * @return the day
+     */
+    static int dayOf(final long timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        return calendar.get(Calendar.YEAR) * 10000 + (calendar.get(Calendar.MONTH) + 1) * 100
+                + calendar.get(Calendar.DAY_OF_MONTH);
+    }
+
+    /**
+     * Replaces all rollups with the rollups of the specified records. Must be called while the trend store is locked.
+     *
+     * @param records
+     *            all records of the trend store
+     */
+    void create(final List<TrendStore.Record> records) {
+        try {
+            write(compute(records));
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to create " + file, exception);
+        }
+    }
+
+    /**
+     * Adds the record of a new build to the rollup of its day. Since builds are appended in ascending order of days,
+     * only the last rollup is read and the updated rollup of the day is appended to the file. If the rollups do not
+     * exist yet, have an unknown format or the build is older than the last rollup, then all rollups are created
+     * from the records of the trend store. Must be called while the trend store is locked.
+     *
+     * @param record
+     *            the appended record
+     * @param store
+     *            the trend store that contains the record
+     */
+    void append(final TrendStore.Record record, final TrendStore store) {
+        try {
+            int day = dayOf(record.getTimestamp());
+            Rollup last = readLast();
+            if (last != null && last.getDay() <= day) {
+                if (last.getDay() == day) {
+                    append(last.add(record));
+                }
+                else {
+                    append(new Rollup(day, 1, record.getSummary()));
+                }
+                return;
+            }
+            List<TrendStore.Record> records = store.read();
+            if (records != null) {
+                write(compute(records));
+            }
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to update " + file, exception);
+        }
+    }
+
+    /**
+     * Reads the last rollup by following the length that trails each rollup.
+     *
+     * @return the last rollup, or <code>null</code> if the rollups do not exist, are empty, have an unknown format or
+     *         end with a rollup that has been written only partially
+     * @throws IOException
+     *             if the rollups could not be read
+     */
+    private Rollup readLast() throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            long length = input.length();
+            if (length <= HEADER_LENGTH || input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return null;
+            }
+            input.seek(length - TRAILER_LENGTH);
+            int rollupLength = input.readInt();
+            long start = length - TRAILER_LENGTH - rollupLength;
+            if (rollupLength <= 0 || start < HEADER_LENGTH) {
+                return null;
+            }
+            input.seek(start);
+            Rollup rollup = readRollup(input);
+            return input.getFilePointer() == length - TRAILER_LENGTH ? rollup : null;
+        }
+        catch (EOFException exception) {
+            return null;
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    private void append(final Rollup rollup) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        try {
+            write(output, rollup);
+        }
+        finally {
+            IOUtils.closeQuietly(output);
+        }
+    }
+
+    /**
+     * Creates the rollups of the specified records.
+     *
+     * @param records
+     *            the records of the trend store, sorted by build number
+     * @return the rollups in ascending order of days
+     */
+    static List<Rollup> compute(final List<TrendStore.Record> records) {
+        Map<Integer, List<TrendStore.Record>> recordsByDay = new TreeMap<Integer, List<TrendStore.Record>>();
+        for (TrendStore.Record record : records) {
+            int day = dayOf(record.getTimestamp());
+            List<TrendStore.Record> recordsOfDay = recordsByDay.get(day);
+            if (recordsOfDay == null) {
+                recordsOfDay = new ArrayList<TrendStore.Record>();
+                recordsByDay.put(day, recordsOfDay);
+            }
+            recordsOfDay.add(record);
+        }
+        List<Rollup> rollups = new ArrayList<Rollup>(recordsByDay.size());
+        for (Map.Entry<Integer, List<TrendStore.Record>> day : recordsByDay.entrySet()) {
+            rollups.add(createRollup(day.getKey(), day.getValue()));
+        }
+        return rollups;
+    }
+
+    private static Rollup createRollup(final int day, final List<TrendStore.Record> recordsOfDay) {
+        int newWarnings = 0;
+        int fixedWarnings = 0;
+        for (TrendStore.Record record : recordsOfDay) {
+            newWarnings += record.getSummary().getNumberOfNewWarnings();
+            fixedWarnings += record.getSummary().getNumberOfFixedWarnings();
+        }
+        AnalysisSummary last = recordsOfDay.get(recordsOfDay.size() - 1).getSummary();
+        return new Rollup(day, recordsOfDay.size(), last.withNewAndFixedWarnings(newWarnings, fixedWarnings));
+    }
+
+    private void write(final List<Rollup> rollups) throws IOException {
+        File temporary = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            for (Rollup rollup : rollups) {
+                write(output, rollup);
+            }
+        }
+        finally {
+            IOUtils.closeQuietly(output);
+        }
+        if (!temporary.renameTo(file)) {
+            if (!file.delete() || !temporary.renameTo(file)) {
+                throw new IOException("Can't rename " + temporary + " to " + file);
+            }
+        }
+    }
+
+    private static void write(final DataOutputStream output, final Rollup rollup) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream buffer = new DataOutputStream(bytes);
+        buffer.writeInt(rollup.getDay());
+        buffer.writeInt(rollup.getNumberOfBuilds());
+        rollup.getSummary().writeTo(buffer);
+        buffer.flush();
+
+        bytes.writeTo(output);
+        output.writeInt(bytes.size());
+    }
+
+    private static Rollup readRollup(final DataInput input) throws IOException {
+        int day = input.readInt();
+        int builds = input.readInt();
+        return new Rollup(day, builds, AnalysisSummary.readFrom(input));
+    }
+
+    /**
+     * Reads the rollups of the specified range of days.
+     *
+     * @param from
+     *            the first day of the range (<code>yyyyMMdd</code>)
+     * @param to
+     *            the last day of the range (<code>yyyyMMdd</code>)
+     * @return the rollups in ascending order of days, or <code>null</code> if the rollups do not exist or have an
+     *         unknown format
+     * @throws IOException
+     *             if the rollups could not be read
+     */
+    List<Rollup> read(final int from, final int to) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        List<Rollup> rollups = new ArrayList<Rollup>();
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return null;
+            }
+            while (true) {
+                Rollup rollup;
+                try {
+                    rollup = readRollup(input);
+                    input.readInt(); // length of the rollup
+                }
+                catch (EOFException exception) {
+                    break; // regular end of the rollups or a rollup that is being appended right now
+                }
+                int day = rollup.getDay();
+                if (day > to) {
+                    break;
+                }
+                if (day >= from) {
+                    int size = rollups.size();
+                    if (size > 0 && rollups.get(size - 1).getDay() == day) {
+                        rollups.set(size - 1, rollup);
+                    }
+                    else {
+                        rollups.add(rollup);
+                    }
+                }
+            }
+        }
+        catch (EOFException exception) {
+            return null;
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+        return rollups;
+    }
+
+    /**
+     * Returns the rollups of the specified job and range of days. The rollups are preceded by the last rollup before
+     * the range, if there is one, so that the counts of a job can be carried forward to days without builds. If the
+     * rollups of the job have not been created yet, then the rollups are computed from the trend of the job without
+     * writing them.
+     *
+     * @param job
+     *            the job
+     * @param from
+     *            the first day of the range (<code>yyyyMMdd</code>)
+     * @param to
+     *            the last day of the range (<code>yyyyMMdd</code>)
+     * @return the rollups in ascending order of days
+     */
+    static List<Rollup> readRange(final Job<?, ?> job, final int from, final int to) {
+        try {
+            List<Rollup> rollups = of(job).read(Integer.MIN_VALUE, to);
+            if (rollups != null) {
+                return withPrevious(rollups, from);
+            }
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.FINE, "Failed to read daily rollups of " + job, exception);
+        }
+        List<Rollup> rollups = new ArrayList<Rollup>();
+        for (Rollup rollup : compute(TrendStore.readSince(job, from))) {
+            if (rollup.getDay() <= to) {
+                rollups.add(rollup);
+            }
+        }
+        return withPrevious(rollups, from);
+    }
+
+    /**
+     * Sums up the rollups of the specified jobs for each day of the specified range with builds. The counts of a job
+     * for a given day are the counts of its last build of that day. If a job has not been built on a given day, then
+     * the counts of its last earlier day are carried forward, but not its new and fixed warnings: the new and fixed
+     * warnings are the sums of all builds of that day.
+     *
+     * @param jobs
+     *            the jobs
+     * @param from
+     *            the first day of the range (<code>yyyyMMdd</code>)
+     * @param to
+     *            the last day of the range (<code>yyyyMMdd</code>)
+     * @return the sums in ascending order of days
+     */
+    @SuppressWarnings("rawtypes")
+    static SortedMap<Integer, AnalysisSummary> sum(final Collection<? extends Job> jobs, final int from, final int to) {
+        List<List<Rollup>> rollupsOfJobs = new ArrayList<List<Rollup>>();
+        SortedSet<Integer> days = new TreeSet<Integer>();
+        for (Job<?, ?> job : jobs) {
+            List<Rollup> rollups = readRange(job, from, to);
+            rollupsOfJobs.add(rollups);
+            for (Rollup rollup : rollups) {
+                if (rollup.getDay() >= from) {
+                    days.add(rollup.getDay());
+                }
+            }
+        }
+
+        SortedMap<Integer, AnalysisSummary> totals = new TreeMap<Integer, AnalysisSummary>();
+        for (List<Rollup> rollups : rollupsOfJobs) {
+            int position = 0;
+            Rollup last = null;
+            for (Integer day : days) {
+                while (position < rollups.size() && rollups.get(position).getDay() <= day) {
+                    last = rollups.get(position++);
+                }
+                if (last != null) {
+                    AnalysisSummary summary = last.getDay() == day
+                            ? last.getSummary() : last.getSummary().withNewAndFixedWarnings(0, 0);
+                    AnalysisSummary total = totals.get(day);
+                    totals.put(day, total == null ? summary : total.add(summary));
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Returns the first day of a range of the specified number of days that ends today.
+     *
+     * @param dayCount
+     *            the number of days, or 0 for all days
+     * @return the first day (<code>yyyyMMdd</code>)
+     */
+    static int getFirstDay(final int dayCount) {
+        if (dayCount <= 0) {
+            return Integer.MIN_VALUE;
+        }
+        return dayOf(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(dayCount - 1));
+    }
+
+    private static List<Rollup> withPrevious(final List<Rollup> rollups, final int from) {
+        int start = 0;
+        while (start < rollups.size() && rollups.get(start).getDay() < from) {
+            start++;
+        }
+        return rollups.subList(Math.max(0, start - 1), rollups.size());
+    }
+
+    /**
+     * The rollup of a single day.
+     */
+    static final class Rollup {
+        private final int day;
+        private final int numberOfBuilds;
+        private final AnalysisSummary summary;
+
+        Rollup(final int day, final int numberOfBuilds, final AnalysisSummary summary) {
+            this.day = day;
+            this.numberOfBuilds = numberOfBuilds;
+            this.summary = summary;
+        }
+
+        int getDay() {
+            return day;
+        }
+
+        int getNumberOfBuilds() {
+            return numberOfBuilds;
+        }
+
+        AnalysisSummary getSummary() {
+            return summary;
+        }
+
+        /**
+         * Returns the rollup of this day with the specified record of a later build of the same day.
+         *
+         * @param record
+         *            the record of the later build
+         * @return the updated rollup
+         */
+        Rollup add(final TrendStore.Record record) {
+            AnalysisSummary added = record.getSummary();
+            return new Rollup(day, numberOfBuilds + 1, added.withNewAndFixedWarnings(
+                    summary.getNumberOfNewWarnings() + added.getNumberOfNewWarnings(),
+                    summary.getNumberOfFixedWarnings() + added.getNumberOfFixedWarnings()));
+        }
+    }
+}
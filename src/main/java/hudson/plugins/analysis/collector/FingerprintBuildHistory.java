@@ -0,0 +1,106 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.Collection;
+
+import javax.annotation.CheckForNull;
+
+import hudson.model.Run;
+import hudson.plugins.analysis.core.BuildHistory;
+import hudson.plugins.analysis.util.model.AnnotationContainer;
+import hudson.plugins.analysis.util.model.DefaultAnnotationContainer;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Build history of the analysis results that computes the new and fixed warnings with a single pass of a
+ * {@link FingerprintDifferencer}. The difference is computed when the reference annotations are requested for the
+ * first time and is handed over to the {@link AnalysisResult} by {@link #takeDifference()}. Afterwards this history
+ * references neither the current nor the reference annotations anymore. Since the {@link AnalysisResult} provides
+ * the new and fixed warnings on its own, {@link hudson.plugins.analysis.core.BuildResult} gets an empty reference so
+ * that the annotations are not compared a second time.
+ */
+class FingerprintBuildHistory extends BuildHistory {
+    private final boolean usePreviousBuildAsReference;
+    private final boolean useStableBuildAsReference;
+
+    private Collection<FileAnnotation> currentAnnotations;
+    private FingerprintDifferencer difference;
+
+    /**
+     * Creates a new instance of {@link FingerprintBuildHistory}.
+     *
+     * @param baseline
+     *            the build to start the history from
+     * @param currentAnnotations
+     *            the annotations of the baseline
+     * @param usePreviousBuildAsReference
+     *            determines whether the previous build should be used as the reference build
+     * @param useStableBuildAsReference
+     *            determines whether only stable builds should be used as reference builds or not
+     */
+    FingerprintBuildHistory(final Run<?, ?> baseline, final Collection<FileAnnotation> currentAnnotations,
+            final boolean usePreviousBuildAsReference, final boolean useStableBuildAsReference) {
+        super(baseline, AnalysisResultAction.class, usePreviousBuildAsReference, useStableBuildAsReference);
+
+        this.currentAnnotations = currentAnnotations;
+        this.usePreviousBuildAsReference = usePreviousBuildAsReference;
+        this.useStableBuildAsReference = useStableBuildAsReference;
+    }
+
+    @Override
+    public AnnotationContainer getReferenceAnnotations() {
+        computeDifference();
+
+        return new EmptyReference();
+    }
+
+    private void computeDifference() {
+        if (currentAnnotations != null) {
+            difference = new FingerprintDifferencer(currentAnnotations,
+                    super.getReferenceAnnotations().getAnnotations());
+            currentAnnotations = null;
+        }
+    }
+
+    /**
+     * Returns the new and fixed warnings of the baseline and releases them from this history.
+     *
+     * @return the difference to the reference build or <code>null</code> if the difference has already been taken
+     */
+    @CheckForNull
+    FingerprintDifferencer takeDifference() {
+        computeDifference();
+
+        FingerprintDifferencer taken = difference;
+        difference = null;
+        return taken;
+    }
+
+    /**
+     * Returns whether the previous build should be used as the reference build.
+     *
+     * @return <code>true</code> if the previous build should be used as the reference build
+     */
+    boolean isPreviousBuildReference() {
+        return usePreviousBuildAsReference;
+    }
+
+    /**
+     * Returns whether only stable builds should be used as reference builds.
+     *
+     * @return <code>true</code> if only stable builds should be used as reference builds
+     */
+    boolean isStableBuildReference() {
+        return useStableBuildAsReference;
+    }
+
+    /**
+     * Reference without annotations.
+     */
+    private static class EmptyReference extends DefaultAnnotationContainer {
+        private static final long serialVersionUID = -1416393542165286394L;
+
+        EmptyReference() {
+            super();
+        }
+    }
+}
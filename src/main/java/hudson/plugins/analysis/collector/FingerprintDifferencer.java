@@ -0,0 +1,156 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Computes the new and fixed warnings of a build with respect to a reference build. Each annotation is mapped to a
+ * 64-bit fingerprint built from its origin, type, category, file name, normalized message and context hash code. The
+ * difference of both builds is then computed with a primitive hash multiset of these fingerprints, i.e. in linear
+ * time and without allocating an object per annotation.
+ */
+final class FingerprintDifferencer {
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+    private static final long NULL_VALUE = 0x9E3779B97F4A7C15L;
+
+    private final List<FileAnnotation> matchedAnnotations;
+    private final List<FileAnnotation> newAnnotations;
+    private final List<FileAnnotation> fixedAnnotations;
+
+    /**
+     * Creates a new instance of {@link FingerprintDifferencer}.
+     *
+     * @param current
+     *            the annotations of the current build
+     * @param reference
+     *            the annotations of the reference build
+     */
+    FingerprintDifferencer(final Collection<FileAnnotation> current, final Collection<FileAnnotation> reference) {
+        long[] referenceFingerprints = new long[reference.size()];
+        LongMultiset unmatched = new LongMultiset(reference.size());
+        int index = 0;
+        for (FileAnnotation annotation : reference) {
+            referenceFingerprints[index] = fingerprint(annotation);
+            unmatched.add(referenceFingerprints[index]);
+            index++;
+        }
+
+        matchedAnnotations = new ArrayList<FileAnnotation>(Math.min(current.size(), reference.size()));
+        newAnnotations = new ArrayList<FileAnnotation>();
+        for (FileAnnotation annotation : current) {
+            if (unmatched.remove(fingerprint(annotation))) {
+                matchedAnnotations.add(annotation);
+            }
+            else {
+                newAnnotations.add(annotation);
+            }
+        }
+
+        fixedAnnotations = new ArrayList<FileAnnotation>();
+        index = 0;
+        for (FileAnnotation annotation : reference) {
+            if (unmatched.remove(referenceFingerprints[index])) {
+                fixedAnnotations.add(annotation);
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Returns the annotations of the current build that are also part of the reference build.
+     *
+     * @return the matched annotations
+     */
+    public List<FileAnnotation> getMatchedAnnotations() {
+        return matchedAnnotations;
+    }
+
+    /**
+     * Returns the annotations of the current build that are not part of the reference build.
+     *
+     * @return the new annotations
+     */
+    public List<FileAnnotation> getNewAnnotations() {
+        return newAnnotations;
+    }
+
+    /**
+     * Returns the annotations of the reference build that are not part of the current build anymore.
+     *
+     * @return the fixed annotations
+     */
+    public List<FileAnnotation> getFixedAnnotations() {
+        return fixedAnnotations;
+    }
+
+    /**
+     * Computes the fingerprint of the specified annotation.
+     *
+     * @param annotation
+     *            the annotation
+     * @return the 64-bit fingerprint
+     */
+    static long fingerprint(final FileAnnotation annotation) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, annotation.getOrigin());
+        hash = hash(hash, annotation.getType());
+        hash = hash(hash, annotation.getCategory());
+        hash = hash(hash, annotation.getFileName());
+        hash = hashNormalized(hash, annotation.getMessage());
+        return hash(hash, annotation.getContextHashCode());
+    }
+
+    private static long hash(final long hash, final long value) {
+        long result = hash;
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            result = (result ^ ((value >>> shift) & 0xFF)) * FNV_PRIME;
+        }
+        return result;
+    }
+
+    private static long hash(final long hash, final String value) {
+        if (value == null) {
+            return hash(hash, NULL_VALUE);
+        }
+        long result = hash;
+        for (int i = 0; i < value.length(); i++) {
+            result = (result ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return separate(result);
+    }
+
+    /**
+     * Hashes the message with collapsed and trimmed white space, so that reformatted messages are still matched.
+     */
+    private static long hashNormalized(final long hash, final String message) {
+        if (message == null) {
+            return hash(hash, NULL_VALUE);
+        }
+        long result = hash;
+        boolean pendingSpace = false;
+        boolean isLeading = true;
+        for (int i = 0; i < message.length(); i++) {
+            char character = message.charAt(i);
+            if (Character.isWhitespace(character)) {
+                pendingSpace = !isLeading;
+            }
+            else {
+                if (pendingSpace) {
+                    result = (result ^ ' ') * FNV_PRIME;
+                    pendingSpace = false;
+                }
+                result = (result ^ character) * FNV_PRIME;
+                isLeading = false;
+            }
+        }
+        return separate(result);
+    }
+
+    private static long separate(final long hash) {
+        return (hash ^ 0xFF) * FNV_PRIME;
+    }
+}
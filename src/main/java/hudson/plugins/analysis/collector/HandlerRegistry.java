@@ -0,0 +1,212 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+
+import jenkins.model.Jenkins;
+
+import hudson.plugins.analysis.collector.handler.AnalysisHandler;
+import hudson.plugins.analysis.core.AbstractProjectAction;
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.PluginDescriptor;
+import hudson.plugins.analysis.core.ResultAction;
+
+/**
+ * Registry of the {@link AnalysisHandler} singletons. The handlers are registered as extensions and are indexed by
+ * their position in the extension list, so handlers of other analysis plug-ins take part like the handlers of this
+ * plug-in. The summaries, columns and graphs of the collector iterate the {@link Tool tools} of the registry. The
+ * registry is created whenever the installed plug-ins are detected, so the handlers and their result actions are not
+ * created again for each build or view.
+ *
+ * @see AnalysisDescriptor#getInstalledTools()
+ */
+final class HandlerRegistry {
+    /** Registry without any handlers. */
+    private static final HandlerRegistry EMPTY = new HandlerRegistry(Collections.<AnalysisHandler>emptyList());
+
+    private static volatile HandlerRegistry instance;
+
+    private final List<Tool> tools;
+
+    /**
+     * Returns the registry. If the extensions have not been registered yet, then the registry is created from the
+     * current extensions, without a running Jenkins the registry is empty.
+     *
+     * @return the registry
+     */
+    static HandlerRegistry getInstance() {
+        HandlerRegistry registry = instance;
+        if (registry == null) {
+            if (Jenkins.getInstance() == null) {
+                return EMPTY;
+            }
+            registry = refresh();
+        }
+        return registry;
+    }
+
+    /**
+     * Creates the registry from the registered {@link AnalysisHandler} extensions.
+     *
+     * @return the created registry
+     */
+    static HandlerRegistry refresh() {
+        return register(Jenkins.getInstance().getExtensionList(AnalysisHandler.class));
+    }
+
+    /**
+     * Creates the registry from the specified handlers. Used if the handlers are not registered as extensions, e.g.
+     * without a running Jenkins.
+     *
+     * @param handlers
+     *            the handlers in the order of their extension position
+     * @return the created registry
+     */
+    static HandlerRegistry register(final Collection<? extends AnalysisHandler> handlers) {
+        HandlerRegistry registry = new HandlerRegistry(handlers);
+        instance = registry;
+        return registry;
+    }
+
+    private HandlerRegistry(final Collection<? extends AnalysisHandler> handlers) {
+        List<Tool> created = new ArrayList<Tool>(handlers.size());
+        for (AnalysisHandler handler : handlers) {
+            created.add(new Tool(created.size(), handler));
+        }
+        tools = Collections.unmodifiableList(created);
+    }
+
+    /**
+     * Returns the tools of the registered handlers.
+     *
+     * @return the tools, indexed by the position of their handler
+     */
+    List<Tool> getTools() {
+        return tools;
+    }
+
+    /**
+     * Returns the number of registered handlers.
+     *
+     * @return the number of tools
+     */
+    int size() {
+        return tools.size();
+    }
+
+    /**
+     * Returns the tool with the specified origin.
+     *
+     * @param origin
+     *            the origin of the annotations of the tool
+     * @return the tool or <code>null</code> if there is no handler for the origin
+     */
+    @CheckForNull
+    Tool getTool(final String origin) {
+        for (Tool tool : tools) {
+            if (tool.getOrigin().equals(origin)) {
+                return tool;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * An analysis plug-in with a registered handler. The values of the handler are read once when the registry is
+     * created.
+     */
+    static final class Tool {
+        private final int index;
+        private final AnalysisHandler handler;
+        private final String origin;
+        private final String url;
+        private final Class<? extends AbstractProjectAction<?>> projectActionType;
+        private final Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> resultActions;
+        /** HTML image of the icon, created when first requested since the descriptor of the plug-in is needed. */
+        private volatile String icon;
+
+        Tool(final int index, final AnalysisHandler handler) {
+            this.index = index;
+            this.handler = handler;
+            origin = handler.getOrigin();
+            url = handler.getUrl();
+            projectActionType = handler.getProjectActionType();
+            resultActions = handler.getResultActions();
+        }
+
+        /**
+         * Returns the position of the handler in the registry.
+         *
+         * @return the index of this tool
+         */
+        int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the handler of the plug-in.
+         *
+         * @return the handler
+         */
+        AnalysisHandler getHandler() {
+            return handler;
+        }
+
+        /**
+         * Returns the origin of the annotations of the plug-in.
+         *
+         * @return the origin key
+         */
+        String getOrigin() {
+            return origin;
+        }
+
+        /**
+         * Returns the URL of the results of the plug-in.
+         *
+         * @return the URL, relative to the job
+         */
+        String getUrl() {
+            return url;
+        }
+
+        /**
+         * Returns the type of the project action of the plug-in.
+         *
+         * @return the project action type
+         */
+        Class<? extends AbstractProjectAction<?>> getProjectActionType() {
+            return projectActionType;
+        }
+
+        /**
+         * Returns the types of the result actions of the plug-in.
+         *
+         * @return the result action types
+         */
+        Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> getResultActions() {
+            return resultActions;
+        }
+
+        /**
+         * Returns the icon of the plug-in as HTML image. Concurrent requests may create the image more than once,
+         * but all of them create the same image.
+         *
+         * @return the icon
+         */
+        String getIcon() {
+            String image = icon;
+            if (image == null) {
+                PluginDescriptor descriptor = Jenkins.getInstance().getDescriptorByType(handler.getDescriptor());
+                image = "<img hspace=\"10\" align=\"absmiddle\" width=\"24\" height=\"24\" src=\""
+                        + Jenkins.RESOURCE_PATH + descriptor.getIconUrl() + "\"/>";
+                icon = image;
+            }
+            return image;
+        }
+    }
+}
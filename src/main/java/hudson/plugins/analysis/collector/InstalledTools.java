@@ -0,0 +1,101 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable snapshot of the analysis plug-ins that are installed. The plug-ins are identified by the origins of
+ * their annotations, i.e. by {@link HandlerRegistry.Tool#getOrigin()}.
+ *
+ * @see AnalysisDescriptor#getInstalledTools()
+ */
+final class InstalledTools {
+    /** Snapshot without any installed plug-ins. */
+    static final InstalledTools NONE = new InstalledTools(Collections.<String>emptySet());
+
+    private final Set<String> origins;
+
+    private InstalledTools(final Set<String> origins) {
+        this.origins = origins;
+    }
+
+    /**
+     * Creates a snapshot of the plug-ins of the specified registry.
+     *
+     * @param registry
+     *            the registry of the installed plug-ins
+     * @return the snapshot
+     */
+    static InstalledTools of(final HandlerRegistry registry) {
+        InstalledTools snapshot = NONE;
+        for (HandlerRegistry.Tool tool : registry.getTools()) {
+            snapshot = snapshot.with(tool.getOrigin());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns a snapshot that additionally contains the specified plug-in.
+     *
+     * @param origin
+     *            the origin of the annotations of the plug-in
+     * @return the new snapshot
+     */
+    InstalledTools with(final String origin) {
+        Set<String> installed = new TreeSet<String>(origins);
+        installed.add(origin);
+        return new InstalledTools(Collections.unmodifiableSet(installed));
+    }
+
+    /**
+     * Returns whether the specified plug-in is installed.
+     *
+     * @param origin
+     *            the origin of the annotations of the plug-in
+     * @return <code>true</code> if the plug-in is installed, <code>false</code> if not
+     */
+    boolean contains(final String origin) {
+        return origins.contains(origin);
+    }
+
+    /**
+     * Returns the origins of the installed plug-ins.
+     *
+     * @return the origins, in alphabetical order
+     */
+    Set<String> getOrigins() {
+        return origins;
+    }
+
+    /**
+     * Creates an aggregator that shows the warnings of all installed plug-ins.
+     *
+     * @return the aggregator
+     */
+    WarningsAggregator createAggregator() {
+        return new WarningsAggregator(
+                contains(AnalysisDescriptor.CHECKSTYLE),
+                contains(AnalysisDescriptor.DRY),
+                contains(AnalysisDescriptor.FINDBUGS),
+                contains(AnalysisDescriptor.PMD),
+                contains(AnalysisDescriptor.TASKS),
+                contains(AnalysisDescriptor.WARNINGS),
+                contains(AnalysisDescriptor.ANDROID_LINT));
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj instanceof InstalledTools && ((InstalledTools)obj).origins.equals(origins);
+    }
+
+    @Override
+    public int hashCode() {
+        return origins.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return origins.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+
+import jenkins.model.Jenkins;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+/**
+ * Upgrades the build records of old {@link AnalysisResult} instances that do not contain the number of annotations by
+ * origin. The affected builds are registered when their counts are computed in memory on a read path, e.g. while a
+ * trend graph is rendered. Builds that are never read are found by scanning the build records of the jobs: whenever
+ * no registered builds are left, the build folders of the next {@link #JOBS_PER_PERIOD} jobs are scanned for
+ * build records with an analysis result without origins. The build records are scanned as text, so no build is
+ * loaded unless it needs to be upgraded. Each job is scanned once after Jenkins has been started.
+ * <p>
+ * The builds are saved in the background in small batches: multiple registrations of the same build are coalesced
+ * and at most {@link #BATCH_SIZE} builds are saved per period. Since a build may have been evicted from memory in
+ * the meantime, the counts are computed again on the loaded result before it is saved.
+ * </p>
+ */
+@Extension
+public class LegacyResultMigration extends AsyncPeriodicWork {
+    private static final Logger LOGGER = Logger.getLogger(LegacyResultMigration.class.getName());
+
+    /** Maximum number of builds that are saved per period. */
+    static final int BATCH_SIZE = 25;
+    private static final long PERIOD = TimeUnit.SECONDS.toMillis(30);
+    private static final long PAUSE_BETWEEN_SAVES = 100;
+
+    /** Maximum number of jobs whose build records are scanned per period. */
+    static final int JOBS_PER_PERIOD = 5;
+    private static final String RESULT_ELEMENT = "<" + AnalysisResultAction.class.getName();
+    private static final String ORIGINS_ELEMENT = "<origins";
+    private static final String BUILD_RECORD = "build.xml";
+
+    /** External IDs of the builds to save, in order of registration. */
+    private static final Set<String> PENDING = new LinkedHashSet<String>();
+    /** Full names of the jobs that have not been scanned yet, <code>null</code> before the first scan. */
+    private Deque<String> unscannedJobs;
+
+    /**
+     * Creates a new instance of {@link LegacyResultMigration}.
+     */
+    public LegacyResultMigration() {
+        super("Analysis collector result migration");
+    }
+
+    /**
+     * Registers the specified build to be saved in the background.
+     *
+     * @param build
+     *            the build to save
+     */
+    static void schedule(final Run<?, ?> build) {
+        synchronized (PENDING) {
+            PENDING.add(build.getExternalizableId());
+        }
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return PERIOD;
+    }
+
+    @Override
+    protected void execute(final TaskListener listener) throws IOException, InterruptedException {
+        if (isIdle()) {
+            scanNextJobs();
+        }
+        for (String id : nextBatch()) {
+            Run<?, ?> build = Run.fromExternalizableId(id);
+            AnalysisResultAction action = build == null ? null : build.getAction(AnalysisResultAction.class);
+            if (action != null) {
+                action.getResult().migrateCounts();
+                try {
+                    build.save();
+                }
+                catch (IOException exception) {
+                    LOGGER.log(Level.WARNING, "Failed to upgrade analysis result of " + id, exception);
+                }
+                Thread.sleep(PAUSE_BETWEEN_SAVES);
+            }
+        }
+    }
+
+    private static boolean isIdle() {
+        synchronized (PENDING) {
+            return PENDING.isEmpty();
+        }
+    }
+
+    private void scanNextJobs() {
+        if (unscannedJobs == null) {
+            unscannedJobs = new ArrayDeque<String>();
+            for (Job<?, ?> job : Jenkins.getInstance().getAllItems(Job.class)) {
+                unscannedJobs.add(job.getFullName());
+            }
+        }
+        for (int i = 0; i < JOBS_PER_PERIOD && !unscannedJobs.isEmpty(); i++) {
+            Job<?, ?> job = Jenkins.getInstance().getItemByFullName(unscannedJobs.poll(), Job.class);
+            if (job != null) {
+                scan(job);
+            }
+        }
+    }
+
+    private void scan(final Job<?, ?> job) {
+        File[] buildFolders = job.getBuildDir().listFiles();
+        if (buildFolders == null) {
+            return;
+        }
+        for (File buildFolder : buildFolders) {
+            if (StringUtils.isNumeric(buildFolder.getName()) && isLegacyRecord(new File(buildFolder, BUILD_RECORD))) {
+                synchronized (PENDING) {
+                    PENDING.add(job.getFullName() + "#" + buildFolder.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the specified build record contains an analysis result without the number of annotations by
+     * origin.
+     *
+     * @param buildRecord
+     *            the build record
+     * @return <code>true</code> if the result needs to be upgraded, <code>false</code> otherwise
+     */
+    static boolean isLegacyRecord(final File buildRecord) {
+        if (!buildRecord.isFile()) {
+            return false;
+        }
+        try {
+            String content = FileUtils.readFileToString(buildRecord, "UTF-8");
+            return content.contains(RESULT_ELEMENT) && !content.contains(ORIGINS_ELEMENT);
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.FINE, "Failed to scan build record " + buildRecord, exception);
+            return false;
+        }
+    }
+
+    private static Set<String> nextBatch() {
+        Set<String> batch = new LinkedHashSet<String>();
+        synchronized (PENDING) {
+            Iterator<String> iterator = PENDING.iterator();
+            while (iterator.hasNext() && batch.size() < BATCH_SIZE) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+        }
+        return batch;
+    }
+}
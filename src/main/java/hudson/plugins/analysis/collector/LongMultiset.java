@@ -0,0 +1,77 @@
+package hudson.plugins.analysis.collector;
+
+/**
+ * Multiset of primitive <code>long</code> values. Uses open addressing with linear probing so that adding and
+ * removing values does not allocate any objects.
+ */
+final class LongMultiset {
+    private static final long EMPTY = 0L;
+    private static final long EMPTY_REPLACEMENT = 1L;
+
+    private final long[] keys;
+    private final int[] counts;
+    private final int mask;
+
+    /**
+     * Creates a new instance of {@link LongMultiset}.
+     *
+     * @param expectedSize
+     *            the expected number of values
+     */
+    LongMultiset(final int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds the specified value.
+     *
+     * @param value
+     *            the value to add
+     */
+    void add(final long value) {
+        long key = normalize(value);
+        int index = slotOf(key);
+        keys[index] = key;
+        counts[index]++;
+    }
+
+    /**
+     * Removes one occurrence of the specified value.
+     *
+     * @param value
+     *            the value to remove
+     * @return <code>true</code> if the value has been part of this multiset, <code>false</code> otherwise
+     */
+    boolean remove(final long value) {
+        int index = slotOf(normalize(value));
+        if (counts[index] > 0) {
+            counts[index]--;
+            return true;
+        }
+        return false;
+    }
+
+    private static long normalize(final long value) {
+        return value == EMPTY ? EMPTY_REPLACEMENT : value;
+    }
+
+    /**
+     * Returns the slot of the specified key: either the slot that already contains the key or the empty slot
+     * where the key would be inserted.
+     */
+    private int slotOf(final long key) {
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private static int mix(final long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int)(hash ^ (hash >>> 32));
+    }
+}
@@ -1,6 +1,8 @@
 package hudson.plugins.analysis.collector;
 
+import hudson.model.Run;
 import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ResultAction;
 import hudson.plugins.analysis.graph.CategoryBuildResultGraph;
 import hudson.plugins.analysis.graph.ColorPalette;
 import hudson.plugins.analysis.graph.GraphConfiguration;
@@ -8,11 +10,19 @@ import hudson.plugins.analysis.util.ToolTipProvider;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.CheckForNull;
+
+import org.apache.commons.lang.math.NumberUtils;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.renderer.category.CategoryItemRenderer;
 import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest;
 
 import com.google.common.collect.Lists;
 
@@ -21,12 +31,13 @@ import com.google.common.collect.Lists;
  *
  * @author Ulli Hafner
  */
-public class OriginGraph extends CategoryBuildResultGraph {
+public class OriginGraph extends CategoryBuildResultGraph implements RollupGraphs.Series {
     /** Number of colors to use from Hudson's color table. */
     private static final int HUDSON_GREEN_INDEX = 3;
 
     private final List<String> originsKeys  = Lists.newArrayList();
     private final List<String> originLabels = Lists.newArrayList();
+    private transient int[] originIndices;
     private static final Color ORANGE = new Color(0xFF, 0xA5, 0x00);
     private static final Color GRAY = new Color(0x4D, 0x4D, 0x4D);
     private static final Color PINK = new Color(0xA0, 0x20, 0xF0);
@@ -35,10 +46,7 @@ public class OriginGraph extends CategoryBuildResultGraph {
      * Creates a new instance of {@link OriginGraph}.
      */
     public OriginGraph() {
-        this(AnalysisDescriptor.isCheckStyleInstalled(), AnalysisDescriptor.isDryInstalled(),
-                AnalysisDescriptor.isFindBugsInstalled(), AnalysisDescriptor.isPmdInstalled(),
-                AnalysisDescriptor.isOpenTasksInstalled(), AnalysisDescriptor.isWarningsInstalled(),
-                AnalysisDescriptor.isAndroidLintInstalled());
+        this(AnalysisDescriptor.getInstalledTools().createAggregator());
     }
 
     /**
@@ -61,35 +69,18 @@ public class OriginGraph extends CategoryBuildResultGraph {
             final boolean isFindBugsActivated, final boolean isPmdActivated,
             final boolean isOpenTasksActivated, final boolean isWarningsActivated,
             final boolean isAndroidLintActivated) {
+        this(new WarningsAggregator(isCheckStyleActivated, isDryActivated, isFindBugsActivated, isPmdActivated,
+                isOpenTasksActivated, isWarningsActivated, isAndroidLintActivated));
+    }
+
+    private OriginGraph(final WarningsAggregator activatedTools) {
         super();
 
-        if (isCheckStyleActivated) {
-            originsKeys.add(hudson.plugins.checkstyle.parser.Warning.ORIGIN);
-            originLabels.add(Messages.Analysis_Checkstyle_Warning_Origin());
-        }
-        if (isDryActivated) {
-            originsKeys.add(hudson.plugins.dry.parser.DuplicateCode.ORIGIN);
-            originLabels.add(Messages.Analysis_Dry_Warning_Origin());
-        }
-        if (isFindBugsActivated) {
-            originsKeys.add(hudson.plugins.findbugs.parser.Bug.ORIGIN);
-            originLabels.add(Messages.Analysis_FindBugs_Warning_Origin());
-        }
-        if (isPmdActivated) {
-            originsKeys.add(hudson.plugins.pmd.parser.Bug.ORIGIN);
-            originLabels.add(Messages.Analysis_PMD_Warning_Origin());
-        }
-        if (isOpenTasksActivated) {
-            originsKeys.add(hudson.plugins.tasks.parser.Task.ORIGIN);
-            originLabels.add(Messages.Analysis_Tasks_Warning_Origin());
-        }
-        if (isWarningsActivated) {
-            originsKeys.add(hudson.plugins.warnings.parser.Warning.ORIGIN);
-            originLabels.add(Messages.Analysis_Warnings_Warning_Origin());
-        }
-        if (isAndroidLintActivated) {
-            originsKeys.add("android-lint");  // org.jenkinsci.plugins.android_lint.parser.LintAnnotation.ORIGIN is private
-            originLabels.add(Messages.Analysis_AndroidLint_Warning_Origin());
+        for (HandlerRegistry.Tool tool : HandlerRegistry.getInstance().getTools()) {
+            if (activatedTools.isActivated(tool)) {
+                originsKeys.add(tool.getOrigin());
+                originLabels.add(tool.getHandler().getOriginLabel().toString());
+            }
         }
     }
 
@@ -118,13 +109,139 @@ public class OriginGraph extends CategoryBuildResultGraph {
         List<Integer> series = new ArrayList<Integer>();
         if (current instanceof AnalysisResult) {
             AnalysisResult result = (AnalysisResult)current;
-            for (String origin : originsKeys) {
-                series.add(result.getNumberOfAnnotationsByOrigin(origin));
+            for (int originIndex : getOriginIndices()) {
+                series.add(result.getNumberOfAnnotationsByOrigin(originIndex));
             }
         }
         return series;
     }
 
+    @Override
+    public List<Integer> computeSeries(final AnalysisSummary summary) {
+        List<Integer> series = new ArrayList<Integer>();
+        for (String origin : originsKeys) {
+            series.add(summary.getNumberOfAnnotationsByOrigin(origin));
+        }
+        return series;
+    }
+
+    private int[] getOriginIndices() {
+        if (originIndices == null) {
+            int[] indices = new int[originsKeys.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = OriginTable.indexOf(originsKeys.get(i));
+            }
+            originIndices = indices;
+        }
+        return originIndices;
+    }
+
+    /**
+     * Creates the chart of the trend. If the {@link TrendStore} of the job contains the specified build, then the
+     * series of all builds are read from the store and reduced to the number of builds that fit into the width of
+     * the graph (see {@link TrendDownsampler}). The labels of the data points are created from the build numbers of
+     * the records, neither the builds nor their results are loaded. Otherwise, the result of each build is loaded.
+     *
+     * @param configuration
+     *            the configuration of the graph
+     * @param resultAction
+     *            the action of the last build of the trend
+     * @param pluginName
+     *            the name of the plug-in
+     * @return the chart
+     */
+    @Override
+    public JFreeChart create(final GraphConfiguration configuration,
+            final ResultAction<? extends BuildResult> resultAction, @CheckForNull final String pluginName) {
+        if (!configuration.useBuildDateAsDomain()) {
+            Run<?, ?> build = resultAction.getResult().getOwner();
+            List<TrendStore.Record> trend = TrendStore.readTrend(build.getParent(), build.getNumber());
+            if (trend != null) {
+                return createChart(configuration, trend,
+                        createRenderer(configuration, pluginName, resultAction.getToolTipProvider()));
+            }
+        }
+        return super.create(configuration, resultAction, pluginName);
+    }
+
+    private JFreeChart createChart(final GraphConfiguration configuration,
+            final List<TrendStore.Record> trend, final CategoryItemRenderer renderer) {
+        return RollupGraphs.attachRenderer(createChart(createDataSet(configuration, trend)), renderer,
+                getColors());
+    }
+
+    /**
+     * Creates the chart of the aggregated trend of the jobs of a dashboard from the {@link DailyRollups} of the jobs.
+     *
+     * @param configuration
+     *            the configuration of the graph
+     * @param resultActions
+     *            the actions of the last builds of the jobs
+     * @param pluginName
+     *            the name of the plug-in
+     * @return the chart
+     * @see RollupGraphs
+     */
+    @Override
+    public JFreeChart createAggregation(final GraphConfiguration configuration,
+            final Collection<ResultAction<? extends BuildResult>> resultActions, final String pluginName) {
+        return RollupGraphs.attachRenderer(createChart(RollupGraphs.createDataSet(configuration, resultActions, this)),
+                createLineRenderer(), getColors());
+    }
+
+    private CategoryDataset createDataSet(final GraphConfiguration configuration,
+            final List<TrendStore.Record> trend) {
+        int first = trend.size() - 1;
+        long lastTimestamp = trend.get(first).getTimestamp();
+        while (first > 0) {
+            if (configuration.isBuildCountDefined() && trend.size() - first >= configuration.getBuildCount()) {
+                break;
+            }
+            long age = lastTimestamp - trend.get(first - 1).getTimestamp();
+            if (configuration.isDayCountDefined() && TimeUnit.MILLISECONDS.toDays(age) >= configuration.getDayCount()) {
+                break;
+            }
+            first--;
+        }
+
+        List<TrendStore.Record> builds = trend.subList(first, trend.size());
+        int[][] series = new int[builds.size()][];
+        int[] totals = new int[builds.size()];
+        for (int build = 0; build < series.length; build++) {
+            AnalysisSummary summary = builds.get(build).getSummary();
+            series[build] = new int[originsKeys.size()];
+            for (int level = 0; level < originsKeys.size(); level++) {
+                series[build][level] = summary.getNumberOfAnnotationsByOrigin(originsKeys.get(level));
+                totals[build] += series[build][level];
+            }
+        }
+
+        DefaultCategoryDataset dataSet = new DefaultCategoryDataset();
+        for (int build : TrendDownsampler.select(totals, TrendDownsampler.getMaximumBuilds(getWidth(configuration)))) {
+            BuildNumberLabel label = new BuildNumberLabel(builds.get(build).getNumber());
+            for (int level = 0; level < originsKeys.size(); level++) {
+                dataSet.addValue(series[build][level], getRowId(level), label);
+            }
+        }
+        return dataSet;
+    }
+
+    /**
+     * Returns the width of the image that is rendered. Like {@link hudson.util.Graph}, the width is taken from the
+     * parameter <code>width</code> of the current request, the width of the configuration is the default.
+     *
+     * @param configuration
+     *            the configuration of the graph
+     * @return the width in pixels
+     */
+    private static int getWidth(final GraphConfiguration configuration) {
+        StaplerRequest request = Stapler.getCurrentRequest();
+        if (request == null) {
+            return configuration.getWidth();
+        }
+        return NumberUtils.toInt(request.getParameter("width"), configuration.getWidth());
+    }
+
     @Override
     protected JFreeChart createChart(final CategoryDataset dataSet) {
         return createLineGraph(dataSet, true);
@@ -145,7 +262,7 @@ public class OriginGraph extends CategoryBuildResultGraph {
     }
 
     @Override
-    protected String getRowId(final int level) {
+    public String getRowId(final int level) {
         return originLabels.get(level);
     }
 
@@ -153,5 +270,36 @@ public class OriginGraph extends CategoryBuildResultGraph {
     protected CategoryItemRenderer createRenderer(final GraphConfiguration configuration, final String pluginName, final ToolTipProvider toolTipProvider) {
         return createLineRenderer();
     }
-}
 
+    /**
+     * Label of a build in the trend read from the {@link TrendStore}. Like the labels of the builds in the other
+     * graphs, the label shows the number of the build.
+     */
+    private static final class BuildNumberLabel implements Comparable<BuildNumberLabel> {
+        private final int number;
+
+        BuildNumberLabel(final int number) {
+            this.number = number;
+        }
+
+        @Override
+        public int compareTo(final BuildNumberLabel other) {
+            return number < other.number ? -1 : (number == other.number ? 0 : 1);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof BuildNumberLabel && ((BuildNumberLabel)obj).number == number;
+        }
+
+        @Override
+        public int hashCode() {
+            return number;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + number;
+        }
+    }
+}
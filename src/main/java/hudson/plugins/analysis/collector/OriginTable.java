@@ -0,0 +1,88 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Table of the origins of the annotations. Each origin is interned and mapped to a small index, so that the number
+ * of annotations by origin can be stored in a plain <code>int</code> array. The indices are valid for the lifetime
+ * of the JVM only and must not be persisted.
+ */
+final class OriginTable {
+    private static final ConcurrentMap<String, Integer> INDICES = new ConcurrentHashMap<String, Integer>();
+    private static volatile String[] origins = new String[0];
+
+    /** Result of {@link #find(String)} for unknown origins. */
+    static final int UNKNOWN = -1;
+
+    private OriginTable() {
+        // prevents instantiation
+    }
+
+    /**
+     * Returns the index of the specified origin. Unknown origins are added to the table.
+     *
+     * @param origin
+     *            the origin
+     * @return the index of the origin
+     */
+    static int indexOf(final String origin) {
+        String key = StringUtils.defaultString(origin);
+        Integer index = INDICES.get(key);
+        if (index == null) {
+            return register(key);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the specified origin.
+     *
+     * @param origin
+     *            the origin
+     * @return the index of the origin or {@link #UNKNOWN} if the origin is not part of the table
+     */
+    static int find(final String origin) {
+        Integer index = INDICES.get(StringUtils.defaultString(origin));
+        if (index == null) {
+            return UNKNOWN;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the interned origin with the specified index.
+     *
+     * @param index
+     *            the index of the origin
+     * @return the origin
+     */
+    static String getOrigin(final int index) {
+        return origins[index];
+    }
+
+    /**
+     * Returns the number of origins in the table.
+     *
+     * @return the number of origins
+     */
+    static int size() {
+        return origins.length;
+    }
+
+    private static synchronized int register(final String origin) {
+        Integer index = INDICES.get(origin);
+        if (index != null) {
+            return index;
+        }
+        int newIndex = origins.length;
+        String[] copy = Arrays.copyOf(origins, newIndex + 1);
+        copy[newIndex] = origin;
+        origins = copy;
+        INDICES.put(origin, newIndex);
+        return newIndex;
+    }
+}
@@ -0,0 +1,68 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.Collection;
+
+import javax.annotation.CheckForNull;
+
+import org.jfree.chart.JFreeChart;
+
+import hudson.plugins.analysis.collector.ParallelResultLoader.LoadedResults;
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ResultAction;
+import hudson.plugins.analysis.graph.BuildResultGraph;
+import hudson.plugins.analysis.graph.GraphConfiguration;
+
+/**
+ * Graph of a dashboard that loads the annotations of the jobs in parallel before they are aggregated by the decorated
+ * graph. The loaded annotations are released when the aggregated chart has been created.
+ *
+ * @see ParallelResultLoader
+ */
+public final class ParallelAggregationGraph extends BuildResultGraph {
+    private final BuildResultGraph graph;
+
+    /**
+     * Decorates the specified graph so that the annotations of the last build of each job are loaded in parallel.
+     *
+     * @param graph
+     *            the graph that aggregates the results
+     * @return the decorated graph
+     */
+    public static BuildResultGraph withAnnotations(final BuildResultGraph graph) {
+        return new ParallelAggregationGraph(graph);
+    }
+
+    private ParallelAggregationGraph(final BuildResultGraph graph) {
+        super();
+
+        this.graph = graph;
+    }
+
+    @Override
+    public String getId() {
+        return graph.getId();
+    }
+
+    @Override
+    public String getLabel() {
+        return graph.getLabel();
+    }
+
+    @Override
+    public JFreeChart create(final GraphConfiguration configuration,
+            final ResultAction<? extends BuildResult> resultAction, @CheckForNull final String pluginName) {
+        return graph.create(configuration, resultAction, pluginName);
+    }
+
+    @Override
+    public JFreeChart createAggregation(final GraphConfiguration configuration,
+            final Collection<ResultAction<? extends BuildResult>> resultActions, final String pluginName) {
+        LoadedResults results = ParallelResultLoader.loadAnnotations(resultActions);
+        try {
+            return graph.createAggregation(configuration, resultActions, pluginName);
+        }
+        finally {
+            results.release();
+        }
+    }
+}
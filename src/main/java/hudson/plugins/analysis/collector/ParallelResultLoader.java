@@ -0,0 +1,122 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ResultAction;
+
+/**
+ * Loads the annotations of the jobs of a dashboard on a bounded fork-join pool before they are aggregated by a
+ * graph. Loading the annotations of the jobs is the expensive part of the aggregation, the aggregation itself then
+ * works on annotations that are already in memory. The trend graphs of the dashboard do not need to load the results
+ * of the jobs at all, they are aggregated from the {@link DailyRollups} of the jobs (see {@link RollupGraphs}). The
+ * annotations of an {@link AnalysisResult} are pinned in the result until the returned {@link LoadedResults} are
+ * released, so the aggregation gets them from memory even if they have been evicted from the {@link AnnotationCache}
+ * in the meantime. The projects of the results of the other plug-ins are strongly referenced by the
+ * {@link LoadedResults}, so they are not reclaimed before the graph has been aggregated. Since the aggregation still
+ * runs sequentially in the graph, the aggregated chart is exactly the same as without loading the annotations in
+ * advance.
+ *
+ * @see ParallelAggregationGraph
+ */
+public final class ParallelResultLoader {
+    /** Maximum number of jobs whose results are loaded concurrently. */
+    static final int PARALLELISM = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM);
+
+    private ParallelResultLoader() {
+        // prevents instantiation
+    }
+
+    /**
+     * Loads the results of the specified actions including their annotations.
+     *
+     * @param resultActions
+     *            the actions of the last builds of the jobs
+     * @return the loaded annotations
+     */
+    public static LoadedResults loadAnnotations(final Collection<ResultAction<? extends BuildResult>> resultActions) {
+        List<ResultAction<? extends BuildResult>> actions = new ArrayList<ResultAction<? extends BuildResult>>(
+                resultActions);
+        return new LoadedResults(POOL.invoke(new LoadTask(actions)));
+    }
+
+    /**
+     * Results that have been loaded in advance. The results are pinned or strongly referenced until they are
+     * released.
+     */
+    public static final class LoadedResults {
+        private List<Object> results;
+
+        LoadedResults(final List<Object> results) {
+            this.results = results;
+        }
+
+        /**
+         * Returns the number of loaded results.
+         *
+         * @return the number of loaded results, 0 if the results have been released
+         */
+        public synchronized int size() {
+            return results == null ? 0 : results.size();
+        }
+
+        /**
+         * Releases the loaded results.
+         */
+        public synchronized void release() {
+            if (results != null) {
+                for (Object result : results) {
+                    if (result instanceof AnalysisResult) {
+                        ((AnalysisResult)result).unpin();
+                    }
+                }
+                results = null;
+            }
+        }
+    }
+
+    /**
+     * Loads the annotations of a range of jobs. Ranges with more than one job are split into halves.
+     */
+    private static class LoadTask extends RecursiveTask<List<Object>> {
+        private static final long serialVersionUID = 5108564447411826262L;
+
+        private final List<ResultAction<? extends BuildResult>> actions;
+
+        LoadTask(final List<ResultAction<? extends BuildResult>> actions) {
+            super();
+
+            this.actions = actions;
+        }
+
+        @Override
+        protected List<Object> compute() {
+            List<Object> loaded = new ArrayList<Object>();
+            if (actions.size() > 1) {
+                int middle = actions.size() / 2;
+                LoadTask left = new LoadTask(actions.subList(0, middle));
+                LoadTask right = new LoadTask(actions.subList(middle, actions.size()));
+                left.fork();
+                loaded.addAll(right.compute());
+                loaded.addAll(left.join());
+            }
+            else if (!actions.isEmpty()) {
+                BuildResult result = actions.get(0).getResult();
+                if (result instanceof AnalysisResult) {
+                    ((AnalysisResult)result).pin();
+                    loaded.add(result);
+                }
+                else {
+                    loaded.add(result.getProject());
+                }
+            }
+            return loaded;
+        }
+    }
+}
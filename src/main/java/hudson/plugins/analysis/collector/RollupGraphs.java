@@ -0,0 +1,215 @@
+package hudson.plugins.analysis.collector;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.renderer.category.CategoryItemRenderer;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.joda.time.LocalDate;
+
+import hudson.model.Job;
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ResultAction;
+import hudson.plugins.analysis.graph.GraphConfiguration;
+import hudson.plugins.analysis.graph.NewVersusFixedGraph;
+import hudson.plugins.analysis.graph.PriorityGraph;
+import hudson.plugins.analysis.graph.TotalsGraph;
+import hudson.plugins.analysis.util.ToolTipProvider;
+
+/**
+ * Trend graphs of a dashboard that are aggregated from the {@link DailyRollups} of the jobs. The graphs render the
+ * same charts as the graphs of analysis-core, but the aggregation reads the rollups of the configured number of days
+ * instead of loading the results of all builds of these days. The series of a day are the sums of the jobs, see
+ * {@link DailyRollups#sum(Collection, int, int)}.
+ */
+public final class RollupGraphs {
+    /** Tool tips of the graphs of a dashboard without results. */
+    private static final ToolTipProvider DEFAULT_TOOL_TIP_PROVIDER = new DefaultToolTipProvider();
+
+    private RollupGraphs() {
+        // prevents instantiation
+    }
+
+    /**
+     * Creates the series of a graph from the rollup of a day.
+     */
+    interface Series {
+        /**
+         * Computes the series of the specified summary.
+         *
+         * @param summary
+         *            the summary of a day
+         * @return the values of the series
+         */
+        List<Integer> computeSeries(AnalysisSummary summary);
+
+        /**
+         * Returns the row key of the specified series. The graphs of analysis-core declare this method protected, so
+         * the graphs of the rollups override it only to make it public.
+         *
+         * @param level
+         *            the index of the series
+         * @return the row key
+         */
+        String getRowId(int level);
+    }
+
+    /**
+     * Creates the data set of the aggregated trend of the jobs of the specified actions.
+     *
+     * @param configuration
+     *            the configuration of the graph, the number of days limits the range of the trend
+     * @param resultActions
+     *            the actions of the last builds of the jobs
+     * @param series
+     *            the series of the graph
+     * @return the data set with one column per day
+     */
+    static CategoryDataset createDataSet(final GraphConfiguration configuration,
+            final Collection<ResultAction<? extends BuildResult>> resultActions, final Series series) {
+        List<Job<?, ?>> jobs = new ArrayList<Job<?, ?>>();
+        for (ResultAction<? extends BuildResult> resultAction : resultActions) {
+            jobs.add(resultAction.getResult().getOwner().getParent());
+        }
+        int from = DailyRollups.getFirstDay(configuration.isDayCountDefined() ? configuration.getDayCount() : 0);
+
+        DefaultCategoryDataset dataSet = new DefaultCategoryDataset();
+        for (Map.Entry<Integer, AnalysisSummary> total : DailyRollups.sum(jobs, from, Integer.MAX_VALUE).entrySet()) {
+            int day = total.getKey();
+            LocalDate date = new LocalDate(day / 10000, day / 100 % 100, day % 100);
+            List<Integer> values = series.computeSeries(total.getValue());
+            for (int level = 0; level < values.size(); level++) {
+                dataSet.addValue(values.get(level), series.getRowId(level), date);
+            }
+        }
+        return dataSet;
+    }
+
+    /**
+     * Attaches the renderer to the specified chart.
+     *
+     * @param chart
+     *            the chart
+     * @param renderer
+     *            the renderer of the graph
+     * @param colors
+     *            the colors of the series
+     * @return the chart
+     */
+    static JFreeChart attachRenderer(final JFreeChart chart, final CategoryItemRenderer renderer,
+            final Color[] colors) {
+        for (int series = 0; series < colors.length; series++) {
+            renderer.setSeriesPaint(series, colors[series]);
+        }
+        chart.getCategoryPlot().setRenderer(renderer);
+
+        return chart;
+    }
+
+    /**
+     * Returns the tool tip provider of the first of the specified actions.
+     *
+     * @param resultActions
+     *            the actions of the last builds of the jobs
+     * @return the tool tip provider, or a provider that counts the warnings if there are no actions
+     */
+    static ToolTipProvider getToolTipProvider(final Collection<ResultAction<? extends BuildResult>> resultActions) {
+        if (resultActions.isEmpty()) {
+            return DEFAULT_TOOL_TIP_PROVIDER;
+        }
+        return resultActions.iterator().next().getToolTipProvider();
+    }
+
+    /**
+     * Shows the number of warnings.
+     */
+    private static final class DefaultToolTipProvider implements ToolTipProvider {
+        @Override
+        public String getTooltip(final int numberOfItems) {
+            if (numberOfItems == 1) {
+                return Messages.Analysis_ResultAction_OneWarning();
+            }
+            return Messages.Analysis_ResultAction_MultipleWarnings(numberOfItems);
+        }
+    }
+
+    /**
+     * {@link TotalsGraph} that is aggregated from the daily rollups.
+     */
+    public static class Totals extends TotalsGraph implements Series {
+        @Override
+        public JFreeChart createAggregation(final GraphConfiguration configuration,
+                final Collection<ResultAction<? extends BuildResult>> resultActions, final String pluginName) {
+            return attachRenderer(createChart(createDataSet(configuration, resultActions, this)),
+                    createRenderer(configuration, pluginName, getToolTipProvider(resultActions)), getColors());
+        }
+
+        @Override
+        public List<Integer> computeSeries(final AnalysisSummary summary) {
+            List<Integer> series = new ArrayList<Integer>();
+            series.add(summary.getNumberOfAnnotations());
+            return series;
+        }
+
+        @Override
+        public String getRowId(final int level) {
+            return super.getRowId(level);
+        }
+    }
+
+    /**
+     * {@link PriorityGraph} that is aggregated from the daily rollups.
+     */
+    public static class Priorities extends PriorityGraph implements Series {
+        @Override
+        public JFreeChart createAggregation(final GraphConfiguration configuration,
+                final Collection<ResultAction<? extends BuildResult>> resultActions, final String pluginName) {
+            return attachRenderer(createChart(createDataSet(configuration, resultActions, this)),
+                    createRenderer(configuration, pluginName, getToolTipProvider(resultActions)), getColors());
+        }
+
+        @Override
+        public List<Integer> computeSeries(final AnalysisSummary summary) {
+            List<Integer> series = new ArrayList<Integer>();
+            series.add(summary.getNumberOfLowPriorityAnnotations());
+            series.add(summary.getNumberOfNormalPriorityAnnotations());
+            series.add(summary.getNumberOfHighPriorityAnnotations());
+            return series;
+        }
+
+        @Override
+        public String getRowId(final int level) {
+            return super.getRowId(level);
+        }
+    }
+
+    /**
+     * {@link NewVersusFixedGraph} that is aggregated from the daily rollups.
+     */
+    public static class NewVersusFixed extends NewVersusFixedGraph implements Series {
+        @Override
+        public JFreeChart createAggregation(final GraphConfiguration configuration,
+                final Collection<ResultAction<? extends BuildResult>> resultActions, final String pluginName) {
+            return attachRenderer(createChart(createDataSet(configuration, resultActions, this)),
+                    createRenderer(configuration, pluginName, getToolTipProvider(resultActions)), getColors());
+        }
+
+        @Override
+        public List<Integer> computeSeries(final AnalysisSummary summary) {
+            List<Integer> series = new ArrayList<Integer>();
+            series.add(summary.getNumberOfNewWarnings());
+            series.add(summary.getNumberOfFixedWarnings());
+            return series;
+        }
+
+        @Override
+        public String getRowId(final int level) {
+            return super.getRowId(level);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pool of canonical string instances. The annotations of the analysis plug-ins repeat the same file names, module
+ * names, package names, categories and types many times; a pool replaces equal strings by a single instance while
+ * the annotations are decoded by the {@link AnnotationCodec}. Only annotations that are read from the annotation file
+ * of the collector are deduplicated: the annotations that are merged from the results of the other plug-ins are
+ * owned by these plug-ins and are not modified. In contrast to {@link String#intern()} the pool is scoped: it is
+ * created for a single read of annotations and is garbage collected afterwards. Instances are not thread safe.
+ */
+final class StringPool {
+    private final Map<String, String> strings = new HashMap<String, String>();
+
+    /**
+     * Returns the canonical instance of the specified string.
+     *
+     * @param value
+     *            the string, might be <code>null</code>
+     * @return the canonical instance of the string
+     */
+    String intern(final String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = strings.get(value);
+        if (canonical == null) {
+            strings.put(value, value);
+            return value;
+        }
+        return canonical;
+    }
+
+    /**
+     * Returns the number of distinct strings of this pool.
+     *
+     * @return the number of strings
+     */
+    int size() {
+        return strings.size();
+    }
+}
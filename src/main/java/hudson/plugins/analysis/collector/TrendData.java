@@ -0,0 +1,187 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import hudson.model.Job;
+
+/**
+ * Provides the series of the trend graphs as compact JSON so that browsers can render the charts. The series are
+ * read from the {@link TrendStore} of the jobs and are returned column wise, i.e. one array per series. The result
+ * is paginated: the request parameters <code>from</code> and <code>to</code> limit the range of builds (or days),
+ * the parameter <code>limit</code> the number of builds (or days) of a page. The newest builds of the range are
+ * returned first, the property <code>next</code> contains the value of <code>to</code> for the next older page.
+ */
+public final class TrendData {
+    /** Default number of builds or days of a page. */
+    static final int DEFAULT_LIMIT = 100;
+    /** Maximum number of builds or days of a page. */
+    static final int MAXIMUM_LIMIT = 1000;
+
+    private static final String DAY_FORMAT = "yyyy-MM-dd";
+
+    private TrendData() {
+        // prevents instantiation
+    }
+
+    /**
+     * Sends the trend of the specified job, one entry per build.
+     *
+     * @param job
+     *            the job
+     * @param request
+     *            Stapler request
+     * @param response
+     *            Stapler response
+     * @throws IOException
+     *             in case of an error
+     */
+    public static void writeJobTrend(final Job<?, ?> job, final StaplerRequest request,
+            final StaplerResponse response) throws IOException {
+        int from = NumberUtils.toInt(request.getParameter("from"), Integer.MIN_VALUE);
+        int to = NumberUtils.toInt(request.getParameter("to"), Integer.MAX_VALUE);
+        int limit = getLimit(request);
+
+        List<TrendStore.Record> range = TrendStore.readPage(job, from, to, limit);
+        int start = Math.max(0, range.size() - limit);
+
+        JSONArray builds = new JSONArray();
+        JSONArray timestamps = new JSONArray();
+        List<AnalysisSummary> summaries = new ArrayList<AnalysisSummary>();
+        for (TrendStore.Record record : range.subList(start, range.size())) {
+            builds.add(record.getNumber());
+            timestamps.add(record.getTimestamp());
+            summaries.add(record.getSummary());
+        }
+
+        JSONObject trend = createSeries(summaries);
+        trend.put("builds", builds);
+        trend.put("timestamps", timestamps);
+        if (start > 0) {
+            trend.put("next", range.get(start - 1).getNumber());
+        }
+        write(trend, response);
+    }
+
+    /**
+     * Sends the aggregated trend of the specified jobs, one entry per day. The trend is summed up from the
+     * {@link DailyRollups} of the jobs, see {@link DailyRollups#sum(Collection, int, int)}.
+     *
+     * @param jobs
+     *            the jobs
+     * @param dayCount
+     *            the number of days to show if the request does not specify the first day, or 0 to show all days
+     * @param request
+     *            Stapler request
+     * @param response
+     *            Stapler response
+     * @throws IOException
+     *             in case of an error
+     */
+    @SuppressWarnings("rawtypes")
+    public static void writeDashboardTrend(final Collection<? extends Job> jobs, final int dayCount,
+            final StaplerRequest request, final StaplerResponse response) throws IOException {
+        int from = parseDay(request.getParameter("from"), DailyRollups.getFirstDay(dayCount));
+        int to = parseDay(request.getParameter("to"), Integer.MAX_VALUE);
+
+        SortedMap<Integer, AnalysisSummary> totals = DailyRollups.sum(jobs, from, to);
+        List<Integer> range = new ArrayList<Integer>(totals.keySet());
+        int start = Math.max(0, range.size() - getLimit(request));
+
+        JSONArray days = new JSONArray();
+        List<AnalysisSummary> summaries = new ArrayList<AnalysisSummary>();
+        for (Integer day : range.subList(start, range.size())) {
+            days.add(formatDay(day));
+            summaries.add(totals.get(day));
+        }
+
+        JSONObject trend = createSeries(summaries);
+        trend.put("days", days);
+        if (start > 0) {
+            trend.put("next", formatDay(range.get(start - 1)));
+        }
+        write(trend, response);
+    }
+
+    private static int parseDay(final String day, final int defaultValue) {
+        if (StringUtils.isBlank(day)) {
+            return defaultValue;
+        }
+        try {
+            return DailyRollups.dayOf(new SimpleDateFormat(DAY_FORMAT).parse(day).getTime());
+        }
+        catch (ParseException exception) {
+            return defaultValue;
+        }
+    }
+
+    private static String formatDay(final int day) {
+        return String.format("%04d-%02d-%02d", day / 10000, day / 100 % 100, day % 100);
+    }
+
+    private static int getLimit(final StaplerRequest request) {
+        int limit = NumberUtils.toInt(request.getParameter("limit"), DEFAULT_LIMIT);
+        return Math.max(1, Math.min(limit, MAXIMUM_LIMIT));
+    }
+
+    private static JSONObject createSeries(final List<AnalysisSummary> summaries) {
+        JSONArray total = new JSONArray();
+        JSONArray high = new JSONArray();
+        JSONArray normal = new JSONArray();
+        JSONArray low = new JSONArray();
+        JSONArray newWarnings = new JSONArray();
+        JSONArray fixedWarnings = new JSONArray();
+        Set<String> origins = new LinkedHashSet<String>();
+        for (AnalysisSummary summary : summaries) {
+            total.add(summary.getNumberOfAnnotations());
+            high.add(summary.getNumberOfHighPriorityAnnotations());
+            normal.add(summary.getNumberOfNormalPriorityAnnotations());
+            low.add(summary.getNumberOfLowPriorityAnnotations());
+            newWarnings.add(summary.getNumberOfNewWarnings());
+            fixedWarnings.add(summary.getNumberOfFixedWarnings());
+            for (String origin : summary.getOrigins()) {
+                origins.add(origin);
+            }
+        }
+
+        JSONObject byOrigin = new JSONObject();
+        for (String origin : origins) {
+            JSONArray counts = new JSONArray();
+            for (AnalysisSummary summary : summaries) {
+                counts.add(summary.getNumberOfAnnotationsByOrigin(origin));
+            }
+            byOrigin.put(origin, counts);
+        }
+
+        JSONObject trend = new JSONObject();
+        trend.put("total", total);
+        trend.put("high", high);
+        trend.put("normal", normal);
+        trend.put("low", low);
+        trend.put("new", newWarnings);
+        trend.put("fixed", fixedWarnings);
+        trend.put("origins", byOrigin);
+        return trend;
+    }
+
+    private static void write(final JSONObject trend, final StaplerResponse response) throws IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.setHeader("Cache-Control", "private, no-cache");
+        response.getWriter().print(trend.toString());
+    }
+}
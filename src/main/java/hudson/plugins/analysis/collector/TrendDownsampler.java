@@ -0,0 +1,85 @@
+package hudson.plugins.analysis.collector;
+
+/**
+ * Reduces the number of builds of a trend so that the rendering costs of a graph do not grow with the length of the
+ * build history. The builds are selected with the largest-triangle-three-buckets algorithm: the first and the last
+ * build are always retained, from each bucket in between the build that forms the largest triangle with the
+ * previously selected build and the average of the next bucket is retained. Hence, peaks and valleys of the trend
+ * remain visible.
+ */
+final class TrendDownsampler {
+    /** Number of horizontal pixels of a graph per build. */
+    static final int PIXELS_PER_BUILD = 4;
+    /** Minimum number of builds that are shown in a graph. */
+    static final int MINIMUM_BUILDS = 10;
+
+    private TrendDownsampler() {
+        // prevents instantiation
+    }
+
+    /**
+     * Returns the maximum number of builds to show in a graph of the specified width.
+     *
+     * @param width
+     *            the width of the graph in pixels
+     * @return the maximum number of builds
+     */
+    static int getMaximumBuilds(final int width) {
+        return Math.max(MINIMUM_BUILDS, width / PIXELS_PER_BUILD);
+    }
+
+    /**
+     * Selects the builds to show.
+     *
+     * @param values
+     *            the values of the builds, e.g. the total number of warnings, ordered by build
+     * @param threshold
+     *            the maximum number of builds to select
+     * @return the indices of the selected builds in ascending order
+     */
+    static int[] select(final int[] values, final int threshold) {
+        int size = values.length;
+        if (threshold >= size || threshold < 3) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        selected[0] = 0;
+        double bucketSize = (double)(size - 2) / (threshold - 2);
+        int previous = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int nextStart = (int)((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int)((bucket + 2) * bucketSize) + 1, size);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += i;
+                averageY += values[i];
+            }
+            int nextSize = nextEnd - nextStart;
+            averageX /= nextSize;
+            averageY /= nextSize;
+
+            int start = (int)(bucket * bucketSize) + 1;
+            int end = (int)((bucket + 1) * bucketSize) + 1;
+            double maximumArea = -1;
+            int candidate = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((previous - averageX) * (values[i] - values[previous])
+                        - (previous - i) * (averageY - values[previous]));
+                if (area > maximumArea) {
+                    maximumArea = area;
+                    candidate = i;
+                }
+            }
+            selected[bucket + 1] = candidate;
+            previous = candidate;
+        }
+        selected[threshold - 1] = size - 1;
+        return selected;
+    }
+}
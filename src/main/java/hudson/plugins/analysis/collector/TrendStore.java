@@ -0,0 +1,583 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+
+import jenkins.model.Jenkins;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+/**
+ * Append-only store of the trend of a job. The store contains a record for each build of the job that has an
+ * {@link AnalysisResult}: the build number, the timestamp and the {@link AnalysisSummary} of the result (total,
+ * priorities, new and fixed warnings and the counts by origin). A record is appended at the end of each build. If
+ * the store of a job does not exist yet, then it is created in the background by the {@link SeedingWork} from the
+ * results of all builds of the job; until then the trend is computed from the results of the builds. The trend
+ * graphs then read the whole trend with a single sequential read of one file instead of loading the result of each
+ * build. Each modification of the store also updates the {@link DailyRollups} of the job; appending a build neither
+ * reads the store nor rewrites the rollups. The modifications of the store of a job are serialized by a lock per
+ * store. Deleting a build appends a tombstone; the deleted records are removed by a single compaction of the store in
+ * the background, no matter how many builds of the job have been deleted.
+ * <p>
+ * Layout: magic number, version, followed by the records (build number, timestamp, summary) and the tombstones
+ * (negated build number).
+ * </p>
+ */
+public final class TrendStore {
+    /** Name of the trend file in the job folder. */
+    static final String FILE_NAME = "analysis-trend.bin";
+
+    private static final Logger LOGGER = Logger.getLogger(TrendStore.class.getName());
+    private static final int MAGIC = 0x41535452; // ASTR
+    private static final int VERSION = 1;
+    /** Locks of the stores by the path of their file. */
+    private static final ConcurrentMap<String, Object> LOCKS = new ConcurrentHashMap<String, Object>();
+
+    private final File file;
+
+    /**
+     * Returns the trend store of the specified job.
+     *
+     * @param job
+     *            the job
+     * @return the trend store
+     */
+    static TrendStore of(final Job<?, ?> job) {
+        return new TrendStore(new File(job.getRootDir(), FILE_NAME));
+    }
+
+    /**
+     * Creates a new instance of {@link TrendStore}.
+     *
+     * @param file
+     *            the file of the store
+     */
+    TrendStore(final File file) {
+        this.file = file;
+    }
+
+    private Object getLock() {
+        String path = file.getAbsolutePath();
+        Object lock = LOCKS.get(path);
+        if (lock == null) {
+            Object created = new Object();
+            lock = LOCKS.putIfAbsent(path, created);
+            if (lock == null) {
+                lock = created;
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * Appends the result of a finished build to the store. If the store does not exist yet, then the store is not
+     * changed and the job is registered to be initialized by the {@link SeedingWork}.
+     *
+     * @param result
+     *            the result to append
+     */
+    void append(final AnalysisResult result) {
+        if (!append(new Record(result.getOwner(), result.getTrendSummary()))) {
+            SeedingWork.schedule(result.getOwner().getParent());
+        }
+    }
+
+    /**
+     * Appends the specified record to the store and to the {@link DailyRollups}.
+     *
+     * @param record
+     *            the record to append
+     * @return <code>true</code> if the record has been appended, <code>false</code> if the store does not exist
+     */
+    boolean append(final Record record) {
+        synchronized (getLock()) {
+            if (!file.isFile()) {
+                return false;
+            }
+            try {
+                DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(file, true)));
+                try {
+                    write(output, record);
+                }
+                finally {
+                    IOUtils.closeQuietly(output);
+                }
+                getDailyRollups().append(record, this);
+            }
+            catch (IOException exception) {
+                LOGGER.log(Level.WARNING, "Failed to append build " + record.getNumber() + " to " + file, exception);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Creates the store from the results of all builds of the specified job. If the store already exists, then it is
+     * not changed.
+     *
+     * @param job
+     *            the job of this store
+     */
+    void create(final Job<?, ?> job) {
+        synchronized (getLock()) {
+            if (!file.isFile()) {
+                create(collect(job.getLastBuild()));
+            }
+        }
+    }
+
+    /**
+     * Replaces the store and the {@link DailyRollups} with the specified records.
+     *
+     * @param records
+     *            the records sorted by build number
+     */
+    void create(final List<Record> records) {
+        synchronized (getLock()) {
+            try {
+                rewrite(records);
+                getDailyRollups().create(records);
+            }
+            catch (IOException exception) {
+                LOGGER.log(Level.WARNING, "Failed to create " + file, exception);
+            }
+        }
+    }
+
+    private static List<Record> collect(final Run<?, ?> lastBuild) {
+        List<Record> records = new ArrayList<Record>();
+        for (Run<?, ?> build = lastBuild; build != null; build = build.getPreviousBuild()) {
+            addRecord(records, build);
+        }
+        Collections.reverse(records);
+        return records;
+    }
+
+    /**
+     * Marks the record of the specified build as deleted. A tombstone with the negated build number is appended to
+     * the store so that the record is skipped when the store is read. The tombstones and the deleted records are
+     * dropped by {@link #compact()}.
+     *
+     * @param number
+     *            the number of the deleted build
+     * @return <code>true</code> if the tombstone has been appended, <code>false</code> if the store does not exist
+     */
+    boolean delete(final int number) {
+        synchronized (getLock()) {
+            if (!file.isFile()) {
+                return false;
+            }
+            try {
+                DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(file, true)));
+                try {
+                    output.writeInt(-number);
+                }
+                finally {
+                    IOUtils.closeQuietly(output);
+                }
+            }
+            catch (IOException exception) {
+                LOGGER.log(Level.WARNING, "Failed to remove build " + number + " from " + file, exception);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Rewrites the store and the {@link DailyRollups} without the tombstones and the records of the deleted builds.
+     */
+    void compact() {
+        synchronized (getLock()) {
+            try {
+                List<Record> records = read();
+                if (records != null) {
+                    create(records);
+                }
+            }
+            catch (IOException exception) {
+                LOGGER.log(Level.WARNING, "Failed to compact " + file, exception);
+            }
+        }
+    }
+
+    private DailyRollups getDailyRollups() {
+        return new DailyRollups(new File(file.getParentFile(), DailyRollups.FILE_NAME));
+    }
+
+    private void rewrite(final List<Record> records) throws IOException {
+        File temporary = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            for (Record record : records) {
+                write(output, record);
+            }
+        }
+        finally {
+            IOUtils.closeQuietly(output);
+        }
+        if (!temporary.renameTo(file)) {
+            if (!file.delete() || !temporary.renameTo(file)) {
+                throw new IOException("Can't rename " + temporary + " to " + file);
+            }
+        }
+    }
+
+    private void write(final DataOutputStream output, final Record record) throws IOException {
+        output.writeInt(record.getNumber());
+        output.writeLong(record.getTimestamp());
+        record.getSummary().writeTo(output);
+    }
+
+    /**
+     * Reads all records of the store. The records are sorted by build number, if a build has been recorded several
+     * times then the last record wins. The records of deleted builds and a record that has been written only
+     * partially are skipped.
+     *
+     * @return the records of the store, or <code>null</code> if the store does not exist or has an unknown format
+     * @throws IOException
+     *             if the store could not be read
+     */
+    List<Record> read() throws IOException {
+        return read(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the records of the specified range of builds. The records of the other builds are skipped while reading.
+     *
+     * @param from
+     *            the number of the first build of the range
+     * @param to
+     *            the number of the last build of the range
+     * @return the records of the range sorted by build number, or <code>null</code> if the store does not exist or
+     *         has an unknown format
+     * @throws IOException
+     *             if the store could not be read
+     * @see #read()
+     */
+    List<Record> read(final int from, final int to) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        Map<Integer, Record> records = new LinkedHashMap<Integer, Record>();
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return null;
+            }
+            while (true) {
+                int number;
+                try {
+                    number = input.readInt();
+                }
+                catch (EOFException exception) {
+                    break; // regular end of the store
+                }
+                if (number < 0) {
+                    records.remove(-number); // tombstone of a deleted build
+                    continue;
+                }
+                try {
+                    Record record = new Record(number, input.readLong(), AnalysisSummary.readFrom(input));
+                    if (number >= from && number <= to) {
+                        records.put(number, record);
+                    }
+                }
+                catch (EOFException exception) {
+                    break; // record is being appended right now
+                }
+            }
+        }
+        catch (EOFException exception) {
+            return null;
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+        List<Record> sorted = new ArrayList<Record>(records.values());
+        Collections.sort(sorted, new Comparator<Record>() {
+            @Override
+            public int compare(final Record o1, final Record o2) {
+                return o1.getNumber() < o2.getNumber() ? -1 : (o1.getNumber() == o2.getNumber() ? 0 : 1);
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * Reads the trend of the specified job for the graphs. The trend contains the records up to and including the
+     * specified build.
+     *
+     * @param job
+     *            the job
+     * @param lastNumber
+     *            the number of the last build of the trend
+     * @return the records sorted by build number, or <code>null</code> if the store does not contain the last
+     *         build yet
+     */
+    static List<Record> readTrend(final Job<?, ?> job, final int lastNumber) {
+        try {
+            List<Record> records = of(job).read();
+            if (records == null) {
+                SeedingWork.schedule(job);
+                return null;
+            }
+            int end = records.size();
+            while (end > 0 && records.get(end - 1).getNumber() > lastNumber) {
+                end--;
+            }
+            if (end == 0 || records.get(end - 1).getNumber() != lastNumber) {
+                return null;
+            }
+            return records.subList(0, end);
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.FINE, "Failed to read trend of " + job, exception);
+            return null;
+        }
+    }
+
+    /**
+     * Reads a page of the trend of the specified job: the newest records of the specified range of builds. If the
+     * store of the job has not been created yet, then only the results of the builds of the page are loaded and the
+     * store is created in the background.
+     *
+     * @param job
+     *            the job
+     * @param from
+     *            the number of the first build of the range
+     * @param to
+     *            the number of the last build of the range
+     * @param limit
+     *            the maximum number of records of the page
+     * @return the records of the page sorted by build number, preceded by the next older record of the range if
+     *         there is one
+     */
+    static List<Record> readPage(final Job<?, ?> job, final int from, final int to, final int limit) {
+        try {
+            List<Record> records = of(job).read(from, to);
+            if (records != null) {
+                return records.subList(Math.max(0, records.size() - limit - 1), records.size());
+            }
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.FINE, "Failed to read trend of " + job, exception);
+        }
+        SeedingWork.schedule(job);
+
+        List<Record> records = new ArrayList<Record>();
+        Run<?, ?> lastBuild = job.getLastCompletedBuild();
+        if (lastBuild != null && lastBuild.getNumber() > to) {
+            lastBuild = job.getNearestOldBuild(to);
+        }
+        for (Run<?, ?> build = lastBuild; build != null && build.getNumber() >= from && records.size() <= limit;
+                build = build.getPreviousBuild()) {
+            addRecord(records, build);
+        }
+        Collections.reverse(records);
+        return records;
+    }
+
+    /**
+     * Reads the trend of the specified job since the specified day. If the store of the job has not been created
+     * yet, then only the results of the builds since that day are loaded and the store is created in the background.
+     *
+     * @param job
+     *            the job
+     * @param fromDay
+     *            the first day of the trend (<code>yyyyMMdd</code>)
+     * @return the records of the builds since the specified day sorted by build number, preceded by the record of the
+     *         last build before that day if there is one
+     * @see DailyRollups#dayOf(long)
+     */
+    static List<Record> readSince(final Job<?, ?> job, final int fromDay) {
+        try {
+            List<Record> records = of(job).read();
+            if (records != null) {
+                int start = records.size();
+                while (start > 0 && DailyRollups.dayOf(records.get(start - 1).getTimestamp()) >= fromDay) {
+                    start--;
+                }
+                return records.subList(Math.max(0, start - 1), records.size());
+            }
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.FINE, "Failed to read trend of " + job, exception);
+        }
+        SeedingWork.schedule(job);
+
+        List<Record> records = new ArrayList<Record>();
+        for (Run<?, ?> build = job.getLastCompletedBuild(); build != null; build = build.getPreviousBuild()) {
+            if (addRecord(records, build) && DailyRollups.dayOf(build.getTimeInMillis()) < fromDay) {
+                break;
+            }
+        }
+        Collections.reverse(records);
+        return records;
+    }
+
+    private static boolean addRecord(final List<Record> records, final Run<?, ?> build) {
+        AnalysisResultAction action = build.getAction(AnalysisResultAction.class);
+        if (action == null) {
+            return false;
+        }
+        records.add(new Record(build, action.getResult().getTrendSummary()));
+        return true;
+    }
+
+    /**
+     * A record of the trend: the summary of the result of a build.
+     */
+    static final class Record {
+        private final int number;
+        private final long timestamp;
+        private final AnalysisSummary summary;
+
+        Record(final Run<?, ?> build, final AnalysisSummary summary) {
+            this(build.getNumber(), build.getTimeInMillis(), summary);
+        }
+
+        Record(final int number, final long timestamp, final AnalysisSummary summary) {
+            this.number = number;
+            this.timestamp = timestamp;
+            this.summary = summary;
+        }
+
+        int getNumber() {
+            return number;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        AnalysisSummary getSummary() {
+            return summary;
+        }
+    }
+
+    /**
+     * Marks the records of deleted builds in the trend store of their job and registers the job to compact its store
+     * in the background.
+     */
+    @Extension
+    public static class CompactingRunListener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onDeleted(final Run<?, ?> run) {
+            if (run.getAction(AnalysisResultAction.class) != null && of(run.getParent()).delete(run.getNumber())) {
+                SeedingWork.scheduleCompaction(run.getParent());
+            }
+        }
+    }
+
+    /**
+     * Creates the stores of the registered jobs in the background. A job is registered if its store is missing when
+     * a build is appended or when its trend is read. Compacts the stores of the jobs whose builds have been deleted.
+     * Multiple registrations of the same job are coalesced.
+     */
+    @Extension
+    public static class SeedingWork extends AsyncPeriodicWork {
+        private static final long PERIOD = TimeUnit.SECONDS.toMillis(30);
+
+        /** Full names of the jobs whose store should be created or compacted, in order of registration. */
+        private static final Set<String> PENDING = new LinkedHashSet<String>();
+        /** Full names of the pending jobs whose store should be compacted. */
+        private static final Set<String> COMPACTIONS = new HashSet<String>();
+
+        /**
+         * Creates a new instance of {@link SeedingWork}.
+         */
+        public SeedingWork() {
+            super("Analysis collector trend initialization");
+        }
+
+        /**
+         * Registers the specified job to create its store in the background.
+         *
+         * @param job
+         *            the job
+         */
+        static void schedule(final Job<?, ?> job) {
+            synchronized (PENDING) {
+                PENDING.add(job.getFullName());
+            }
+        }
+
+        /**
+         * Registers the specified job to compact its store in the background.
+         *
+         * @param job
+         *            the job
+         */
+        static void scheduleCompaction(final Job<?, ?> job) {
+            synchronized (PENDING) {
+                PENDING.add(job.getFullName());
+                COMPACTIONS.add(job.getFullName());
+            }
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return PERIOD;
+        }
+
+        @Override
+        protected void execute(final TaskListener listener) {
+            while (true) {
+                String name;
+                boolean compaction;
+                synchronized (PENDING) {
+                    Iterator<String> iterator = PENDING.iterator();
+                    if (!iterator.hasNext()) {
+                        return;
+                    }
+                    name = iterator.next();
+                    iterator.remove();
+                    compaction = COMPACTIONS.remove(name);
+                }
+                Job<?, ?> job = Jenkins.getInstance().getItemByFullName(name, Job.class);
+                if (job == null) {
+                    continue;
+                }
+                if (compaction) {
+                    of(job).compact();
+                }
+                else {
+                    of(job).create(job);
+                }
+            }
+        }
+    }
+}
@@ -1,16 +1,14 @@
 package hudson.plugins.analysis.collector;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.commons.lang.StringUtils;
 
 import hudson.model.Job;
-import hudson.plugins.analysis.collector.handler.AnalysisHandler;
-import hudson.plugins.analysis.collector.handler.AndroidLintHandler;
-import hudson.plugins.analysis.collector.handler.CheckStyleHandler;
-import hudson.plugins.analysis.collector.handler.DryHandler;
-import hudson.plugins.analysis.collector.handler.FindBugsHandler;
-import hudson.plugins.analysis.collector.handler.PmdHandler;
-import hudson.plugins.analysis.collector.handler.TasksHandler;
-import hudson.plugins.analysis.collector.handler.WarningsHandler;
+import hudson.model.Result;
+import hudson.plugins.analysis.collector.HandlerRegistry.Tool;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.core.BuildResult;
 
@@ -22,8 +20,6 @@ import hudson.plugins.analysis.core.BuildResult;
 public class WarningsAggregator {
     /** Message to be shown if no result action is found. */
     private static final String NO_RESULTS_FOUND = "-";
-    private static final String CLOSE_TAG = ">";
-    private static final String OPEN_TAG = "<";
 
     private final boolean isCheckStyleActivated;
     private final boolean isDryActivated;
@@ -62,20 +58,6 @@ public class WarningsAggregator {
         this.isAndroidLintActivated = isAndroidLintActivated;
     }
 
-    private int toInt(final String value) {
-        try {
-            if (value.contains(OPEN_TAG)) {
-                return Integer.parseInt(StringUtils.substringBetween(value, CLOSE_TAG, OPEN_TAG));
-            }
-            else {
-                return Integer.parseInt(value);
-            }
-        }
-        catch (NumberFormatException exception) {
-            return 0;
-        }
-    }
-
     /**
      * Returns whether CheckStyle results should be shown.
      *
@@ -130,10 +112,176 @@ public class WarningsAggregator {
         return isWarningsActivated;
     }
 
+    /**
+     * Returns whether Android lint results should be shown.
+     *
+     * @return <code>true</code> if Android lint results should be shown, <code>false</code> otherwise
+     */
     public boolean isAndroidLintActivated() {
         return isAndroidLintActivated;
     }
 
+    /**
+     * Returns whether the results of the specified plug-in should be shown. The plug-ins that can't be deactivated
+     * in the configuration, i.e. the plug-ins of other handlers, are always shown.
+     *
+     * @param origin
+     *            the origin of the annotations of the plug-in
+     * @return <code>true</code> if the results should be shown, <code>false</code> otherwise
+     */
+    boolean isActivated(final String origin) {
+        if (AnalysisDescriptor.CHECKSTYLE.equals(origin)) {
+            return isCheckStyleActivated();
+        }
+        if (AnalysisDescriptor.DRY.equals(origin)) {
+            return isDryActivated();
+        }
+        if (AnalysisDescriptor.FINDBUGS.equals(origin)) {
+            return isFindBugsActivated();
+        }
+        if (AnalysisDescriptor.PMD.equals(origin)) {
+            return isPmdActivated();
+        }
+        if (AnalysisDescriptor.TASKS.equals(origin)) {
+            return isOpenTasksActivated();
+        }
+        if (AnalysisDescriptor.WARNINGS.equals(origin)) {
+            return isWarningsActivated();
+        }
+        if (AnalysisDescriptor.ANDROID_LINT.equals(origin)) {
+            return isAndroidLintActivated();
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the results of the specified plug-in should be shown.
+     *
+     * @param tool
+     *            the plug-in
+     * @return <code>true</code> if the results should be shown, <code>false</code> otherwise
+     */
+    boolean isActivated(final Tool tool) {
+        return isActivated(tool.getOrigin());
+    }
+
+    /**
+     * Returns the plug-in with the specified origin.
+     *
+     * @param origin
+     *            the origin of the annotations of the plug-in
+     * @return the plug-in or <code>null</code> if the plug-in is not installed
+     * @see HandlerRegistry
+     */
+    private Tool getTool(final String origin) {
+        return HandlerRegistry.getInstance().getTool(origin);
+    }
+
+    /**
+     * Returns the number of warnings of all activated plug-ins for the specified job. The counts are read from the
+     * {@link WarningsCountIndex}, so no build records need to be loaded.
+     *
+     * @param job
+     *            the job to get the warnings for
+     * @return the number of warnings
+     */
+    public WarningsCount getCount(final Job<?, ?> job) {
+        WarningsCount all = WarningsCountIndex.getInstance().get(job);
+
+        List<Tool> tools = HandlerRegistry.getInstance().getTools();
+        String[] origins = new String[tools.size()];
+        int[] counts = WarningsCount.createEmptyCounts(tools.size());
+        Result[] results = new Result[tools.size()];
+        for (Tool tool : tools) {
+            origins[tool.getIndex()] = tool.getOrigin();
+            if (isActivated(tool)) {
+                counts[tool.getIndex()] = all.getCount(tool.getOrigin());
+                results[tool.getIndex()] = all.getResult(tool.getOrigin());
+            }
+        }
+        return new WarningsCount(origins, counts, results);
+    }
+
+    /**
+     * Computes the number of warnings of all activated plug-ins for the specified job. The results of each plug-in
+     * are read only once.
+     *
+     * @param job
+     *            the job to get the warnings for
+     * @return the number of warnings
+     */
+    WarningsCount computeCount(final Job<?, ?> job) {
+        List<Tool> tools = HandlerRegistry.getInstance().getTools();
+        String[] origins = new String[tools.size()];
+        int[] counts = WarningsCount.createEmptyCounts(tools.size());
+        Result[] results = new Result[tools.size()];
+        for (Tool tool : tools) {
+            origins[tool.getIndex()] = tool.getOrigin();
+            if (isActivated(tool)) {
+                BuildResult result = getLastResult(job, tool);
+                if (result != null) {
+                    counts[tool.getIndex()] = result.getNumberOfAnnotations();
+                    results[tool.getIndex()] = getUnsuccessfulResult(result);
+                }
+            }
+        }
+        return new WarningsCount(origins, counts, results);
+    }
+
+    /**
+     * Returns the number of warnings of the specified plug-in as HTML string. If there are warnings, then the
+     * number is linked to the results of the plug-in. If the result of the plug-in is not successful, then the
+     * icon of the result is appended. Only in this case the result of the plug-in is loaded.
+     *
+     * @param job
+     *            the job the warnings belong to
+     * @param count
+     *            the number of warnings of the job
+     * @param tool
+     *            the plug-in
+     * @return the number of warnings, formatted as HTML string
+     */
+    String format(final Job<?, ?> job, final WarningsCount count, final Tool tool) {
+        int numberOfAnnotations = count.getCount(tool.getOrigin());
+        if (numberOfAnnotations == WarningsCount.NO_RESULTS) {
+            return NO_RESULTS_FOUND;
+        }
+        String value = formatNumber(job, tool, numberOfAnnotations);
+        if (count.getResult(tool.getOrigin()) != null) {
+            BuildResult result = getLastResult(job, tool);
+            if (result != null) {
+                return value + result.getResultIcon();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of warnings of all plug-ins as HTML strings.
+     *
+     * @param job
+     *            the job the warnings belong to
+     * @param count
+     *            the number of warnings of the job
+     * @return the number of warnings, formatted as HTML strings and mapped by the origins of the plug-ins of the
+     *         {@link HandlerRegistry}
+     * @see #format(Job, WarningsCount, Tool)
+     */
+    public Map<String, String> format(final Job<?, ?> job, final WarningsCount count) {
+        Map<String, String> cells = new LinkedHashMap<String, String>();
+        for (Tool tool : HandlerRegistry.getInstance().getTools()) {
+            cells.put(tool.getOrigin(), format(job, count, tool));
+        }
+        return cells;
+    }
+
+    private String formatNumber(final Job<?, ?> job, final Tool tool, final int numberOfAnnotations) {
+        if (numberOfAnnotations > 0) {
+            return String.format("<a href=\"%s%s\">%d</a>", getJobPrefix(job), tool.getUrl(), numberOfAnnotations);
+        }
+        return String.valueOf(numberOfAnnotations);
+    }
+
     /**
      * Returns the number of Checkstyle warnings for the specified job.
      *
@@ -143,7 +291,7 @@ public class WarningsAggregator {
      */
     public String getCheckStyle(final Job<?, ?> job) {
         if (isCheckStyleActivated()) {
-            return getWarnings(job, new CheckStyleHandler());
+            return getWarnings(job, getTool(AnalysisDescriptor.CHECKSTYLE));
         }
         return NO_RESULTS_FOUND;
     }
@@ -157,7 +305,7 @@ public class WarningsAggregator {
      */
     public String getDry(final Job<?, ?> job) {
         if (isDryActivated()) {
-            return getWarnings(job, new DryHandler());
+            return getWarnings(job, getTool(AnalysisDescriptor.DRY));
         }
         return NO_RESULTS_FOUND;
     }
@@ -171,7 +319,7 @@ public class WarningsAggregator {
      */
     public String getFindBugs(final Job<?, ?> job) {
         if (isFindBugsActivated()) {
-            return getWarnings(job, new FindBugsHandler());
+            return getWarnings(job, getTool(AnalysisDescriptor.FINDBUGS));
         }
         return NO_RESULTS_FOUND;
     }
@@ -185,7 +333,7 @@ public class WarningsAggregator {
      */
     public String getPmd(final Job<?, ?> job) {
         if (isPmdActivated()) {
-            return getWarnings(job, new PmdHandler());
+            return getWarnings(job, getTool(AnalysisDescriptor.PMD));
         }
         return NO_RESULTS_FOUND;
     }
@@ -199,7 +347,7 @@ public class WarningsAggregator {
      */
     public String getTasks(final Job<?, ?> job) {
         if (isOpenTasksActivated()) {
-            return getWarnings(job, new TasksHandler());
+            return getWarnings(job, getTool(AnalysisDescriptor.TASKS));
         }
         return NO_RESULTS_FOUND;
     }
@@ -213,7 +361,7 @@ public class WarningsAggregator {
      */
     public String getCompilerWarnings(final Job<?, ?> job) {
         if (isWarningsActivated()) {
-            return getWarnings(job, new WarningsHandler());
+            return getWarnings(job, getTool(AnalysisDescriptor.WARNINGS));
         }
         return NO_RESULTS_FOUND;
     }
@@ -227,7 +375,7 @@ public class WarningsAggregator {
      */
     public String getAndroidLint(final Job<?, ?> job) {
         if (isAndroidLintActivated()) {
-            return getWarnings(job, new AndroidLintHandler());
+            return getWarnings(job, getTool(AnalysisDescriptor.ANDROID_LINT));
         }
         return NO_RESULTS_FOUND;
     }
@@ -240,13 +388,7 @@ public class WarningsAggregator {
      * @return the number of warnings
      */
     public String getTotal(final Job<?, ?> job) {
-        return String.valueOf(toInt(getCheckStyle(job))
-                + toInt(getDry(job))
-                + toInt(getFindBugs(job))
-                + toInt(getPmd(job))
-                + toInt(getTasks(job))
-                + toInt(getCompilerWarnings(job))
-                + toInt(getAndroidLint(job)));
+        return String.valueOf(getCount(job).getTotal());
     }
 
     /**
@@ -255,24 +397,15 @@ public class WarningsAggregator {
      *
      * @param job
      *            the job to get the action from
-     * @param handler
-     *            the analysis plug-in handler
+     * @param tool
+     *            the analysis plug-in
      * @return the number of warnings
      */
-    @SuppressWarnings("NP")
-    private String getWarnings(final Job<?, ?> job, final AnalysisHandler handler) {
-        AbstractProjectAction<?> action = job.getAction(handler.getProjectActionType());
-        if (action != null && action.hasValidResults()) {
-            BuildResult result = action.getLastAction().getResult();
-            int numberOfAnnotations = result.getNumberOfAnnotations();
-            String value;
-            if (numberOfAnnotations > 0) {
-                value = String.format("<a href=\"%s%s\">%d</a>", getJobPrefix(job), handler.getUrl(), numberOfAnnotations);
-            }
-            else {
-                value = String.valueOf(numberOfAnnotations);
-            }
-            if (result.isSuccessfulTouched() && !result.isSuccessful()) {
+    private String getWarnings(final Job<?, ?> job, final Tool tool) {
+        BuildResult result = getLastResult(job, tool);
+        if (result != null) {
+            String value = formatNumber(job, tool, result.getNumberOfAnnotations());
+            if (getUnsuccessfulResult(result) != null) {
                 return value + result.getResultIcon();
             }
             return value;
@@ -280,6 +413,25 @@ public class WarningsAggregator {
         return NO_RESULTS_FOUND;
     }
 
+    @SuppressWarnings("NP")
+    private BuildResult getLastResult(final Job<?, ?> job, final Tool tool) {
+        if (tool == null) {
+            return null;
+        }
+        AbstractProjectAction<?> action = job.getAction(tool.getProjectActionType());
+        if (action != null && action.hasValidResults()) {
+            return action.getLastAction().getResult();
+        }
+        return null;
+    }
+
+    private Result getUnsuccessfulResult(final BuildResult result) {
+        if (result.isSuccessfulTouched() && !result.isSuccessful()) {
+            return result.getPluginResult();
+        }
+        return null;
+    }
+
     private String getJobPrefix(final Job<?, ?> job) {
         return hideJobPrefix ? StringUtils.EMPTY : job.getUrl();
     }
@@ -293,7 +445,7 @@ public class WarningsAggregator {
      */
     public boolean hasCheckStyle(final Job<?, ?> job) {
         if (isCheckStyleActivated()) {
-            return hasAction(job, new CheckStyleHandler());
+            return hasAction(job, getTool(AnalysisDescriptor.CHECKSTYLE));
         }
         return false;
     }
@@ -307,7 +459,7 @@ public class WarningsAggregator {
      */
     public boolean hasDry(final Job<?, ?> job) {
         if (isDryActivated()) {
-            return hasAction(job, new DryHandler());
+            return hasAction(job, getTool(AnalysisDescriptor.DRY));
         }
         return false;
     }
@@ -321,7 +473,7 @@ public class WarningsAggregator {
      */
     public boolean hasFindBugs(final Job<?, ?> job) {
         if (isFindBugsActivated()) {
-            return hasAction(job, new FindBugsHandler());
+            return hasAction(job, getTool(AnalysisDescriptor.FINDBUGS));
         }
         return false;
     }
@@ -335,7 +487,7 @@ public class WarningsAggregator {
      */
     public boolean hasPmd(final Job<?, ?> job) {
         if (isPmdActivated()) {
-            return hasAction(job, new PmdHandler());
+            return hasAction(job, getTool(AnalysisDescriptor.PMD));
         }
         return false;
     }
@@ -349,7 +501,7 @@ public class WarningsAggregator {
      */
     public boolean hasTasks(final Job<?, ?> job) {
         if (isOpenTasksActivated()) {
-            return hasAction(job, new TasksHandler());
+            return hasAction(job, getTool(AnalysisDescriptor.TASKS));
         }
         return false;
     }
@@ -363,7 +515,7 @@ public class WarningsAggregator {
      */
     public boolean hasCompilerWarnings(final Job<?, ?> job) {
         if (isWarningsActivated()) {
-            return hasAction(job, new WarningsHandler());
+            return hasAction(job, getTool(AnalysisDescriptor.WARNINGS));
         }
         return false;
     }
@@ -377,13 +529,16 @@ public class WarningsAggregator {
      */
     public boolean hasAndroidLint(final Job<?, ?> job) {
         if (isAndroidLintActivated()) {
-            return hasAction(job, new AndroidLintHandler());
+            return hasAction(job, getTool(AnalysisDescriptor.ANDROID_LINT));
         }
         return false;
     }
 
-    private boolean hasAction(final Job<?, ?> job, final AnalysisHandler handler) {
-        AbstractProjectAction<?> action = job.getAction(handler.getProjectActionType());
+    private boolean hasAction(final Job<?, ?> job, final Tool tool) {
+        if (tool == null) {
+            return false;
+        }
+        AbstractProjectAction<?> action = job.getAction(tool.getProjectActionType());
 
         return action != null && action.hasValidResults();
     }
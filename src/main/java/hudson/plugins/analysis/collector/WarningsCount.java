@@ -0,0 +1,181 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.Arrays;
+
+import hudson.model.Result;
+
+/**
+ * Immutable snapshot of the number of warnings of a job, separated by the participating analysis plug-ins. The
+ * plug-ins are identified by the origin of their annotations, the snapshot contains the plug-ins of the
+ * {@link HandlerRegistry} at the time the snapshot has been created.
+ *
+ * @see WarningsAggregator#getCount(hudson.model.Job)
+ */
+public final class WarningsCount {
+    /** Number of warnings of a plug-in that is not activated or has no results. */
+    public static final int NO_RESULTS = -1;
+
+    /** Snapshot without any results. */
+    static final WarningsCount EMPTY = new WarningsCount(new String[0], new int[0], new Result[0]);
+
+    private final String[] origins;
+    private final int[] counts;
+    private final Result[] results;
+    private final int total;
+    private final boolean isStable;
+
+    /**
+     * Creates a new instance of {@link WarningsCount}.
+     *
+     * @param origins
+     *            the origins of the annotations of the plug-ins
+     * @param counts
+     *            the number of warnings of each plug-in, {@link #NO_RESULTS} if a plug-in has no results
+     * @param results
+     *            the results of plug-ins that are not successful, <code>null</code> for plug-ins that are
+     *            successful or have not evaluated their result
+     */
+    WarningsCount(final String[] origins, final int[] counts, final Result[] results) {
+        this.origins = Arrays.copyOf(origins, origins.length);
+        this.counts = Arrays.copyOf(counts, origins.length);
+        this.results = Arrays.copyOf(results, origins.length);
+
+        int sum = 0;
+        boolean stable = true;
+        for (int tool = 0; tool < origins.length; tool++) {
+            if (counts[tool] > 0) {
+                sum += counts[tool];
+            }
+            stable &= results[tool] == null;
+        }
+        total = sum;
+        isStable = stable;
+    }
+
+    /**
+     * Creates the counts of plug-ins without results.
+     *
+     * @param numberOfTools
+     *            the number of plug-ins
+     * @return the counts, {@link #NO_RESULTS} for each plug-in
+     */
+    static int[] createEmptyCounts(final int numberOfTools) {
+        int[] counts = new int[numberOfTools];
+        Arrays.fill(counts, NO_RESULTS);
+        return counts;
+    }
+
+    /**
+     * Returns the number of Checkstyle warnings.
+     *
+     * @return the number of Checkstyle warnings or {@link #NO_RESULTS}
+     */
+    public int getCheckStyle() {
+        return getCount(AnalysisDescriptor.CHECKSTYLE);
+    }
+
+    /**
+     * Returns the number of duplicate code warnings.
+     *
+     * @return the number of duplicate code warnings or {@link #NO_RESULTS}
+     */
+    public int getDry() {
+        return getCount(AnalysisDescriptor.DRY);
+    }
+
+    /**
+     * Returns the number of FindBugs warnings.
+     *
+     * @return the number of FindBugs warnings or {@link #NO_RESULTS}
+     */
+    public int getFindBugs() {
+        return getCount(AnalysisDescriptor.FINDBUGS);
+    }
+
+    /**
+     * Returns the number of PMD warnings.
+     *
+     * @return the number of PMD warnings or {@link #NO_RESULTS}
+     */
+    public int getPmd() {
+        return getCount(AnalysisDescriptor.PMD);
+    }
+
+    /**
+     * Returns the number of open tasks.
+     *
+     * @return the number of open tasks or {@link #NO_RESULTS}
+     */
+    public int getTasks() {
+        return getCount(AnalysisDescriptor.TASKS);
+    }
+
+    /**
+     * Returns the number of compiler warnings.
+     *
+     * @return the number of compiler warnings or {@link #NO_RESULTS}
+     */
+    public int getCompilerWarnings() {
+        return getCount(AnalysisDescriptor.WARNINGS);
+    }
+
+    /**
+     * Returns the number of Android lint warnings.
+     *
+     * @return the number of Android lint warnings or {@link #NO_RESULTS}
+     */
+    public int getAndroidLint() {
+        return getCount(AnalysisDescriptor.ANDROID_LINT);
+    }
+
+    /**
+     * Returns the total number of warnings of all plug-ins.
+     *
+     * @return the total number of warnings
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns whether the results of all plug-ins are successful.
+     *
+     * @return <code>true</code> if all results are successful, <code>false</code> otherwise
+     */
+    public boolean isStable() {
+        return isStable;
+    }
+
+    /**
+     * Returns the number of warnings of the specified plug-in.
+     *
+     * @param origin
+     *            the origin of the annotations of the plug-in
+     * @return the number of warnings or {@link #NO_RESULTS}
+     */
+    public int getCount(final String origin) {
+        int tool = indexOf(origin);
+        return tool < 0 ? NO_RESULTS : counts[tool];
+    }
+
+    /**
+     * Returns the result of the specified plug-in if the plug-in is not successful.
+     *
+     * @param origin
+     *            the origin of the annotations of the plug-in
+     * @return the result or <code>null</code> if the plug-in is successful or has no results
+     */
+    Result getResult(final String origin) {
+        int tool = indexOf(origin);
+        return tool < 0 ? null : results[tool];
+    }
+
+    private int indexOf(final String origin) {
+        for (int tool = 0; tool < origins.length; tool++) {
+            if (origins[tool].equals(origin)) {
+                return tool;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,21 +1,23 @@
 package hudson.plugins.analysis.collector;
 
-import org.jvnet.localizer.Localizable;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerResponse;
 
 import jenkins.model.Jenkins;
 
 import hudson.Extension;
 import hudson.model.Job;
-import hudson.plugins.analysis.collector.handler.AnalysisHandler;
-import hudson.plugins.analysis.collector.handler.AndroidLintHandler;
-import hudson.plugins.analysis.collector.handler.CheckStyleHandler;
-import hudson.plugins.analysis.collector.handler.DryHandler;
-import hudson.plugins.analysis.collector.handler.FindBugsHandler;
-import hudson.plugins.analysis.collector.handler.PmdHandler;
-import hudson.plugins.analysis.collector.handler.TasksHandler;
-import hudson.plugins.analysis.collector.handler.WarningsHandler;
-import hudson.plugins.analysis.core.PluginDescriptor;
+import hudson.model.RootAction;
 import hudson.plugins.analysis.util.HtmlPrinter;
 import hudson.views.ListViewColumnDescriptor;
 
@@ -124,7 +126,18 @@ public class WarningsCountColumn extends hudson.plugins.analysis.views.WarningsC
      * @return the total number of annotations
      */
     public String getNumberOfAnnotations(final Job<?, ?> project) {
-        return warningsAggregator.getTotal(project);
+        return String.valueOf(getCount(project).getTotal());
+    }
+
+    /**
+     * Returns the number of warnings of the activated plug-ins for the selected job.
+     *
+     * @param project
+     *            the selected project
+     * @return the number of warnings
+     */
+    public WarningsCount getCount(final Job<?, ?> project) {
+        return warningsAggregator.getCount(project);
     }
 
     @Override
@@ -132,6 +145,31 @@ public class WarningsCountColumn extends hudson.plugins.analysis.views.WarningsC
         return AnalysisProjectAction.class;
     }
 
+    /**
+     * Returns the URL of the number of warnings for the specified job separated by each plug-in. The details are
+     * loaded when the user hovers over the column.
+     *
+     * @param job
+     *            the job to get the warnings for
+     * @return the URL of the details, relative to the root URL
+     * @see DetailsAction
+     */
+    public String getDetailsUrl(final Job<?, ?> job) {
+        List<String> tools = new ArrayList<String>();
+        for (HandlerRegistry.Tool tool : HandlerRegistry.getInstance().getTools()) {
+            if (warningsAggregator.isActivated(tool)) {
+                tools.add(tool.getOrigin());
+            }
+        }
+        try {
+            return DetailsAction.URL + "/details?tools=" + URLEncoder.encode(StringUtils.join(tools, ','), "UTF-8")
+                    + "&job=" + URLEncoder.encode(job.getFullName(), "UTF-8");
+        }
+        catch (UnsupportedEncodingException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
     /**
      * Returns the number of warnings for the specified job separated by each plug-in.
      *
@@ -140,43 +178,73 @@ public class WarningsCountColumn extends hudson.plugins.analysis.views.WarningsC
      * @return the number of warnings, formatted as HTML string
      */
     public String getDetails(final Job<?, ?> job) {
+        return createDetails(warningsAggregator, job);
+    }
+
+    private static String createDetails(final WarningsAggregator aggregator, final Job<?, ?> job) {
         HtmlPrinter printer = new HtmlPrinter();
         printer.append("<table>");
-        if (isCheckStyleActivated()) {
-            printLine(printer, new CheckStyleHandler(), warningsAggregator.getCheckStyle(job));
-        }
-        if (isDryActivated()) {
-            printLine(printer, new DryHandler(), warningsAggregator.getDry(job));
-        }
-        if (isFindBugsActivated()) {
-            printLine(printer, new FindBugsHandler(), warningsAggregator.getFindBugs(job));
-        }
-        if (isPmdActivated()) {
-            printLine(printer, new PmdHandler(), warningsAggregator.getPmd(job));
-        }
-        if (isOpenTasksActivated()) {
-            printLine(printer, new TasksHandler(), warningsAggregator.getTasks(job));
-        }
-        if (isWarningsActivated()) {
-            printLine(printer, new WarningsHandler(), warningsAggregator.getCompilerWarnings(job));
-        }
-        if (isAndroidLintActivated()) {
-            printLine(printer, new AndroidLintHandler(), warningsAggregator.getAndroidLint(job));
+        WarningsCount count = aggregator.getCount(job);
+        for (HandlerRegistry.Tool tool : HandlerRegistry.getInstance().getTools()) {
+            if (aggregator.isActivated(tool)) {
+                printer.append(printer.line(tool.getIcon() + tool.getHandler().getDetailHeader() + ": "
+                        + aggregator.format(job, count, tool)));
+            }
         }
         printer.append("</table>");
         return printer.toString();
     }
 
-    private void printLine(final HtmlPrinter printer, final AnalysisHandler handler, final String warnings) {
-        printLine(printer, handler.getDetailHeader(), warnings, handler.getDescriptor());
-    }
+    /**
+     * Provides the number of warnings of a job separated by each plug-in for the tooltip of the column.
+     */
+    @Extension
+    public static class DetailsAction implements RootAction {
+        /** URL of this action. */
+        static final String URL = "analysis-column";
+
+        @Override
+        public String getIconFileName() {
+            return null;
+        }
 
-    private void printLine(final HtmlPrinter printer, final Localizable header, final String warnings,
-            final Class<? extends PluginDescriptor> descriptor) {
-        PluginDescriptor pluginDescriptor = Jenkins.getInstance().getDescriptorByType(descriptor);
-        String image = "<img hspace=\"10\" align=\"absmiddle\" width=\"24\" height=\"24\" src=\""
-                + Jenkins.RESOURCE_PATH + pluginDescriptor.getIconUrl() + "\"/>";
-        printer.append(printer.line(image + header + ": " + warnings));
+        @Override
+        public String getDisplayName() {
+            return null;
+        }
+
+        @Override
+        public String getUrlName() {
+            return URL;
+        }
+
+        /**
+         * Sends the number of warnings of a job separated by each plug-in as HTML table.
+         *
+         * @param job
+         *            the full name of the job
+         * @param tools
+         *            the activated plug-ins, i.e. the comma separated origins of their annotations
+         * @param response
+         *            Stapler response
+         * @throws IOException
+         *             in case of an error
+         */
+        public void doDetails(@QueryParameter final String job, @QueryParameter final String tools,
+                final StaplerResponse response) throws IOException {
+            Job<?, ?> item = Jenkins.getInstance().getItemByFullName(job, Job.class);
+            if (item == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            InstalledTools activated = InstalledTools.NONE;
+            for (String origin : StringUtils.split(StringUtils.defaultString(tools), ',')) {
+                activated = activated.with(origin);
+            }
+            WarningsAggregator aggregator = activated.createAggregator();
+            response.setContentType("text/html;charset=UTF-8");
+            response.getWriter().print(createDetails(aggregator, item));
+        }
     }
 
     /**
@@ -0,0 +1,218 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+
+/**
+ * Instance wide index of the latest number of warnings of each job. The index contains the counts of all installed
+ * analysis plug-ins and is keyed by the full name of the job. It is updated whenever a build has been finalized or
+ * deleted and rebuilt in the background after the jobs have been loaded. Columns and portlets read the counts from
+ * this index and therefore do not need to load any build records. Each count is stored with the number of the build
+ * it has been computed for, so a count that has been computed concurrently for an older build never replaces the
+ * count of a newer build.
+ */
+public final class WarningsCountIndex {
+    private static final Logger LOGGER = Logger.getLogger(WarningsCountIndex.class.getName());
+    private static final WarningsCountIndex INSTANCE = new WarningsCountIndex(new Counter() {
+        @Override
+        public WarningsCount computeCount(final Job<?, ?> job) {
+            return AnalysisDescriptor.getInstalledTools().createAggregator().computeCount(job);
+        }
+    });
+
+    private final ConcurrentMap<String, Entry> countsByJob = new ConcurrentHashMap<String, Entry>();
+    private final Counter counter;
+
+    /**
+     * Returns the singleton instance of the index.
+     *
+     * @return the index
+     */
+    public static WarningsCountIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Creates a new instance of {@link WarningsCountIndex}.
+     *
+     * @param counter
+     *            computes the number of warnings of a job
+     */
+    WarningsCountIndex(final Counter counter) {
+        this.counter = counter;
+    }
+
+    /**
+     * Returns the number of warnings of all installed plug-ins for the specified job. If the job is not yet part of
+     * the index, then the counts are computed and stored.
+     *
+     * @param job
+     *            the job to get the warnings for
+     * @return the number of warnings
+     */
+    public WarningsCount get(final Job<?, ?> job) {
+        Entry entry = countsByJob.get(job.getFullName());
+        if (entry == null) {
+            return update(job, getLastBuildNumber(job));
+        }
+        return entry.count;
+    }
+
+    /**
+     * Computes and stores the number of warnings of the specified job. If the index already contains the count of
+     * a newer build, then the index is not changed.
+     *
+     * @param job
+     *            the job to update
+     * @param buildNumber
+     *            the number of the last build of the job
+     * @return the number of warnings
+     */
+    WarningsCount update(final Job<?, ?> job, final int buildNumber) {
+        WarningsCount count = counter.computeCount(job);
+        store(job.getFullName(), new Entry(buildNumber, count));
+        return count;
+    }
+
+    private void store(final String fullName, final Entry entry) {
+        while (true) {
+            Entry current = countsByJob.putIfAbsent(fullName, entry);
+            if (current == null || current.buildNumber > entry.buildNumber
+                    || countsByJob.replace(fullName, current, entry)) {
+                return;
+            }
+        }
+    }
+
+    private static int getLastBuildNumber(final Job<?, ?> job) {
+        Run<?, ?> lastBuild = job.getLastCompletedBuild();
+        return lastBuild == null ? 0 : lastBuild.getNumber();
+    }
+
+    /**
+     * Removes the specified job from the index.
+     *
+     * @param fullName
+     *            the full name of the job
+     */
+    void invalidate(final String fullName) {
+        countsByJob.remove(fullName);
+    }
+
+    /**
+     * Rebuilds the index for all jobs of this instance.
+     */
+    void rebuild() {
+        rebuild(Jenkins.getInstance().getAllItems(Job.class));
+    }
+
+    /**
+     * Rebuilds the index for the specified jobs. Counts of builds that have been finalized while the index is
+     * rebuilt are not replaced.
+     *
+     * @param jobs
+     *            the jobs to index
+     */
+    @SuppressWarnings("rawtypes")
+    void rebuild(final Iterable<? extends Job> jobs) {
+        for (Job<?, ?> job : jobs) {
+            update(job, getLastBuildNumber(job));
+        }
+    }
+
+    /**
+     * Rebuilds the index in the background after all jobs have been loaded.
+     */
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void rebuildInBackground() {
+        Timer.get().submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    getInstance().rebuild();
+                }
+                catch (RuntimeException exception) {
+                    LOGGER.log(Level.WARNING, "Failed to build the index of the number of warnings", exception);
+                }
+            }
+        });
+    }
+
+    /**
+     * Updates the index when builds are finalized or deleted.
+     */
+    @Extension
+    public static class IndexRunListener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onFinalized(final Run<?, ?> run) {
+            getInstance().update(run.getParent(), run.getNumber());
+        }
+
+        @Override
+        public void onDeleted(final Run<?, ?> run) {
+            getInstance().invalidate(run.getParent().getFullName());
+        }
+    }
+
+    /**
+     * Updates the index when jobs are renamed or deleted.
+     */
+    @Extension
+    public static class IndexItemListener extends ItemListener {
+        @Override
+        public void onDeleted(final Item item) {
+            if (item instanceof Job) {
+                getInstance().invalidate(item.getFullName());
+            }
+        }
+
+        @Override
+        public void onLocationChanged(final Item item, final String oldFullName, final String newFullName) {
+            if (item instanceof Job) {
+                getInstance().invalidate(oldFullName);
+                getInstance().invalidate(newFullName);
+            }
+        }
+    }
+
+    /**
+     * Computes the number of warnings of a job.
+     */
+    interface Counter {
+        /**
+         * Computes the number of warnings of the specified job.
+         *
+         * @param job
+         *            the job
+         * @return the number of warnings
+         */
+        WarningsCount computeCount(Job<?, ?> job);
+    }
+
+    /**
+     * Number of warnings of a job and the number of the build they have been computed for.
+     */
+    private static class Entry {
+        private final int buildNumber;
+        private final WarningsCount count;
+
+        Entry(final int buildNumber, final WarningsCount count) {
+            this.buildNumber = buildNumber;
+            this.count = count;
+        }
+    }
+}
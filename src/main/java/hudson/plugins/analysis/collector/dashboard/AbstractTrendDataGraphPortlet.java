@@ -0,0 +1,50 @@
+package hudson.plugins.analysis.collector.dashboard;
+
+import java.io.IOException;
+
+import org.apache.commons.lang.math.NumberUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import hudson.plugins.analysis.collector.TrendData;
+import hudson.plugins.analysis.dashboard.AbstractWarningsGraphPortlet;
+
+/**
+ * A portlet that shows a trend graph of the jobs of the dashboard and provides the aggregated series of the trend as
+ * JSON.
+ */
+public abstract class AbstractTrendDataGraphPortlet extends AbstractWarningsGraphPortlet {
+    /**
+     * Creates a new instance of {@link AbstractTrendDataGraphPortlet}.
+     *
+     * @param name
+     *            the name of the portlet
+     * @param width
+     *            width of the graph
+     * @param height
+     *            height of the graph
+     * @param dayCountString
+     *            number of days to consider
+     */
+    public AbstractTrendDataGraphPortlet(final String name, final String width, final String height,
+            final String dayCountString) {
+        super(name, width, height, dayCountString);
+    }
+
+    /**
+     * Sends the aggregated series of the trend of the jobs of the dashboard as JSON. Unless the request specifies
+     * the range of days, the trend covers the configured number of days.
+     *
+     * @param request
+     *            Stapler request
+     * @param response
+     *            Stapler response
+     * @throws IOException
+     *             in case of an error
+     * @see TrendData
+     */
+    public void doTrendData(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        TrendData.writeDashboardTrend(getDashboard().getJobs(), NumberUtils.toInt(getDayCountString()), request,
+                response);
+    }
+}
@@ -7,7 +7,6 @@ import hudson.plugins.analysis.collector.AnalysisProjectAction;
 import hudson.plugins.analysis.collector.Messages;
 import hudson.plugins.analysis.collector.OriginGraph;
 import hudson.plugins.analysis.core.AbstractProjectAction;
-import hudson.plugins.analysis.dashboard.AbstractWarningsGraphPortlet;
 import hudson.plugins.analysis.graph.BuildResultGraph;
 import hudson.plugins.view.dashboard.DashboardPortlet;
 
@@ -18,7 +17,7 @@ import org.kohsuke.stapler.DataBoundConstructor;
  *
  * @author Ulli Hafner
  */
-public final class WarningsOriginGraphPortlet extends AbstractWarningsGraphPortlet {
+public final class WarningsOriginGraphPortlet extends AbstractTrendDataGraphPortlet {
     private final boolean isCheckStyleDeactivated;
     private final boolean isDryDeactivated;
     private final boolean isFindBugsDeactivated;
@@ -4,10 +4,9 @@ import hudson.Extension;
 import hudson.model.Descriptor;
 import hudson.plugins.analysis.collector.AnalysisProjectAction;
 import hudson.plugins.analysis.collector.Messages;
+import hudson.plugins.analysis.collector.RollupGraphs;
 import hudson.plugins.analysis.core.AbstractProjectAction;
-import hudson.plugins.analysis.dashboard.AbstractWarningsGraphPortlet;
 import hudson.plugins.analysis.graph.BuildResultGraph;
-import hudson.plugins.analysis.graph.PriorityGraph;
 import hudson.plugins.view.dashboard.DashboardPortlet;
 
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -17,7 +16,7 @@ import org.kohsuke.stapler.DataBoundConstructor;
  *
  * @author Ulli Hafner
  */
-public final class WarningsPriorityGraphPortlet extends AbstractWarningsGraphPortlet {
+public final class WarningsPriorityGraphPortlet extends AbstractTrendDataGraphPortlet {
     /**
      * Creates a new instance of {@link WarningsPriorityGraphPortlet}.
      *
@@ -49,7 +48,7 @@ public final class WarningsPriorityGraphPortlet extends AbstractWarningsGraphPor
 
     @Override
     protected BuildResultGraph getGraphType() {
-        return new PriorityGraph();
+        return new RollupGraphs.Priorities();
     }
 
     /**
@@ -0,0 +1,254 @@
+package hudson.plugins.analysis.collector.dashboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import hudson.model.Job;
+import hudson.plugins.analysis.collector.AnalysisDescriptor;
+import hudson.plugins.analysis.collector.WarningsCount;
+
+/**
+ * Rows and column totals of the {@link WarningsTablePortlet}. The model is created in a single pass over the jobs of
+ * the dashboard, i.e. the results of each job are read only once per rendering.
+ */
+public class WarningsTableModel {
+    private final List<Row> rows = new ArrayList<Row>();
+
+    private int checkStyle;
+    private int dry;
+    private int findBugs;
+    private int pmd;
+    private int tasks;
+    private int compilerWarnings;
+    private int androidLint;
+    private int total;
+
+    /**
+     * Adds the specified job to the totals of this table.
+     *
+     * @param count
+     *            the number of warnings of the job
+     */
+    void addToTotals(final WarningsCount count) {
+        checkStyle += Math.max(0, count.getCheckStyle());
+        dry += Math.max(0, count.getDry());
+        findBugs += Math.max(0, count.getFindBugs());
+        pmd += Math.max(0, count.getPmd());
+        tasks += Math.max(0, count.getTasks());
+        compilerWarnings += Math.max(0, count.getCompilerWarnings());
+        androidLint += Math.max(0, count.getAndroidLint());
+        total += count.getTotal();
+    }
+
+    /**
+     * Adds the specified row to this table.
+     *
+     * @param row
+     *            the row to add
+     */
+    void addRow(final Row row) {
+        rows.add(row);
+    }
+
+    /**
+     * Returns the visible rows of this table.
+     *
+     * @return the rows
+     */
+    public List<Row> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * Returns the total number of Checkstyle warnings of all jobs.
+     *
+     * @return the number of Checkstyle warnings
+     */
+    public int getCheckStyle() {
+        return checkStyle;
+    }
+
+    /**
+     * Returns the total number of duplicate code warnings of all jobs.
+     *
+     * @return the number of duplicate code warnings
+     */
+    public int getDry() {
+        return dry;
+    }
+
+    /**
+     * Returns the total number of FindBugs warnings of all jobs.
+     *
+     * @return the number of FindBugs warnings
+     */
+    public int getFindBugs() {
+        return findBugs;
+    }
+
+    /**
+     * Returns the total number of PMD warnings of all jobs.
+     *
+     * @return the number of PMD warnings
+     */
+    public int getPmd() {
+        return pmd;
+    }
+
+    /**
+     * Returns the total number of open tasks of all jobs.
+     *
+     * @return the number of open tasks
+     */
+    public int getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns the total number of compiler warnings of all jobs.
+     *
+     * @return the number of compiler warnings
+     */
+    public int getCompilerWarnings() {
+        return compilerWarnings;
+    }
+
+    /**
+     * Returns the total number of Android lint warnings of all jobs.
+     *
+     * @return the number of Android lint warnings
+     */
+    public int getAndroidLint() {
+        return androidLint;
+    }
+
+    /**
+     * Returns the total number of warnings of all jobs.
+     *
+     * @return the number of warnings
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * A row of the table: the HTML cells of a single job.
+     */
+    public static class Row {
+        private final Job<?, ?> job;
+        private final String url;
+        private final int total;
+        private final Map<String, String> cells;
+
+        /**
+         * Creates a new instance of {@link Row}.
+         *
+         * @param job
+         *            the job of this row
+         * @param url
+         *            the URL of the collector results of the job
+         * @param total
+         *            the total number of warnings of the job
+         * @param cells
+         *            the HTML cells of the plug-ins, mapped by the origins of their annotations
+         */
+        Row(final Job<?, ?> job, final String url, final int total, final Map<String, String> cells) {
+            this.job = job;
+            this.url = url;
+            this.total = total;
+            this.cells = cells;
+        }
+
+        /**
+         * Returns the job of this row.
+         *
+         * @return the job
+         */
+        public Job<?, ?> getJob() {
+            return job;
+        }
+
+        /**
+         * Returns the URL of the collector results of the job.
+         *
+         * @return the URL, relative to the root URL
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Returns the total number of warnings of the job.
+         *
+         * @return the number of warnings
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Returns the HTML cell with the Checkstyle warnings of the job.
+         *
+         * @return the Checkstyle cell
+         */
+        public String getCheckStyle() {
+            return cells.get(AnalysisDescriptor.CHECKSTYLE);
+        }
+
+        /**
+         * Returns the HTML cell with the duplicate code warnings of the job.
+         *
+         * @return the duplicate code cell
+         */
+        public String getDry() {
+            return cells.get(AnalysisDescriptor.DRY);
+        }
+
+        /**
+         * Returns the HTML cell with the FindBugs warnings of the job.
+         *
+         * @return the FindBugs cell
+         */
+        public String getFindBugs() {
+            return cells.get(AnalysisDescriptor.FINDBUGS);
+        }
+
+        /**
+         * Returns the HTML cell with the PMD warnings of the job.
+         *
+         * @return the PMD cell
+         */
+        public String getPmd() {
+            return cells.get(AnalysisDescriptor.PMD);
+        }
+
+        /**
+         * Returns the HTML cell with the open tasks of the job.
+         *
+         * @return the open tasks cell
+         */
+        public String getTasks() {
+            return cells.get(AnalysisDescriptor.TASKS);
+        }
+
+        /**
+         * Returns the HTML cell with the compiler warnings of the job.
+         *
+         * @return the compiler warnings cell
+         */
+        public String getCompilerWarnings() {
+            return cells.get(AnalysisDescriptor.WARNINGS);
+        }
+
+        /**
+         * Returns the HTML cell with the Android lint warnings of the job.
+         *
+         * @return the Android lint cell
+         */
+        public String getAndroidLint() {
+            return cells.get(AnalysisDescriptor.ANDROID_LINT);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package hudson.plugins.analysis.collector.dashboard;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -14,6 +15,7 @@ import hudson.plugins.analysis.collector.AnalysisDescriptor;
 import hudson.plugins.analysis.collector.AnalysisProjectAction;
 import hudson.plugins.analysis.collector.Messages;
 import hudson.plugins.analysis.collector.WarningsAggregator;
+import hudson.plugins.analysis.collector.WarningsCount;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.dashboard.AbstractWarningsTablePortlet;
 import hudson.plugins.view.dashboard.DashboardPortlet;
@@ -194,7 +196,39 @@ public class WarningsTablePortlet extends AbstractWarningsTablePortlet {
 
     @Override
     protected boolean isVisibleJob(final Job<?, ?> job) {
-        return toInt(getTotal(job)) > 0;
+        return warningsAggregator.getCount(job).getTotal() > 0;
+    }
+
+    /**
+     * Creates the rows and column totals of the table for the specified jobs. The results of each job are read only
+     * once.
+     *
+     * @param jobs
+     *            the jobs of the dashboard
+     * @return the table model
+     */
+    public WarningsTableModel createTable(final Collection<Job<?, ?>> jobs) {
+        WarningsTableModel table = new WarningsTableModel();
+        for (Job<?, ?> job : jobs) {
+            WarningsCount count = warningsAggregator.getCount(job);
+            table.addToTotals(count);
+            if (count.getTotal() > 0 || !getCanHideZeroWarningsProjects()) {
+                Map<String, String> cells = warningsAggregator.format(job, count);
+                for (Map.Entry<String, String> cell : cells.entrySet()) {
+                    cell.setValue(filterUrl(cell.getValue()));
+                }
+                table.addRow(new WarningsTableModel.Row(job, getUrl(job), count.getTotal(), cells));
+            }
+        }
+        return table;
+    }
+
+    private WarningsTableModel createTotals(final Collection<Job<?, ?>> jobs) {
+        WarningsTableModel table = new WarningsTableModel();
+        for (Job<?, ?> job : jobs) {
+            table.addToTotals(warningsAggregator.getCount(job));
+        }
+        return table;
     }
 
     /**
@@ -298,11 +332,7 @@ public class WarningsTablePortlet extends AbstractWarningsTablePortlet {
      * @return the number of Checkstyle warnings
      */
     public String getCheckStyle(final Collection<Job<?, ?>> jobs) {
-        int sum = 0;
-        for (Job<?, ?> job : jobs) {
-            sum += toInt(warningsAggregator.getCheckStyle(job));
-        }
-        return String.valueOf(sum);
+        return String.valueOf(createTotals(jobs).getCheckStyle());
     }
 
     /**
@@ -313,11 +343,7 @@ public class WarningsTablePortlet extends AbstractWarningsTablePortlet {
      * @return the number of Dry warnings
      */
     public String getDry(final Collection<Job<?, ?>> jobs) {
-        int sum = 0;
-        for (Job<?, ?> job : jobs) {
-            sum += toInt(warningsAggregator.getDry(job));
-        }
-        return String.valueOf(sum);
+        return String.valueOf(createTotals(jobs).getDry());
     }
 
     /**
@@ -328,11 +354,7 @@ public class WarningsTablePortlet extends AbstractWarningsTablePortlet {
      * @return the number of FindBugs warnings
      */
     public String getFindBugs(final Collection<Job<?, ?>> jobs) {
-        int sum = 0;
-        for (Job<?, ?> job : jobs) {
-            sum += toInt(warningsAggregator.getFindBugs(job));
-        }
-        return String.valueOf(sum);
+        return String.valueOf(createTotals(jobs).getFindBugs());
     }
 
     /**
@@ -343,11 +365,7 @@ public class WarningsTablePortlet extends AbstractWarningsTablePortlet {
      * @return the number of PMD warnings
      */
     public String getPmd(final Collection<Job<?, ?>> jobs) {
-        int sum = 0;
-        for (Job<?, ?> job : jobs) {
-            sum += toInt(warningsAggregator.getPmd(job));
-        }
-        return String.valueOf(sum);
+        return String.valueOf(createTotals(jobs).getPmd());
     }
 
     /**
@@ -358,11 +376,7 @@ public class WarningsTablePortlet extends AbstractWarningsTablePortlet {
      * @return the number of open tasks warnings
      */
     public String getTasks(final Collection<Job<?, ?>> jobs) {
-        int sum = 0;
-        for (Job<?, ?> job : jobs) {
-            sum += toInt(warningsAggregator.getTasks(job));
-        }
-        return String.valueOf(sum);
+        return String.valueOf(createTotals(jobs).getTasks());
     }
 
     /**
@@ -374,11 +388,7 @@ public class WarningsTablePortlet extends AbstractWarningsTablePortlet {
      */
     @Override
     public String getWarnings(final Collection<Job<?, ?>> jobs) {
-        int sum = 0;
-        for (Job<?, ?> job : jobs) {
-            sum += toInt(warningsAggregator.getCompilerWarnings(job));
-        }
-        return String.valueOf(sum);
+        return String.valueOf(createTotals(jobs).getCompilerWarnings());
     }
 
     /**
@@ -389,11 +399,7 @@ public class WarningsTablePortlet extends AbstractWarningsTablePortlet {
      * @return the number of Android lint warnings
      */
     public String getAndroidLint(final Collection<Job<?, ?>> jobs) {
-        int sum = 0;
-        for (Job<?, ?> job : jobs) {
-            sum += toInt(warningsAggregator.getAndroidLint(job));
-        }
-        return String.valueOf(sum);
+        return String.valueOf(createTotals(jobs).getAndroidLint());
     }
 
     /**
@@ -404,12 +410,7 @@ public class WarningsTablePortlet extends AbstractWarningsTablePortlet {
      * @return the total number of warnings
      */
     public String getTotal(final Collection<Job<?, ?>> jobs) {
-        int sum = 0;
-        for (Job<?, ?> job : jobs) {
-            sum += Integer.parseInt(warningsAggregator.getTotal(job));
-        }
-        return String.valueOf(sum);
-
+        return String.valueOf(createTotals(jobs).getTotal());
     }
 
     /**
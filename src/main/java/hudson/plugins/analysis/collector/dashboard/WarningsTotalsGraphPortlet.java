@@ -4,10 +4,9 @@ import hudson.Extension;
 import hudson.model.Descriptor;
 import hudson.plugins.analysis.collector.AnalysisProjectAction;
 import hudson.plugins.analysis.collector.Messages;
+import hudson.plugins.analysis.collector.RollupGraphs;
 import hudson.plugins.analysis.core.AbstractProjectAction;
-import hudson.plugins.analysis.dashboard.AbstractWarningsGraphPortlet;
 import hudson.plugins.analysis.graph.BuildResultGraph;
-import hudson.plugins.analysis.graph.TotalsGraph;
 import hudson.plugins.view.dashboard.DashboardPortlet;
 
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -17,7 +16,7 @@ import org.kohsuke.stapler.DataBoundConstructor;
  *
  * @author Ulli Hafner
  */
-public final class WarningsTotalsGraphPortlet extends AbstractWarningsGraphPortlet {
+public final class WarningsTotalsGraphPortlet extends AbstractTrendDataGraphPortlet {
     /**
      * Creates a new instance of {@link WarningsTotalsGraphPortlet}.
      *
@@ -49,7 +48,7 @@ public final class WarningsTotalsGraphPortlet extends AbstractWarningsGraphPortl
 
     @Override
     protected BuildResultGraph getGraphType() {
-        return new TotalsGraph();
+        return new RollupGraphs.Totals();
     }
 
     /**
@@ -7,6 +7,7 @@ import static hudson.plugins.analysis.collector.Messages.*;
 import hudson.Extension;
 import hudson.model.Descriptor;
 import hudson.plugins.analysis.collector.AnalysisProjectAction;
+import hudson.plugins.analysis.collector.ParallelAggregationGraph;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.dashboard.AbstractWarningsGraphPortlet;
 import hudson.plugins.analysis.graph.AnnotationsByUserGraph;
@@ -50,7 +51,7 @@ public final class WarningsUserGraphPortlet extends AbstractWarningsGraphPortlet
 
     @Override
     protected BuildResultGraph getGraphType() {
-        return new AnnotationsByUserGraph();
+        return ParallelAggregationGraph.withAnnotations(new AnnotationsByUserGraph());
     }
 
     /**
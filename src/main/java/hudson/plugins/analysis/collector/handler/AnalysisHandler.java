@@ -4,17 +4,20 @@ import java.util.Collection;
 
 import org.jvnet.localizer.Localizable;
 
+import hudson.ExtensionPoint;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.core.BuildResult;
 import hudson.plugins.analysis.core.PluginDescriptor;
 import hudson.plugins.analysis.core.ResultAction;
+import hudson.plugins.analysis.util.model.FileAnnotation;
 
 /**
- * Handles access to the individual plug-in results.
+ * Handles access to the individual plug-in results. Handlers are registered as extensions, so a handler is only
+ * loaded if its plug-in is installed. Handlers are singletons, so the returned values should be created only once.
  *
  * @author Ulli Hafner
  */
-public interface AnalysisHandler {
+public interface AnalysisHandler extends ExtensionPoint {
     /**
      * Returns the class of the project action of the plug-in.
      *
@@ -29,6 +32,20 @@ public interface AnalysisHandler {
      */
     String getUrl();
 
+    /**
+     * Returns the origin of the annotations of the plug-in, see {@link FileAnnotation#getOrigin()}.
+     *
+     * @return the origin key
+     */
+    String getOrigin();
+
+    /**
+     * Returns the label of the origin of the annotations of the plug-in.
+     *
+     * @return localized label of the origin
+     */
+    Localizable getOriginLabel();
+
     /**
      * Returns the header of the plug-in details.
      *
@@ -1,6 +1,6 @@
 package hudson.plugins.analysis.collector.handler;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableList;
 
 import org.jenkinsci.plugins.android_lint.LintDescriptor;
 import org.jenkinsci.plugins.android_lint.LintMavenResultAction;
@@ -11,6 +11,8 @@ import org.jvnet.localizer.Localizable;
 
 import java.util.Collection;
 
+import hudson.Extension;
+import hudson.plugins.analysis.collector.AnalysisDescriptor;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.core.BuildResult;
 import hudson.plugins.analysis.core.PluginDescriptor;
@@ -19,7 +21,11 @@ import hudson.plugins.analysis.core.ResultAction;
 /**
  * Handles access to the Android Lint plug-in.
  */
+@Extension(optional = true)
 public class AndroidLintHandler implements AnalysisHandler {
+    private static final Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> RESULT_ACTIONS
+            = ImmutableList.of(LintResultAction.class, LintMavenResultAction.class);
+
     @Override
     public Class<? extends AbstractProjectAction<?>> getProjectActionType() {
         return LintProjectAction.class;
@@ -30,6 +36,16 @@ public class AndroidLintHandler implements AnalysisHandler {
         return "androidLint";
     }
 
+    @Override
+    public String getOrigin() {
+        return AnalysisDescriptor.ANDROID_LINT; // LintAnnotation.ORIGIN is private
+    }
+
+    @Override
+    public Localizable getOriginLabel() {
+        return hudson.plugins.analysis.collector.Messages._Analysis_AndroidLint_Warning_Origin();
+    }
+
     @Override
     public Localizable getDetailHeader() {
         return Messages._AndroidLint_Warnings_ColumnHeader();
@@ -42,6 +58,6 @@ public class AndroidLintHandler implements AnalysisHandler {
 
     @Override
     public Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> getResultActions() {
-        return Lists.newArrayList(LintResultAction.class, LintMavenResultAction.class);
+        return RESULT_ACTIONS;
     }
 }
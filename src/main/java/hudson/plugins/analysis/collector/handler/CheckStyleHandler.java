@@ -4,21 +4,27 @@ import java.util.Collection;
 
 import org.jvnet.localizer.Localizable;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableList;
 
+import hudson.Extension;
 import hudson.plugins.analysis.collector.AnalysisDescriptor;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.core.BuildResult;
 import hudson.plugins.analysis.core.PluginDescriptor;
 import hudson.plugins.analysis.core.ResultAction;
 import hudson.plugins.checkstyle.*;
+import hudson.plugins.checkstyle.parser.Warning;
 
 /**
  * Handles access to the Checkstyle plug-in.
  *
  * @author Ulli Hafner
  */
+@Extension(optional = true)
 public class CheckStyleHandler implements AnalysisHandler {
+    private static final Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> RESULT_ACTIONS
+            = ImmutableList.of(CheckStyleResultAction.class, CheckStyleMavenResultAction.class);
+
     @Override
     public Class<? extends AbstractProjectAction<?>> getProjectActionType() {
         return CheckStyleProjectAction.class;
@@ -29,6 +35,16 @@ public class CheckStyleHandler implements AnalysisHandler {
         return AnalysisDescriptor.CHECKSTYLE;
     }
 
+    @Override
+    public String getOrigin() {
+        return Warning.ORIGIN;
+    }
+
+    @Override
+    public Localizable getOriginLabel() {
+        return hudson.plugins.analysis.collector.Messages._Analysis_Checkstyle_Warning_Origin();
+    }
+
     @Override
     public Localizable getDetailHeader() {
         return Messages._Checkstyle_Detail_header();
@@ -41,6 +57,6 @@ public class CheckStyleHandler implements AnalysisHandler {
 
     @Override
     public Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> getResultActions() {
-        return Lists.newArrayList(CheckStyleResultAction.class, CheckStyleMavenResultAction.class);
+        return RESULT_ACTIONS;
     }
 }
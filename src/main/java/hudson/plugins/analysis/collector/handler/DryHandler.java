@@ -4,21 +4,27 @@ import java.util.Collection;
 
 import org.jvnet.localizer.Localizable;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableList;
 
+import hudson.Extension;
 import hudson.plugins.analysis.collector.AnalysisDescriptor;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.core.BuildResult;
 import hudson.plugins.analysis.core.PluginDescriptor;
 import hudson.plugins.analysis.core.ResultAction;
 import hudson.plugins.dry.*;
+import hudson.plugins.dry.parser.DuplicateCode;
 
 /**
  * Handles access to the DRY plug-in.
  *
  * @author Ulli Hafner
  */
+@Extension(optional = true)
 public class DryHandler implements AnalysisHandler {
+    private static final Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> RESULT_ACTIONS
+            = ImmutableList.of(DryResultAction.class, DryMavenResultAction.class);
+
     @Override
     public Class<? extends AbstractProjectAction<?>> getProjectActionType() {
         return DryProjectAction.class;
@@ -29,6 +35,16 @@ public class DryHandler implements AnalysisHandler {
         return AnalysisDescriptor.DRY;
     }
 
+    @Override
+    public String getOrigin() {
+        return DuplicateCode.ORIGIN;
+    }
+
+    @Override
+    public Localizable getOriginLabel() {
+        return hudson.plugins.analysis.collector.Messages._Analysis_Dry_Warning_Origin();
+    }
+
     @Override
     public Localizable getDetailHeader() {
         return Messages._DRY_Detail_header();
@@ -41,6 +57,6 @@ public class DryHandler implements AnalysisHandler {
 
     @Override
     public Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> getResultActions() {
-        return Lists.newArrayList(DryResultAction.class, DryMavenResultAction.class);
+        return RESULT_ACTIONS;
     }
 }
@@ -4,21 +4,27 @@ import java.util.Collection;
 
 import org.jvnet.localizer.Localizable;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableList;
 
+import hudson.Extension;
 import hudson.plugins.analysis.collector.AnalysisDescriptor;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.core.BuildResult;
 import hudson.plugins.analysis.core.PluginDescriptor;
 import hudson.plugins.analysis.core.ResultAction;
 import hudson.plugins.findbugs.*;
+import hudson.plugins.findbugs.parser.Bug;
 
 /**
  * Handles access to the FindBugs plug-in.
  *
  * @author Ulli Hafner
  */
+@Extension(optional = true)
 public class FindBugsHandler implements AnalysisHandler {
+    private static final Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> RESULT_ACTIONS
+            = ImmutableList.of(FindBugsResultAction.class, FindBugsMavenResultAction.class);
+
     @Override
     public Class<? extends AbstractProjectAction<?>> getProjectActionType() {
         return FindBugsProjectAction.class;
@@ -29,6 +35,16 @@ public class FindBugsHandler implements AnalysisHandler {
         return AnalysisDescriptor.FINDBUGS;
     }
 
+    @Override
+    public String getOrigin() {
+        return Bug.ORIGIN;
+    }
+
+    @Override
+    public Localizable getOriginLabel() {
+        return hudson.plugins.analysis.collector.Messages._Analysis_FindBugs_Warning_Origin();
+    }
+
     @Override
     public Localizable getDetailHeader() {
         return Messages._FindBugs_Detail_header();
@@ -41,6 +57,6 @@ public class FindBugsHandler implements AnalysisHandler {
 
     @Override
     public Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> getResultActions() {
-        return Lists.newArrayList(FindBugsResultAction.class, FindBugsMavenResultAction.class);
+        return RESULT_ACTIONS;
     }
 }
@@ -4,21 +4,27 @@ import java.util.Collection;
 
 import org.jvnet.localizer.Localizable;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableList;
 
+import hudson.Extension;
 import hudson.plugins.analysis.collector.AnalysisDescriptor;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.core.BuildResult;
 import hudson.plugins.analysis.core.PluginDescriptor;
 import hudson.plugins.analysis.core.ResultAction;
 import hudson.plugins.pmd.*;
+import hudson.plugins.pmd.parser.Bug;
 
 /**
  * Handles access to the PMD plug-in.
  *
  * @author Ulli Hafner
  */
+@Extension(optional = true)
 public class PmdHandler implements AnalysisHandler {
+    private static final Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> RESULT_ACTIONS
+            = ImmutableList.of(PmdResultAction.class, PmdMavenResultAction.class);
+
     @Override
     public Class<? extends AbstractProjectAction<?>> getProjectActionType() {
         return PmdProjectAction.class;
@@ -29,6 +35,16 @@ public class PmdHandler implements AnalysisHandler {
         return AnalysisDescriptor.PMD;
     }
 
+    @Override
+    public String getOrigin() {
+        return Bug.ORIGIN;
+    }
+
+    @Override
+    public Localizable getOriginLabel() {
+        return hudson.plugins.analysis.collector.Messages._Analysis_PMD_Warning_Origin();
+    }
+
     @Override
     public Localizable getDetailHeader() {
         return Messages._PMD_Detail_header();
@@ -41,6 +57,6 @@ public class PmdHandler implements AnalysisHandler {
 
     @Override
     public Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> getResultActions() {
-        return Lists.newArrayList(PmdResultAction.class, PmdMavenResultAction.class);
+        return RESULT_ACTIONS;
     }
 }
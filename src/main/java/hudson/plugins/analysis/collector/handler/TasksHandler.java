@@ -4,21 +4,27 @@ import java.util.Collection;
 
 import org.jvnet.localizer.Localizable;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableList;
 
+import hudson.Extension;
 import hudson.plugins.analysis.collector.AnalysisDescriptor;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.core.BuildResult;
 import hudson.plugins.analysis.core.PluginDescriptor;
 import hudson.plugins.analysis.core.ResultAction;
 import hudson.plugins.tasks.*;
+import hudson.plugins.tasks.parser.Task;
 
 /**
  * Handles access to the open tasks plug-in.
  *
  * @author Ulli Hafner
  */
+@Extension(optional = true)
 public class TasksHandler implements AnalysisHandler {
+    private static final Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> RESULT_ACTIONS
+            = ImmutableList.of(TasksResultAction.class, TasksMavenResultAction.class);
+
     @Override
     public Class<? extends AbstractProjectAction<?>> getProjectActionType() {
         return TasksProjectAction.class;
@@ -29,6 +35,16 @@ public class TasksHandler implements AnalysisHandler {
         return AnalysisDescriptor.TASKS;
     }
 
+    @Override
+    public String getOrigin() {
+        return Task.ORIGIN;
+    }
+
+    @Override
+    public Localizable getOriginLabel() {
+        return hudson.plugins.analysis.collector.Messages._Analysis_Tasks_Warning_Origin();
+    }
+
     @Override
     public Localizable getDetailHeader() {
         return Messages._Tasks_ProjectAction_Name();
@@ -41,6 +57,6 @@ public class TasksHandler implements AnalysisHandler {
 
     @Override
     public Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> getResultActions() {
-        return Lists.newArrayList(TasksResultAction.class, TasksMavenResultAction.class);
+        return RESULT_ACTIONS;
     }
 }
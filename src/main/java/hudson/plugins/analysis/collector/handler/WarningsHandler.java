@@ -4,8 +4,9 @@ import java.util.Collection;
 
 import org.jvnet.localizer.Localizable;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableList;
 
+import hudson.Extension;
 import hudson.plugins.analysis.collector.AnalysisDescriptor;
 import hudson.plugins.analysis.core.AbstractProjectAction;
 import hudson.plugins.analysis.core.BuildResult;
@@ -15,13 +16,18 @@ import hudson.plugins.warnings.AggregatedWarningsProjectAction;
 import hudson.plugins.warnings.AggregatedWarningsResultAction;
 import hudson.plugins.warnings.Messages;
 import hudson.plugins.warnings.WarningsDescriptor;
+import hudson.plugins.warnings.parser.Warning;
 
 /**
  * Handles access to the warnings plug-in.
  *
  * @author Ulli Hafner
  */
+@Extension(optional = true)
 public class WarningsHandler implements AnalysisHandler {
+    private static final Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> RESULT_ACTIONS
+            = ImmutableList.of(AggregatedWarningsResultAction.class);
+
     @Override
     public Class<? extends AbstractProjectAction<?>> getProjectActionType() {
         return AggregatedWarningsProjectAction.class;
@@ -32,6 +38,16 @@ public class WarningsHandler implements AnalysisHandler {
         return AnalysisDescriptor.WARNINGS;
     }
 
+    @Override
+    public String getOrigin() {
+        return Warning.ORIGIN;
+    }
+
+    @Override
+    public Localizable getOriginLabel() {
+        return hudson.plugins.analysis.collector.Messages._Analysis_Warnings_Warning_Origin();
+    }
+
     @Override
     public Localizable getDetailHeader() {
         return Messages._Warnings_ProjectAction_Name();
@@ -44,6 +60,6 @@ public class WarningsHandler implements AnalysisHandler {
 
     @Override
     public Collection<? extends Class<? extends ResultAction<? extends BuildResult>>> getResultActions() {
-        return Lists.newArrayList(AggregatedWarningsResultAction.class);
+        return RESULT_ACTIONS;
     }
 }
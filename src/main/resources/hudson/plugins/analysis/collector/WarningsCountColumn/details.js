@@ -0,0 +1,22 @@
+/**
+ * Loads the number of warnings of each plug-in when the user hovers over the warnings column for the first time
+ * and shows them as tooltip of the column.
+ */
+function loadWarningsDetails(cell, event) {
+    if (cell.getAttribute("data-details-loading")) {
+        return;
+    }
+    cell.setAttribute("data-details-loading", "true");
+    new Ajax.Request(cell.getAttribute("data-details-url"), {
+        method: "get",
+        onSuccess: function (response) {
+            applyTooltip(cell, response.responseText);
+            if (cell.onmouseover) {
+                cell.onmouseover(event);
+            }
+        },
+        onFailure: function () {
+            cell.removeAttribute("data-details-loading");
+        }
+    });
+}
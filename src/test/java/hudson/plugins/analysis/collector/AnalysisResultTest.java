@@ -1,17 +1,116 @@
-package hudson.plugins.analysis.collector;
-
-import hudson.model.AbstractBuild;
-import hudson.plugins.analysis.core.BuildHistory;
-import hudson.plugins.analysis.core.ParserResult;
-import hudson.plugins.analysis.test.BuildResultTest;
-
-/**
- * Tests the class {@link AnalysisResult}.
- */
-public class AnalysisResultTest extends BuildResultTest<AnalysisResult> {
-    @Override
-    protected AnalysisResult createBuildResult(final AbstractBuild<?, ?> build, final ParserResult project, final BuildHistory history) {
-        return new AnalysisResult(build, history, project, "UTF8", false);
-    }
-}
-
+package hudson.plugins.analysis.collector;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import hudson.model.AbstractBuild;
+import hudson.model.Action;
+import hudson.model.Run;
+import hudson.plugins.analysis.core.BuildHistory;
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ParserResult;
+import hudson.plugins.analysis.core.ResultAction;
+import hudson.plugins.analysis.test.BuildResultTest;
+import hudson.plugins.analysis.util.model.DefaultAnnotationContainer;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.JavaProject;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Tests the class {@link AnalysisResult}.
+ */
+public class AnalysisResultTest extends BuildResultTest<AnalysisResult> {
+    private static final int NUMBER_OF_ANNOTATIONS = 3;
+
+    /** Temporary folder for the build. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Override
+    protected AnalysisResult createBuildResult(final AbstractBuild<?, ?> build, final ParserResult project, final BuildHistory history) {
+        return new AnalysisResult(build, history, project, "UTF8", false);
+    }
+
+    /**
+     * Verifies that the annotations are served from the snapshot while they are written in the background and that
+     * the recovery marker is deleted when they have been written.
+     */
+    @Test
+    public void testPendingAnnotations() {
+        Run<?, ?> build = createBuild("pending#1");
+        AnalysisResult result = createResult(build);
+        Collection<FileAnnotation> annotations = createAnnotations();
+        result.setPendingAnnotations(annotations);
+        AnnotationWriter.writeMarker(build, Collections.singletonList(ResultAction.class.getName()));
+
+        JavaProject snapshot = result.getProject();
+        assertSame("Snapshot not used", snapshot, result.getProject());
+        assertEquals("Wrong number of annotations", NUMBER_OF_ANNOTATIONS, snapshot.getNumberOfAnnotations());
+        assertFalse("Annotations written", AnnotationShards.of(build).exists());
+
+        new AnnotationWriter.PendingWrite(result, build).run();
+
+        assertTrue("Annotations not written", AnnotationShards.of(build).exists());
+        assertNull("Marker not deleted", AnnotationWriter.getPendingActions(build));
+        assertNotSame("Snapshot still used", snapshot, result.getProject());
+        assertEquals("Wrong number of annotations", NUMBER_OF_ANNOTATIONS,
+                result.getProject().getNumberOfAnnotations());
+    }
+
+    /**
+     * Verifies that the annotations are collected again from the participating plug-ins if Jenkins has been stopped
+     * before the annotations have been written.
+     */
+    @Test
+    public void testRecoveryAfterRestart() {
+        Run<?, ?> build = createBuild("recovery#1");
+        AnalysisResult result = createResult(build);
+        AnnotationWriter.writeMarker(build, Collections.singletonList(ResultAction.class.getName()));
+        doReturn(Collections.singletonList(createAction(createAnnotations()))).when(build).getActions();
+
+        assertEquals("Wrong number of annotations", NUMBER_OF_ANNOTATIONS,
+                result.getProject().getNumberOfAnnotations());
+        assertTrue("Annotations not written", AnnotationShards.of(build).exists());
+        assertNull("Marker not deleted", AnnotationWriter.getPendingActions(build));
+    }
+
+    private Run<?, ?> createBuild(final String id) {
+        Run<?, ?> build = mock(Run.class);
+        when(build.getRootDir()).thenReturn(folder.getRoot());
+        when(build.getExternalizableId()).thenReturn(id);
+        return build;
+    }
+
+    private AnalysisResult createResult(final Run<?, ?> build) {
+        BuildHistory history = mock(BuildHistory.class);
+        when(history.getReferenceAnnotations()).thenReturn(new DefaultAnnotationContainer());
+        return new AnalysisResult(build, history, new ParserResult(), "UTF-8", false);
+    }
+
+    private Collection<FileAnnotation> createAnnotations() {
+        JavaProject project = new JavaProject();
+        for (int line = 0; line < NUMBER_OF_ANNOTATIONS; line++) {
+            TestAnnotation annotation = new TestAnnotation(Priority.NORMAL, "Message " + line, line, line,
+                    "category", "type");
+            annotation.setFileName("File.java");
+            project.addAnnotation(annotation);
+        }
+        return project.getAnnotations();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Action createAction(final Collection<FileAnnotation> annotations) {
+        BuildResult buildResult = mock(BuildResult.class);
+        when(buildResult.getAnnotations()).thenReturn(annotations);
+        ResultAction<BuildResult> action = mock(ResultAction.class);
+        doReturn(buildResult).when(action).getResult();
+        return action;
+    }
+}
@@ -0,0 +1,63 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the class {@link AnalysisSummary}.
+ */
+public class AnalysisSummaryTest {
+    /**
+     * Verifies that a written summary is read back with the same values.
+     *
+     * @throws IOException
+     *             if the summary could not be written
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        AnalysisSummary summary = new AnalysisSummary(10, 1, 2, 7, 3, 4, 5,
+                new String[] {"checkstyle", "pmd"}, new int[] {6, 4});
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        summary.writeTo(new DataOutputStream(bytes));
+        AnalysisSummary read = AnalysisSummary.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals("Wrong total", 10, read.getNumberOfAnnotations());
+        assertEquals("Wrong high", 1, read.getNumberOfHighPriorityAnnotations());
+        assertEquals("Wrong normal", 2, read.getNumberOfNormalPriorityAnnotations());
+        assertEquals("Wrong low", 7, read.getNumberOfLowPriorityAnnotations());
+        assertEquals("Wrong new", 3, read.getNumberOfNewWarnings());
+        assertEquals("Wrong fixed", 4, read.getNumberOfFixedWarnings());
+        assertEquals("Wrong modules", 5, read.getNumberOfModules());
+        assertEquals("Wrong checkstyle", 6, read.getNumberOfAnnotationsByOrigin("checkstyle"));
+        assertEquals("Wrong pmd", 4, read.getNumberOfAnnotationsByOrigin("pmd"));
+        assertEquals("Wrong unknown origin", 0, read.getNumberOfAnnotationsByOrigin("findbugs"));
+    }
+
+    /**
+     * Verifies that the counts of two summaries are summed up by origin.
+     */
+    @Test
+    public void testAdd() {
+        AnalysisSummary first = new AnalysisSummary(10, 1, 2, 7, 3, 4, 5,
+                new String[] {"checkstyle", "pmd"}, new int[] {6, 4});
+        AnalysisSummary second = new AnalysisSummary(3, 1, 1, 1, 0, 1, 1,
+                new String[] {"pmd", "findbugs"}, new int[] {2, 1});
+
+        AnalysisSummary sum = first.add(second);
+
+        assertEquals("Wrong total", 13, sum.getNumberOfAnnotations());
+        assertEquals("Wrong fixed", 5, sum.getNumberOfFixedWarnings());
+        assertEquals("Wrong checkstyle", 6, sum.getNumberOfAnnotationsByOrigin("checkstyle"));
+        assertEquals("Wrong pmd", 6, sum.getNumberOfAnnotationsByOrigin("pmd"));
+        assertEquals("Wrong findbugs", 1, sum.getNumberOfAnnotationsByOrigin("findbugs"));
+    }
+}
@@ -0,0 +1,77 @@
+package hudson.plugins.analysis.collector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import hudson.plugins.analysis.util.model.JavaProject;
+
+/**
+ * Tests the class {@link AnnotationCache}.
+ */
+public class AnnotationCacheTest {
+    private static final long BUDGET = 10 * AnnotationCache.ANNOTATION_SIZE;
+
+    /**
+     * Verifies that the hits and misses are counted.
+     */
+    @Test
+    public void testHitsAndMisses() {
+        AnnotationCache cache = new AnnotationCache(BUDGET);
+        JavaProject project = createProject(2);
+
+        assertNull("Cached project", cache.get("job#1"));
+        cache.put("job#1", project);
+        assertSame("Wrong project", project, cache.get("job#1"));
+
+        assertEquals("Wrong number of hits", 1, cache.getHits());
+        assertEquals("Wrong number of misses", 1, cache.getMisses());
+        assertEquals("Wrong number of evictions", 0, cache.getEvictions());
+        assertEquals("Wrong size", 3 * AnnotationCache.ANNOTATION_SIZE, cache.getSize());
+        assertEquals("Wrong number of entries", 1, cache.getNumberOfEntries());
+    }
+
+    /**
+     * Verifies that the least recently used projects are evicted if the budget is exceeded.
+     */
+    @Test
+    public void testEviction() {
+        AnnotationCache cache = new AnnotationCache(BUDGET);
+        JavaProject first = createProject(3);
+        JavaProject second = createProject(3);
+
+        cache.put("job#1", first);
+        cache.put("job#2", second);
+        cache.get("job#1");
+        cache.put("job#3", createProject(3));
+
+        assertSame("Wrong project", first, cache.get("job#1"));
+        assertNull("Cached project", cache.get("job#2"));
+        assertEquals("Wrong number of evictions", 1, cache.getEvictions());
+        assertEquals("Wrong size", 8 * AnnotationCache.ANNOTATION_SIZE, cache.getSize());
+    }
+
+    /**
+     * Verifies that projects that exceed the budget on their own are not cached.
+     */
+    @Test
+    public void testProjectExceedsBudget() {
+        AnnotationCache cache = new AnnotationCache(BUDGET);
+
+        assertFalse("Project cached", cache.put("job#1", createProject(10)));
+
+        assertNull("Cached project", cache.get("job#1"));
+        assertEquals("Wrong size", 0, cache.getSize());
+        assertEquals("Wrong number of entries", 0, cache.getNumberOfEntries());
+    }
+
+    private JavaProject createProject(final int numberOfAnnotations) {
+        JavaProject project = new JavaProject();
+        for (int i = 0; i < numberOfAnnotations; i++) {
+            TestAnnotation annotation = new TestAnnotation("Message " + i, i);
+            annotation.setFileName("src/Foo.java");
+            project.addAnnotation(annotation);
+        }
+        return project;
+    }
+}
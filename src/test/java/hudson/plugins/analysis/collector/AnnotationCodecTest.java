@@ -0,0 +1,238 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import hudson.plugins.analysis.util.model.Priority;
+import hudson.plugins.dry.parser.DuplicateCode;
+import hudson.plugins.findbugs.parser.Bug;
+
+/**
+ * Tests the class {@link AnnotationCodec} with the annotations of the analysis plug-ins.
+ */
+public class AnnotationCodecTest {
+    /**
+     * Verifies that linked duplicate code fragments reference each other after reading.
+     *
+     * @throws IOException
+     *             if the annotations could not be written
+     */
+    @Test
+    public void testDuplicateCodeLinks() throws IOException {
+        DuplicateCode first = new DuplicateCode(Priority.HIGH, 10, 20, "src/First.java");
+        DuplicateCode second = new DuplicateCode(Priority.HIGH, 30, 20, "src/Second.java");
+        first.linkTo(second);
+        second.linkTo(first);
+
+        AnnotationCodec.Decoder decoder = roundTrip(first, second);
+        DuplicateCode readFirst = (DuplicateCode)decoder.read();
+        DuplicateCode readSecond = (DuplicateCode)decoder.read();
+
+        assertEquals("Wrong file", "src/First.java", readFirst.getFileName());
+        assertEquals("Wrong line", 30, readSecond.getPrimaryLineNumber());
+        Collection<DuplicateCode> linksOfFirst = readFirst.getLinks();
+        assertEquals("Wrong number of links", 1, linksOfFirst.size());
+        assertSame("Wrong link of first", readSecond, linksOfFirst.iterator().next());
+        assertSame("Wrong link of second", readFirst, readSecond.getLinks().iterator().next());
+    }
+
+    /**
+     * Verifies that a FindBugs warning is read back with its properties.
+     *
+     * @throws IOException
+     *             if the annotation could not be written
+     */
+    @Test
+    public void testFindBugsBug() throws IOException {
+        Bug bug = new Bug(Priority.NORMAL, "Null pointer", "CORRECTNESS", "NP_NULL_ON_SOME_PATH", 15, 17);
+        bug.setFileName("src/Bug.java");
+
+        Bug read = (Bug)roundTrip(bug, bug).read();
+
+        assertEquals("Wrong message", bug.getMessage(), read.getMessage());
+        assertEquals("Wrong priority", Priority.NORMAL, read.getPriority());
+        assertEquals("Wrong category", "CORRECTNESS", read.getCategory());
+        assertEquals("Wrong type", "NP_NULL_ON_SOME_PATH", read.getType());
+        assertEquals("Wrong origin", bug.getOrigin(), read.getOrigin());
+        assertEquals("Wrong file", "src/Bug.java", read.getFileName());
+        assertEquals("Wrong line", 15, read.getPrimaryLineNumber());
+    }
+
+    /**
+     * Verifies that equal strings of the decoded annotations are replaced by a single instance.
+     *
+     * @throws IOException
+     *             if the annotations could not be written
+     */
+    @Test
+    public void testSharedStrings() throws IOException {
+        Bug first = new Bug(Priority.NORMAL, "First",
+                new String("CORRECTNESS"), new String("NP_NULL_ON_SOME_PATH"), 1, 1);
+        first.setFileName(new String("src/Bug.java"));
+        Bug second = new Bug(Priority.HIGH, "Second",
+                new String("CORRECTNESS"), new String("NP_NULL_ON_SOME_PATH"), 2, 2);
+        second.setFileName(new String("src/Bug.java"));
+
+        AnnotationCodec.Decoder decoder = roundTrip(first, second);
+        Bug readFirst = (Bug)decoder.read();
+        Bug readSecond = (Bug)decoder.read();
+
+        assertSame("Wrong category", readFirst.getCategory(), readSecond.getCategory());
+        assertSame("Wrong type", readFirst.getType(), readSecond.getType());
+        assertSame("Wrong file", readFirst.getFileName(), readSecond.getFileName());
+    }
+
+    /**
+     * Verifies that JDK types other than collections and maps are rejected.
+     *
+     * @throws IOException
+     *             expected
+     */
+    @Test(expected = NotSerializableException.class)
+    public void testUnsupportedType() throws IOException {
+        new AnnotationCodec.Encoder(new DataOutputStream(new ByteArrayOutputStream())).write(new Date());
+    }
+
+    /**
+     * Verifies that annotations that customize their serialization are rejected.
+     *
+     * @throws IOException
+     *             expected
+     */
+    @Test(expected = NotSerializableException.class)
+    public void testCustomSerialization() throws IOException {
+        new AnnotationCodec.Encoder(new DataOutputStream(new ByteArrayOutputStream()))
+                .write(new CustomAnnotation("Message", 1));
+    }
+
+    /**
+     * Verifies that sorted collections with a comparator are rejected, since the comparator is not written.
+     *
+     * @throws IOException
+     *             expected
+     */
+    @Test(expected = NotSerializableException.class)
+    public void testSortedSetWithComparator() throws IOException {
+        new AnnotationCodec.Encoder(new DataOutputStream(new ByteArrayOutputStream()))
+                .write(new TreeSet<String>(String.CASE_INSENSITIVE_ORDER));
+    }
+
+    /**
+     * Verifies that objects that are neither annotations nor values of their fields are rejected.
+     *
+     * @throws IOException
+     *             expected
+     */
+    @Test(expected = NotSerializableException.class)
+    public void testNoAnnotation() throws IOException {
+        new AnnotationCodec.Encoder(new DataOutputStream(new ByteArrayOutputStream())).write(new Value());
+    }
+
+    /**
+     * Verifies that a class that is neither an annotation nor the value of a field is not instantiated when read.
+     *
+     * @throws IOException
+     *             expected
+     */
+    @Test(expected = InvalidClassException.class)
+    public void testReadNoAnnotation() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        byte[] name = Value.class.getName().getBytes("UTF-8");
+        output.writeByte(12); // object
+        AnnotationCodec.writeVarInt(output, 0); // new string
+        AnnotationCodec.writeVarInt(output, name.length);
+        output.write(name);
+        output.writeBoolean(true); // new class
+        AnnotationCodec.writeVarInt(output, 0); // no fields
+
+        new AnnotationCodec.Decoder(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                getClass().getClassLoader()).read();
+    }
+
+    /**
+     * Verifies that the values of the fields of an annotation are accepted.
+     *
+     * @throws IOException
+     *             if the annotation could not be written
+     */
+    @Test
+    public void testFieldValues() throws IOException {
+        ValueAnnotation annotation = new ValueAnnotation("Message", 1);
+
+        ValueAnnotation read = (ValueAnnotation)roundTrip(annotation).read();
+
+        assertEquals("Wrong value", "value", read.value.name);
+        assertEquals("Wrong element", "element", read.values.get(0).name);
+    }
+
+    private AnnotationCodec.Decoder roundTrip(final Object... values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AnnotationCodec.Encoder encoder = new AnnotationCodec.Encoder(new DataOutputStream(bytes));
+        for (Object value : values) {
+            encoder.write(value);
+        }
+        return new AnnotationCodec.Decoder(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                getClass().getClassLoader());
+    }
+
+    /**
+     * A value of the fields of {@link ValueAnnotation}.
+     */
+    private static class Value {
+        private String name;
+
+        Value() {
+            // used by the tests
+        }
+
+        Value(final String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Annotation with a field and a generic collection of values.
+     */
+    private static class ValueAnnotation extends TestAnnotation {
+        private static final long serialVersionUID = 4589214187355340453L;
+
+        private final Value value = new Value("value");
+        private final List<Value> values = new ArrayList<Value>(Collections.singletonList(new Value("element")));
+
+        ValueAnnotation(final String message, final int line) {
+            super(message, line);
+        }
+    }
+
+    /**
+     * Annotation that writes its fields itself.
+     */
+    private static class CustomAnnotation extends TestAnnotation {
+        private static final long serialVersionUID = -2466435539325431436L;
+
+        CustomAnnotation(final String message, final int line) {
+            super(message, line);
+        }
+
+        private void writeObject(final ObjectOutputStream output) throws IOException {
+            output.defaultWriteObject();
+        }
+    }
+}
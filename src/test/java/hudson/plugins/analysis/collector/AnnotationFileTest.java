@@ -0,0 +1,153 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+
+import static org.junit.Assert.*;
+
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Tests the class {@link AnnotationFile}.
+ */
+public class AnnotationFileTest {
+    private static final int NUMBER_OF_ANNOTATIONS = 2500;
+
+    /** Temporary folder for the annotation files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies that all annotations are read back with their properties.
+     *
+     * @throws IOException
+     *             if the file could not be written
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<FileAnnotation> annotations = createAnnotations();
+        AnnotationFile file = new AnnotationFile(folder.newFile(AnnotationFile.FILE_NAME));
+
+        file.write(annotations);
+        List<FileAnnotation> read = file.read(getClass().getClassLoader());
+
+        assertEquals("Wrong number of annotations", annotations.size(), read.size());
+        for (int i = 0; i < annotations.size(); i++) {
+            FileAnnotation expected = annotations.get(i);
+            FileAnnotation actual = read.get(i);
+            assertEquals("Wrong message", expected.getMessage(), actual.getMessage());
+            assertEquals("Wrong line", expected.getPrimaryLineNumber(), actual.getPrimaryLineNumber());
+            assertEquals("Wrong priority", expected.getPriority(), actual.getPriority());
+            assertEquals("Wrong origin", expected.getOrigin(), actual.getOrigin());
+            assertEquals("Wrong file", expected.getFileName(), actual.getFileName());
+            assertEquals("Wrong context", expected.getContextHashCode(), actual.getContextHashCode());
+            assertEquals("Wrong line ranges", Lists.newArrayList(expected.getLineRanges()),
+                    Lists.newArrayList(actual.getLineRanges()));
+        }
+    }
+
+    /**
+     * Verifies that a single block is read using the block index.
+     *
+     * @throws IOException
+     *             if the file could not be written
+     */
+    @Test
+    public void testReadBlock() throws IOException {
+        List<FileAnnotation> annotations = createAnnotations();
+        AnnotationFile file = new AnnotationFile(folder.newFile(AnnotationFile.FILE_NAME));
+
+        file.write(annotations);
+
+        assertEquals("Wrong number of blocks", 3, file.getNumberOfBlocks());
+        List<FileAnnotation> last = file.readBlock(2, getClass().getClassLoader());
+        assertEquals("Wrong number of annotations", 500, last.size());
+        assertEquals("Wrong first annotation", annotations.get(2000).getMessage(), last.get(0).getMessage());
+    }
+
+    /**
+     * Verifies that a truncated file is rejected.
+     *
+     * @throws IOException
+     *             if the file could not be written
+     */
+    @Test(expected = StreamCorruptedException.class)
+    public void testTruncatedFile() throws IOException {
+        File truncated = folder.newFile(AnnotationFile.FILE_NAME);
+        AnnotationFile file = new AnnotationFile(truncated);
+        file.write(createAnnotations());
+
+        RandomAccessFile access = new RandomAccessFile(truncated, "rw");
+        try {
+            access.setLength(access.length() - 3);
+        }
+        finally {
+            access.close();
+        }
+
+        file.read(getClass().getClassLoader());
+    }
+
+    /**
+     * Verifies that the uncompressed files of version 1 are still read.
+     *
+     * @throws IOException
+     *             if the file could not be written
+     */
+    @Test
+    public void testReadUncompressedFile() throws IOException {
+        List<FileAnnotation> annotations = createAnnotations().subList(0, 10);
+        File uncompressed = folder.newFile(AnnotationFile.FILE_NAME);
+
+        DataOutputStream output = new DataOutputStream(new FileOutputStream(uncompressed));
+        try {
+            output.writeInt(0x41534142);
+            output.writeInt(1);
+            AnnotationCodec.writeVarInt(output, annotations.size());
+            AnnotationCodec.Encoder encoder = new AnnotationCodec.Encoder(output);
+            for (FileAnnotation annotation : annotations) {
+                encoder.write(annotation);
+            }
+            int indexPosition = output.size();
+            output.writeInt(1);
+            output.writeLong(8);
+            output.writeInt(annotations.size());
+            output.writeLong(indexPosition);
+        }
+        finally {
+            output.close();
+        }
+
+        AnnotationFile file = new AnnotationFile(uncompressed);
+        List<FileAnnotation> read = file.read(getClass().getClassLoader());
+        assertEquals("Wrong number of annotations", annotations.size(), read.size());
+        assertEquals("Wrong last annotation", annotations.get(9).getMessage(), read.get(9).getMessage());
+        assertEquals("Wrong number of annotations in block", annotations.size(),
+                file.readBlock(0, getClass().getClassLoader()).size());
+    }
+
+    private List<FileAnnotation> createAnnotations() {
+        List<FileAnnotation> annotations = Lists.newArrayList();
+        for (int i = 0; i < NUMBER_OF_ANNOTATIONS; i++) {
+            TestAnnotation annotation = new TestAnnotation(i % 3 == 0 ? Priority.HIGH : Priority.LOW,
+                    "Message " + i % 17, i, i + 2, "category", "type");
+            annotation.setOrigin(i % 2 == 0 ? "checkstyle" : "pmd");
+            annotation.setFileName("src/Foo" + i % 50 + ".java");
+            annotation.setContextHashCode(-31L * i);
+            annotations.add(annotation);
+        }
+        return annotations;
+    }
+}
@@ -0,0 +1,160 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+
+import static org.junit.Assert.*;
+
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Tests the class {@link AnnotationShards}.
+ */
+public class AnnotationShardsTest {
+    private static final String CHECKSTYLE = "checkstyle";
+    private static final String PMD = "pmd";
+
+    /** Temporary folder for the shards. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies that all annotations are read back and that each origin is written to its own shard.
+     *
+     * @throws IOException
+     *             if the shards could not be written
+     */
+    @Test
+    public void testReadAll() throws IOException {
+        AnnotationShards shards = new AnnotationShards(folder.getRoot());
+        assertFalse("Shards exist", shards.exists());
+
+        shards.write(createAnnotations());
+
+        assertTrue("No shards", shards.exists());
+        assertEquals("Wrong origins", Lists.newArrayList(PMD, CHECKSTYLE), shards.getOrigins());
+        assertEquals("Wrong number of annotations", 30, shards.read(getClass().getClassLoader()).size());
+    }
+
+    /**
+     * Verifies that the annotations of a single origin are read.
+     *
+     * @throws IOException
+     *             if the shards could not be written
+     */
+    @Test
+    public void testReadOrigin() throws IOException {
+        AnnotationShards shards = new AnnotationShards(folder.getRoot());
+        shards.write(createAnnotations());
+
+        List<FileAnnotation> annotations = shards.readOrigin(PMD, getClass().getClassLoader());
+
+        assertEquals("Wrong number of annotations", 10, annotations.size());
+        for (FileAnnotation annotation : annotations) {
+            assertEquals("Wrong origin", PMD, annotation.getOrigin());
+        }
+        assertTrue("Wrong annotations", shards.readOrigin("findbugs", getClass().getClassLoader()).isEmpty());
+    }
+
+    /**
+     * Verifies that the annotations of a single file are read.
+     *
+     * @throws IOException
+     *             if the shards could not be written
+     */
+    @Test
+    public void testReadFile() throws IOException {
+        AnnotationShards shards = new AnnotationShards(folder.getRoot());
+        shards.write(createAnnotations());
+
+        List<FileAnnotation> annotations = shards.readFile("src/Foo1.java", getClass().getClassLoader());
+
+        assertEquals("Wrong number of annotations", 10, annotations.size());
+        for (FileAnnotation annotation : annotations) {
+            assertEquals("Wrong file", "src/Foo1.java", annotation.getFileName());
+        }
+        assertTrue("Wrong annotations", shards.readFile("src/Bar.java", getClass().getClassLoader()).isEmpty());
+    }
+
+    /**
+     * Verifies that the shards of origins that are not written again are deleted.
+     *
+     * @throws IOException
+     *             if the shards could not be written
+     */
+    @Test
+    public void testRemovedOrigin() throws IOException {
+        AnnotationShards shards = new AnnotationShards(folder.getRoot());
+        shards.write(createAnnotations());
+
+        shards.write(shards.readOrigin(PMD, getClass().getClassLoader()));
+
+        assertEquals("Wrong origins", Lists.newArrayList(PMD), shards.getOrigins());
+        assertTrue("Missing shard", getShard(0).exists());
+        assertFalse("Orphaned shard", getShard(1).exists());
+    }
+
+    /**
+     * Verifies that no shards remain if the annotations could not be written.
+     *
+     * @throws IOException
+     *             if the shards could not be written
+     */
+    @Test
+    public void testFailedWrite() throws IOException {
+        AnnotationShards shards = new AnnotationShards(folder.getRoot());
+        shards.write(createAnnotations());
+
+        List<FileAnnotation> annotations = createAnnotations();
+        UnsupportedAnnotation unsupported = new UnsupportedAnnotation();
+        unsupported.setOrigin(CHECKSTYLE);
+        annotations.add(unsupported);
+        try {
+            shards.write(annotations);
+            fail("Unsupported annotation written");
+        }
+        catch (IOException exception) {
+            // expected
+        }
+
+        assertFalse("Shards exist", shards.exists());
+        assertFalse("Orphaned shard", getShard(0).exists());
+        assertFalse("Orphaned shard", getShard(1).exists());
+    }
+
+    private File getShard(final int index) {
+        return new File(folder.getRoot(), "analysis-" + index + ".bin");
+    }
+
+    private List<FileAnnotation> createAnnotations() {
+        List<FileAnnotation> annotations = Lists.newArrayList();
+        for (int i = 0; i < 30; i++) {
+            TestAnnotation annotation = new TestAnnotation("Message " + i, i);
+            annotation.setOrigin(i % 3 == 0 ? PMD : CHECKSTYLE);
+            annotation.setFileName("src/Foo" + i % 3 + ".java");
+            annotations.add(annotation);
+        }
+        return annotations;
+    }
+
+    /**
+     * Annotation with a field that can't be encoded.
+     */
+    private static class UnsupportedAnnotation extends TestAnnotation {
+        private static final long serialVersionUID = 4563280453284728105L;
+        @SuppressWarnings("unused")
+        private final Date created = new Date();
+
+        UnsupportedAnnotation() {
+            super("Unsupported", 1);
+        }
+    }
+}
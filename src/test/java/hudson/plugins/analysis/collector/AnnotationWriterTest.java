@@ -0,0 +1,78 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import hudson.model.Run;
+
+/**
+ * Tests the class {@link AnnotationWriter}.
+ */
+public class AnnotationWriterTest {
+    private static final List<String> ACTIONS = Arrays.asList(
+            "hudson.plugins.checkstyle.CheckStyleResultAction", "hudson.plugins.pmd.PmdResultAction");
+
+    /** Temporary folder for the build. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Run<?, ?> build;
+    private AnalysisResult result;
+
+    /**
+     * Creates a build with a recovery marker and its result.
+     */
+    @Before
+    public void createBuild() {
+        build = mock(Run.class);
+        when(build.getRootDir()).thenReturn(folder.getRoot());
+        result = mock(AnalysisResult.class);
+
+        AnnotationWriter.writeMarker(build, ACTIONS);
+    }
+
+    /**
+     * Verifies that the participating plug-ins are available for recovery until the annotations have been written.
+     */
+    @Test
+    public void testPendingWrite() {
+        assertEquals("Wrong pending actions", ACTIONS, AnnotationWriter.getPendingActions(build));
+
+        new AnnotationWriter.PendingWrite(result, build).run();
+
+        verify(result).writePendingAnnotations();
+        verify(result, never()).discardPendingAnnotations();
+    }
+
+    /**
+     * Verifies that the pending annotations are released but the marker is kept if the annotations could not be
+     * written, so that the annotations are recovered when they are requested.
+     */
+    @Test
+    public void testFailedWrite() {
+        doThrow(new IllegalStateException("Can't write")).when(result).writePendingAnnotations();
+
+        new AnnotationWriter.PendingWrite(result, build).run();
+
+        verify(result).discardPendingAnnotations();
+        assertEquals("Marker deleted", ACTIONS, AnnotationWriter.getPendingActions(build));
+    }
+
+    /**
+     * Verifies that a build without marker has no pending actions.
+     */
+    @Test
+    public void testWithoutMarker() {
+        AnnotationWriter.deleteMarker(build);
+
+        assertNull("Wrong pending actions", AnnotationWriter.getPendingActions(build));
+    }
+}
@@ -0,0 +1,169 @@
+package hudson.plugins.analysis.collector;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Locale;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.plugins.analysis.graph.GraphConfiguration;
+import hudson.util.Graph;
+
+/**
+ * Tests the class {@link CachedTrendGraph}.
+ */
+public class CachedTrendGraphTest {
+    private static final int WIDTH = 500;
+    private static final int HEIGHT = 200;
+    private static int jobCount;
+
+    private Job<?, ?> job;
+    private Graph graph;
+    private GraphConfiguration configuration;
+
+    /**
+     * Creates a job that is not used by other tests, since the cache is shared.
+     */
+    @Before
+    public void createJob() {
+        job = mock(Job.class);
+        when(job.getFullName()).thenReturn("cached-graph-" + jobCount++);
+        setLastBuild(1);
+
+        graph = mock(Graph.class);
+        when(graph.createImage(anyInt(), anyInt())).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
+
+        configuration = createConfiguration("500!200!0!0!BUILD!FIXED");
+    }
+
+    /**
+     * Verifies that an image is rendered only once for the same key.
+     *
+     * @throws IOException
+     *             if the image could not be sent
+     */
+    @Test
+    public void testCachedImage() throws IOException {
+        String first = render(configuration, WIDTH, Locale.ENGLISH, null);
+        String second = render(configuration, WIDTH, Locale.ENGLISH, null);
+
+        assertEquals("Wrong entity tag", first, second);
+        verify(graph, times(1)).createImage(WIDTH, HEIGHT);
+    }
+
+    /**
+     * Verifies that each part of the key selects its own image.
+     *
+     * @throws IOException
+     *             if the image could not be sent
+     */
+    @Test
+    public void testKey() throws IOException {
+        String original = render(configuration, WIDTH, Locale.ENGLISH, null);
+
+        assertFalse("Same tag for other locale",
+                original.equals(render(configuration, WIDTH, Locale.GERMAN, null)));
+        assertFalse("Same tag for other size",
+                original.equals(render(configuration, WIDTH + 1, Locale.ENGLISH, null)));
+        assertFalse("Same tag for other configuration",
+                original.equals(render(createConfiguration("500!200!0!0!DATE!FIXED"), WIDTH, Locale.ENGLISH, null)));
+        setLastBuild(2);
+        String newBuild = render(configuration, WIDTH, Locale.ENGLISH, null);
+        assertFalse("Same tag for other build", original.equals(newBuild));
+        CachedTrendGraph.invalidate(job.getFullName());
+        assertFalse("Same tag for other generation",
+                newBuild.equals(render(configuration, WIDTH, Locale.ENGLISH, null)));
+
+        verify(graph, times(5)).createImage(WIDTH, HEIGHT);
+        verify(graph, times(1)).createImage(WIDTH + 1, HEIGHT);
+    }
+
+    /**
+     * Verifies that a request with the entity tag of the image is answered without rendering or sending the image.
+     *
+     * @throws IOException
+     *             if the image could not be sent
+     */
+    @Test
+    public void testNotModified() throws IOException {
+        String entityTag = render(configuration, WIDTH, Locale.ENGLISH, null);
+        reset(graph);
+
+        StaplerResponse response = mock(StaplerResponse.class);
+        new CachedTrendGraph(job, graph, configuration).doPng(createRequest(WIDTH, Locale.ENGLISH, entityTag),
+                response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response, never()).getOutputStream();
+        verifyZeroInteractions(graph);
+    }
+
+    /**
+     * Verifies that the least recently used image is evicted if the cache is full.
+     *
+     * @throws IOException
+     *             if the image could not be sent
+     */
+    @Test
+    public void testEviction() throws IOException {
+        for (int width = 1; width <= CachedTrendGraph.MAX_ENTRIES; width++) {
+            render(configuration, width, Locale.ENGLISH, null);
+        }
+        render(configuration, 1, Locale.ENGLISH, null);
+        render(configuration, CachedTrendGraph.MAX_ENTRIES + 1, Locale.ENGLISH, null);
+
+        render(configuration, 1, Locale.ENGLISH, null);
+        render(configuration, 2, Locale.ENGLISH, null);
+
+        verify(graph, times(1)).createImage(1, HEIGHT);
+        verify(graph, times(2)).createImage(2, HEIGHT);
+    }
+
+    private String render(final GraphConfiguration graphConfiguration, final int width, final Locale locale,
+            final String ifNoneMatch) throws IOException {
+        StaplerResponse response = mock(StaplerResponse.class);
+        when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+
+        new CachedTrendGraph(job, graph, graphConfiguration).doPng(createRequest(width, locale, ifNoneMatch),
+                response);
+
+        ArgumentCaptor<String> entityTag = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq("ETag"), entityTag.capture());
+        return entityTag.getValue();
+    }
+
+    private StaplerRequest createRequest(final int width, final Locale locale, final String ifNoneMatch) {
+        StaplerRequest request = mock(StaplerRequest.class);
+        when(request.getParameter("width")).thenReturn(String.valueOf(width));
+        when(request.getParameter("height")).thenReturn(String.valueOf(HEIGHT));
+        when(request.getLocale()).thenReturn(locale);
+        when(request.getHeader("If-None-Match")).thenReturn(ifNoneMatch);
+        return request;
+    }
+
+    private GraphConfiguration createConfiguration(final String serialized) {
+        GraphConfiguration graphConfiguration = mock(GraphConfiguration.class);
+        when(graphConfiguration.serializeToString()).thenReturn(serialized);
+        when(graphConfiguration.getWidth()).thenReturn(WIDTH);
+        when(graphConfiguration.getHeight()).thenReturn(HEIGHT);
+        return graphConfiguration;
+    }
+
+    private void setLastBuild(final int number) {
+        Run<?, ?> build = mock(Run.class);
+        when(build.getNumber()).thenReturn(number);
+        doReturn(build).when(job).getLastCompletedBuild();
+    }
+}
@@ -0,0 +1,70 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+
+import static org.junit.Assert.*;
+
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+import hudson.plugins.findbugs.parser.Bug;
+
+/**
+ * Tests the class {@link CompressedXmlFile}.
+ */
+public class CompressedXmlFileTest {
+    /** Temporary folder for the XML files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies that the annotations are read back from the compressed file.
+     *
+     * @throws IOException
+     *             if the file could not be written
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<FileAnnotation> annotations = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            Bug bug = new Bug(Priority.NORMAL, "Message " + i % 7, "CORRECTNESS", "NP_NULL_ON_SOME_PATH", i, i + 1);
+            bug.setFileName("src/Foo" + i % 10 + ".java");
+            annotations.add(bug);
+        }
+        File xml = new File(folder.getRoot(), "analysis.xml");
+        CompressedXmlFile file = new CompressedXmlFile(xml);
+
+        file.write(annotations);
+
+        assertTrue("File not compressed", file.isCompressed());
+        List<FileAnnotation> read = file.read();
+        assertEquals("Wrong number of annotations", annotations.size(), read.size());
+        assertEquals("Wrong message", "Message 3", read.get(10).getMessage());
+        assertEquals("Wrong file", "src/Foo0.java", read.get(10).getFileName());
+        assertEquals("Wrong line", 10, read.get(10).getPrimaryLineNumber());
+    }
+
+    /**
+     * Verifies that an uncompressed XML file is detected, so that it is read by the super class.
+     *
+     * @throws IOException
+     *             if the file could not be written
+     */
+    @Test
+    public void testUncompressedFile() throws IOException {
+        File xml = new File(folder.getRoot(), "analysis.xml");
+        FileUtils.writeStringToFile(xml, "<?xml version='1.0' encoding='UTF-8'?>\n<annotation-array/>", "UTF-8");
+
+        assertFalse("Uncompressed file detected as compressed", new CompressedXmlFile(xml).isCompressed());
+        assertFalse("Missing file detected as compressed",
+                new CompressedXmlFile(new File(folder.getRoot(), "missing.xml")).isCompressed());
+    }
+}
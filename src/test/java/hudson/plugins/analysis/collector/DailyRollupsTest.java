@@ -0,0 +1,123 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the class {@link DailyRollups}.
+ */
+public class DailyRollupsTest {
+    private static final int FIRST_DAY = 20150105;
+    private static final int SECOND_DAY = 20150106;
+
+    /** Temporary folder for the store and the rollups. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TrendStore store;
+    private DailyRollups rollups;
+
+    /**
+     * Creates an empty store and its rollups.
+     */
+    @Before
+    public void createStore() {
+        store = new TrendStore(new File(folder.getRoot(), TrendStore.FILE_NAME));
+        store.create(Collections.<TrendStore.Record>emptyList());
+        rollups = new DailyRollups(new File(folder.getRoot(), DailyRollups.FILE_NAME));
+    }
+
+    /**
+     * Verifies that the last rollup of a day wins and that the new warnings of a day are summed up.
+     *
+     * @throws IOException
+     *             if the rollups could not be read
+     */
+    @Test
+    public void testAppendedRollups() throws IOException {
+        store.append(createRecord(1, 5, 10, 2));
+        store.append(createRecord(2, 5, 12, 3));
+        store.append(createRecord(3, 6, 8, 1));
+
+        List<DailyRollups.Rollup> read = rollups.read(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertEquals("Wrong number of rollups", 2, read.size());
+        verifyRollup(read.get(0), FIRST_DAY, 2, 12, 5);
+        verifyRollup(read.get(1), SECOND_DAY, 1, 8, 1);
+
+        List<DailyRollups.Rollup> range = rollups.read(SECOND_DAY, SECOND_DAY);
+        assertEquals("Wrong number of rollups in range", 1, range.size());
+        assertEquals("Wrong day in range", SECOND_DAY, range.get(0).getDay());
+    }
+
+    /**
+     * Verifies that the rollups are created again if an older build is appended.
+     *
+     * @throws IOException
+     *             if the rollups could not be read
+     */
+    @Test
+    public void testOlderBuild() throws IOException {
+        store.append(createRecord(2, 6, 8, 1));
+        store.append(createRecord(1, 5, 10, 2));
+
+        List<DailyRollups.Rollup> read = rollups.read(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertEquals("Wrong number of rollups", 2, read.size());
+        verifyRollup(read.get(0), FIRST_DAY, 1, 10, 2);
+        verifyRollup(read.get(1), SECOND_DAY, 1, 8, 1);
+    }
+
+    /**
+     * Verifies that rollups of an unknown version are not read but created again when a build is appended.
+     *
+     * @throws IOException
+     *             if the rollups could not be read
+     */
+    @Test
+    public void testUnknownVersion() throws IOException {
+        DataOutputStream output = new DataOutputStream(
+                new FileOutputStream(new File(folder.getRoot(), DailyRollups.FILE_NAME)));
+        try {
+            output.writeInt(0x41534452);
+            output.writeInt(1);
+        }
+        finally {
+            output.close();
+        }
+        assertNull("Rollups of unknown version read", rollups.read(Integer.MIN_VALUE, Integer.MAX_VALUE));
+
+        store.append(createRecord(1, 5, 10, 2));
+
+        List<DailyRollups.Rollup> read = rollups.read(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertEquals("Wrong number of rollups", 1, read.size());
+        verifyRollup(read.get(0), FIRST_DAY, 1, 10, 2);
+    }
+
+    private void verifyRollup(final DailyRollups.Rollup rollup, final int day, final int builds, final int total,
+            final int newWarnings) {
+        assertEquals("Wrong day", day, rollup.getDay());
+        assertEquals("Wrong number of builds", builds, rollup.getNumberOfBuilds());
+        assertEquals("Wrong total", total, rollup.getSummary().getNumberOfAnnotations());
+        assertEquals("Wrong number of new warnings", newWarnings, rollup.getSummary().getNumberOfNewWarnings());
+    }
+
+    private TrendStore.Record createRecord(final int number, final int dayOfMonth, final int total,
+            final int newWarnings) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2015, Calendar.JANUARY, dayOfMonth, 10, number);
+        return new TrendStore.Record(number, calendar.getTimeInMillis(),
+                new AnalysisSummary(total, 0, total, 0, newWarnings, 0, 1, new String[0], new int[0]));
+    }
+}
@@ -0,0 +1,68 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import static org.junit.Assert.*;
+
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Tests the class {@link FingerprintDifferencer}.
+ */
+public class FingerprintDifferencerTest {
+    private static final String FILE = "Foo.java";
+
+    /**
+     * Verifies that the new, fixed and unchanged warnings are detected, even if the line numbers or the white space
+     * of the messages changed.
+     */
+    @Test
+    public void testNewAndFixedWarnings() {
+        FileAnnotation unchanged = createAnnotation("checkstyle", "Missing  javadoc ", 10, 1);
+        FileAnnotation moved = createAnnotation("pmd", "Unused variable", 20, 2);
+        FileAnnotation fixed = createAnnotation("findbugs", "Null pointer", 30, 3);
+        List<FileAnnotation> reference = Lists.newArrayList(unchanged, moved, fixed);
+
+        FileAnnotation unchangedNow = createAnnotation("checkstyle", "Missing javadoc", 10, 1);
+        FileAnnotation movedNow = createAnnotation("pmd", "Unused variable", 42, 2);
+        FileAnnotation newNow = createAnnotation("pmd", "Unused variable", 50, 4);
+        List<FileAnnotation> current = Lists.newArrayList(unchangedNow, movedNow, newNow);
+
+        FingerprintDifferencer differencer = new FingerprintDifferencer(current, reference);
+
+        assertEquals("Wrong matched warnings", Lists.newArrayList(unchangedNow, movedNow),
+                differencer.getMatchedAnnotations());
+        assertEquals("Wrong new warnings", Lists.newArrayList(newNow), differencer.getNewAnnotations());
+        assertEquals("Wrong fixed warnings", Lists.newArrayList(fixed), differencer.getFixedAnnotations());
+    }
+
+    /**
+     * Verifies that duplicate fingerprints are matched only once.
+     */
+    @Test
+    public void testDuplicates() {
+        List<FileAnnotation> reference = Lists.newArrayList(
+                createAnnotation("tasks", "TODO", 1, 7));
+        FileAnnotation first = createAnnotation("tasks", "TODO", 1, 7);
+        FileAnnotation second = createAnnotation("tasks", "TODO", 2, 7);
+
+        FingerprintDifferencer differencer = new FingerprintDifferencer(Lists.newArrayList(first, second), reference);
+
+        assertEquals("Wrong number of matched warnings", 1, differencer.getMatchedAnnotations().size());
+        assertEquals("Wrong number of new warnings", 1, differencer.getNewAnnotations().size());
+        assertTrue("Wrong number of fixed warnings", differencer.getFixedAnnotations().isEmpty());
+    }
+
+    private FileAnnotation createAnnotation(final String origin, final String message, final int line,
+            final long contextHashCode) {
+        TestAnnotation annotation = new TestAnnotation(message, line);
+        annotation.setOrigin(origin);
+        annotation.setFileName(FILE);
+        annotation.setContextHashCode(contextHashCode);
+        return annotation;
+    }
+}
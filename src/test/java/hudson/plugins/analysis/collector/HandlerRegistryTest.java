@@ -0,0 +1,91 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Test;
+import org.jvnet.localizer.Localizable;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import hudson.model.Result;
+import hudson.plugins.analysis.collector.HandlerRegistry.Tool;
+import hudson.plugins.analysis.collector.handler.AnalysisHandler;
+
+/**
+ * Tests the classes {@link HandlerRegistry} and {@link WarningsCount}.
+ */
+public class HandlerRegistryTest {
+    private static final String OTHER = "other";
+
+    /**
+     * Removes the registered handlers.
+     */
+    @After
+    public void resetRegistry() {
+        HandlerRegistry.register(Collections.<AnalysisHandler>emptyList());
+    }
+
+    /**
+     * Verifies that the handlers are indexed by their position and that the values of the handlers are read only
+     * once.
+     */
+    @Test
+    public void testTools() {
+        AnalysisHandler pmd = createHandler(AnalysisDescriptor.PMD);
+        AnalysisHandler other = createHandler(OTHER);
+
+        HandlerRegistry registry = HandlerRegistry.register(Arrays.asList(pmd, other));
+
+        assertSame("Wrong registry", registry, HandlerRegistry.getInstance());
+        assertEquals("Wrong number of tools", 2, registry.size());
+        Tool tool = registry.getTool(OTHER);
+        assertNotNull("Tool not found", tool);
+        assertEquals("Wrong index", 1, tool.getIndex());
+        assertSame("Wrong handler", other, tool.getHandler());
+        assertEquals("Wrong URL", OTHER + "Result", tool.getUrl());
+        assertEquals("Wrong URL", OTHER + "Result", tool.getUrl());
+        assertEquals("Wrong index", 0, registry.getTool(AnalysisDescriptor.PMD).getIndex());
+        assertNull("Unknown tool found", registry.getTool(AnalysisDescriptor.DRY));
+
+        verify(other, times(1)).getUrl();
+    }
+
+    /**
+     * Verifies that the plug-ins of other handlers are always activated and counted.
+     */
+    @Test
+    public void testOtherPluginIsActivated() {
+        HandlerRegistry.register(Arrays.asList(createHandler(AnalysisDescriptor.PMD), createHandler(OTHER)));
+        WarningsAggregator aggregator = new WarningsAggregator(false, false, false, false, false, false, false);
+
+        assertFalse("PMD activated", aggregator.isActivated(AnalysisDescriptor.PMD));
+        assertTrue("Other plug-in not activated", aggregator.isActivated(OTHER));
+    }
+
+    /**
+     * Verifies that the counts are accessed by the origins of the plug-ins.
+     */
+    @Test
+    public void testCount() {
+        WarningsCount count = new WarningsCount(new String[] {AnalysisDescriptor.PMD, OTHER},
+                new int[] {2, 3}, new Result[] {null, Result.UNSTABLE});
+
+        assertEquals("Wrong PMD count", 2, count.getPmd());
+        assertEquals("Wrong count", 3, count.getCount(OTHER));
+        assertEquals("Wrong count", WarningsCount.NO_RESULTS, count.getCheckStyle());
+        assertEquals("Wrong total", 5, count.getTotal());
+        assertSame("Wrong result", Result.UNSTABLE, count.getResult(OTHER));
+        assertNull("Wrong result", count.getResult(AnalysisDescriptor.PMD));
+    }
+
+    private AnalysisHandler createHandler(final String origin) {
+        AnalysisHandler handler = mock(AnalysisHandler.class);
+        when(handler.getOrigin()).thenReturn(origin);
+        when(handler.getUrl()).thenReturn(origin + "Result");
+        when(handler.getOriginLabel()).thenReturn(mock(Localizable.class));
+        return handler;
+    }
+}
@@ -0,0 +1,48 @@
+package hudson.plugins.analysis.collector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the class {@link InstalledTools}.
+ */
+public class InstalledToolsTest {
+    /**
+     * Verifies that the snapshot contains exactly the added plug-ins.
+     */
+    @Test
+    public void testContains() {
+        InstalledTools tools = InstalledTools.NONE.with(AnalysisDescriptor.DRY).with(AnalysisDescriptor.ANDROID_LINT);
+
+        assertTrue("Dry not installed", tools.contains(AnalysisDescriptor.DRY));
+        assertTrue("Android lint not installed", tools.contains(AnalysisDescriptor.ANDROID_LINT));
+        assertFalse("PMD installed", tools.contains(AnalysisDescriptor.PMD));
+        assertEquals("Wrong number of plug-ins", 2, tools.getOrigins().size());
+        assertFalse("Snapshot has been modified", InstalledTools.NONE.contains(AnalysisDescriptor.DRY));
+    }
+
+    /**
+     * Verifies that snapshots with the same plug-ins are equal, regardless of the order the plug-ins are added.
+     */
+    @Test
+    public void testEquals() {
+        assertEquals("Wrong snapshot",
+                InstalledTools.NONE.with(AnalysisDescriptor.CHECKSTYLE).with(AnalysisDescriptor.PMD),
+                InstalledTools.NONE.with(AnalysisDescriptor.PMD).with(AnalysisDescriptor.CHECKSTYLE));
+        assertFalse("Wrong snapshot", InstalledTools.NONE.with(AnalysisDescriptor.PMD).equals(InstalledTools.NONE));
+    }
+
+    /**
+     * Verifies that the aggregator shows the installed plug-ins only.
+     */
+    @Test
+    public void testCreateAggregator() {
+        WarningsAggregator aggregator = InstalledTools.NONE.with(AnalysisDescriptor.PMD).createAggregator();
+
+        assertTrue("PMD not activated", aggregator.isPmdActivated());
+        assertFalse("Checkstyle activated", aggregator.isCheckStyleActivated());
+        assertFalse("Tasks activated", aggregator.isOpenTasksActivated());
+        assertTrue("Other plug-in not activated", aggregator.isActivated("other"));
+    }
+}
@@ -0,0 +1,51 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the class {@link LegacyResultMigration}.
+ */
+public class LegacyResultMigrationTest {
+    private static final String ACTION = "<hudson.plugins.analysis.collector.AnalysisResultAction>";
+
+    /** Temporary folder for the build records. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies that only build records with an analysis result without origins are upgraded.
+     *
+     * @throws IOException
+     *             if the build records could not be written
+     */
+    @Test
+    public void testLegacyRecord() throws IOException {
+        assertTrue("Record without origins not detected",
+                LegacyResultMigration.isLegacyRecord(createRecord(ACTION + "<result><numberOfWarnings>3"
+                        + "</numberOfWarnings></result>")));
+        assertTrue("Record with map of origins not detected",
+                LegacyResultMigration.isLegacyRecord(createRecord(ACTION + "<result><annotationsByOrigin>"
+                        + "</annotationsByOrigin></result>")));
+        assertFalse("Upgraded record detected",
+                LegacyResultMigration.isLegacyRecord(createRecord(ACTION + "<result><origins><string>pmd</string>"
+                        + "</origins></result>")));
+        assertFalse("Record without analysis result detected",
+                LegacyResultMigration.isLegacyRecord(createRecord("<build><actions/></build>")));
+        assertFalse("Missing record detected",
+                LegacyResultMigration.isLegacyRecord(new File(folder.getRoot(), "missing.xml")));
+    }
+
+    private File createRecord(final String content) throws IOException {
+        File record = folder.newFile();
+        FileUtils.writeStringToFile(record, "<?xml version='1.0' encoding='UTF-8'?>\n" + content, "UTF-8");
+        return record;
+    }
+}
@@ -0,0 +1,174 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import hudson.model.Run;
+import hudson.plugins.analysis.core.BuildHistory;
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ParserResult;
+import hudson.plugins.analysis.core.ResultAction;
+import hudson.plugins.analysis.graph.BuildResultGraph;
+import hudson.plugins.analysis.graph.GraphConfiguration;
+import hudson.plugins.analysis.util.model.DefaultAnnotationContainer;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.JavaProject;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Tests the classes {@link ParallelResultLoader} and {@link ParallelAggregationGraph}.
+ */
+public class ParallelResultLoaderTest {
+    private static final int NUMBER_OF_JOBS = 11;
+
+    /** Temporary folder for the builds. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies that the graph aggregates the same data set whether the annotations are loaded in parallel or not.
+     */
+    @Test
+    public void testSameDataSet() {
+        List<ResultAction<? extends BuildResult>> actions = new ArrayList<ResultAction<? extends BuildResult>>();
+        for (int job = 0; job < NUMBER_OF_JOBS; job++) {
+            actions.add(createAction(createProject(job)));
+        }
+        BuildResultGraph graph = new PriorityCountGraph();
+
+        JFreeChart sequential = graph.createAggregation(null, actions, null);
+        JFreeChart parallel = ParallelAggregationGraph.withAnnotations(graph).createAggregation(null, actions, null);
+
+        assertEquals("Wrong data set", sequential.getCategoryPlot().getDataset(),
+                parallel.getCategoryPlot().getDataset());
+        assertEquals("Wrong number of jobs", NUMBER_OF_JOBS,
+                parallel.getCategoryPlot().getDataset().getColumnCount());
+    }
+
+    /**
+     * Verifies that the projects of the other plug-ins are referenced until the loaded results are released.
+     */
+    @Test
+    public void testLoadedResults() {
+        List<ResultAction<? extends BuildResult>> actions = new ArrayList<ResultAction<? extends BuildResult>>();
+        actions.add(createAction(createProject(1)));
+        actions.add(createAction(createProject(2)));
+
+        ParallelResultLoader.LoadedResults results = ParallelResultLoader.loadAnnotations(actions);
+
+        assertEquals("Wrong number of loaded results", 2, results.size());
+        results.release();
+        assertEquals("Results not released", 0, results.size());
+    }
+
+    /**
+     * Verifies that the annotations of an {@link AnalysisResult} are served from memory while they are pinned, even
+     * if they have been evicted from the {@link AnnotationCache}.
+     */
+    @Test
+    public void testPinnedAnnotations() {
+        Run<?, ?> build = mock(Run.class);
+        when(build.getRootDir()).thenReturn(folder.getRoot());
+        BuildHistory history = mock(BuildHistory.class);
+        when(history.getReferenceAnnotations()).thenReturn(new DefaultAnnotationContainer());
+        ParserResult parserResult = new ParserResult();
+        parserResult.addAnnotations(createProject(3).getAnnotations());
+        AnalysisResult result = new AnalysisResult(build, history, parserResult, "UTF-8", true);
+
+        List<ResultAction<? extends BuildResult>> actions = new ArrayList<ResultAction<? extends BuildResult>>();
+        actions.add(createAction(result));
+        ParallelResultLoader.LoadedResults loaded = ParallelResultLoader.loadAnnotations(actions);
+        JavaProject pinned = result.getProject();
+        AnnotationCache.getInstance().remove(build.getExternalizableId());
+
+        assertSame("Pinned annotations not used", pinned, result.getProject());
+        assertSame("Pinned annotations not used", pinned, result.getProject());
+        assertEquals("Wrong number of annotations", 3, result.getProject().getNumberOfAnnotations());
+
+        result.pin();
+        loaded.release();
+        assertSame("Annotations released while pinned", pinned, result.getProject());
+        result.unpin();
+    }
+
+    private JavaProject createProject(final int size) {
+        JavaProject project = new JavaProject();
+        for (int line = 0; line < size; line++) {
+            TestAnnotation annotation = new TestAnnotation(line % 2 == 0 ? Priority.HIGH : Priority.LOW,
+                    "Message " + line, line, line, "category", "type");
+            annotation.setFileName("File" + size + ".java");
+            project.addAnnotation(annotation);
+        }
+        return project;
+    }
+
+    private ResultAction<? extends BuildResult> createAction(final JavaProject project) {
+        BuildResult result = mock(BuildResult.class);
+        when(result.getProject()).thenReturn(project);
+        when(result.getAnnotations()).thenReturn(project.getAnnotations());
+        return createAction(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResultAction<? extends BuildResult> createAction(final BuildResult result) {
+        ResultAction<BuildResult> action = mock(ResultAction.class);
+        doReturn(result).when(action).getResult();
+        return action;
+    }
+
+    /**
+     * Aggregates the number of annotations of each priority of the jobs.
+     */
+    private static class PriorityCountGraph extends BuildResultGraph {
+        @Override
+        public String getId() {
+            return "PRIORITY_COUNT";
+        }
+
+        @Override
+        public String getLabel() {
+            return "Priorities";
+        }
+
+        @Override
+        public JFreeChart create(final GraphConfiguration configuration,
+                final ResultAction<? extends BuildResult> resultAction, @CheckForNull final String pluginName) {
+            return createAggregation(configuration,
+                    Collections.<ResultAction<? extends BuildResult>>singletonList(resultAction), pluginName);
+        }
+
+        @Override
+        public JFreeChart createAggregation(final GraphConfiguration configuration,
+                final Collection<ResultAction<? extends BuildResult>> resultActions, final String pluginName) {
+            DefaultCategoryDataset dataSet = new DefaultCategoryDataset();
+            int job = 0;
+            for (ResultAction<? extends BuildResult> action : resultActions) {
+                int[] counts = new int[Priority.values().length];
+                for (FileAnnotation annotation : action.getResult().getAnnotations()) {
+                    counts[annotation.getPriority().ordinal()]++;
+                }
+                for (Priority priority : Priority.values()) {
+                    dataSet.addValue(counts[priority.ordinal()], priority.name(), Integer.valueOf(job));
+                }
+                job++;
+            }
+            return ChartFactory.createStackedAreaChart(null, null, null, dataSet, PlotOrientation.VERTICAL,
+                    false, false, false);
+        }
+    }
+}
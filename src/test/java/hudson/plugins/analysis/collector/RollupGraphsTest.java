@@ -0,0 +1,28 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ResultAction;
+import hudson.plugins.analysis.util.ToolTipProvider;
+
+/**
+ * Tests the class {@link RollupGraphs}.
+ */
+public class RollupGraphsTest {
+    /**
+     * Verifies that the graphs of a dashboard without results get a tool tip provider.
+     */
+    @Test
+    public void testToolTipProviderWithoutResults() {
+        ToolTipProvider provider = RollupGraphs.getToolTipProvider(
+                Collections.<ResultAction<? extends BuildResult>>emptyList());
+
+        assertEquals("Wrong tool tip", Messages.Analysis_ResultAction_OneWarning(), provider.getTooltip(1));
+        assertEquals("Wrong tool tip", Messages.Analysis_ResultAction_MultipleWarnings(2), provider.getTooltip(2));
+    }
+}
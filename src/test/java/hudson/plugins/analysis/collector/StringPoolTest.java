@@ -0,0 +1,23 @@
+package hudson.plugins.analysis.collector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the class {@link StringPool}.
+ */
+public class StringPoolTest {
+    /**
+     * Verifies that strings are canonicalized and <code>null</code> is accepted.
+     */
+    @Test
+    public void testInternStrings() {
+        StringPool pool = new StringPool();
+        String value = pool.intern(new String("value"));
+
+        assertSame("Wrong instance", value, pool.intern(new String("value")));
+        assertNull("Wrong null value", pool.intern(null));
+        assertEquals("Wrong number of strings", 1, pool.size());
+    }
+}
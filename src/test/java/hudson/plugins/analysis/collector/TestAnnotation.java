@@ -0,0 +1,49 @@
+package hudson.plugins.analysis.collector;
+
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Annotation for the tests.
+ */
+class TestAnnotation extends AbstractAnnotation {
+    private static final long serialVersionUID = -4017524532618716592L;
+
+    /**
+     * Creates a new instance of {@link TestAnnotation} with normal priority in a single line.
+     *
+     * @param message
+     *            the message of the annotation
+     * @param line
+     *            the line of the annotation
+     */
+    TestAnnotation(final String message, final int line) {
+        this(Priority.NORMAL, message, line, line, "category", "type");
+    }
+
+    /**
+     * Creates a new instance of {@link TestAnnotation}.
+     *
+     * @param priority
+     *            the priority of the annotation
+     * @param message
+     *            the message of the annotation
+     * @param start
+     *            the first line of the annotation
+     * @param end
+     *            the last line of the annotation
+     * @param category
+     *            the category of the annotation
+     * @param type
+     *            the type of the annotation
+     */
+    TestAnnotation(final Priority priority, final String message, final int start, final int end,
+            final String category, final String type) {
+        super(priority, message, start, end, category, type);
+    }
+
+    @Override
+    public String getToolTip() {
+        return getMessage();
+    }
+}
@@ -0,0 +1,185 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import hudson.model.Job;
+
+/**
+ * Tests the class {@link TrendData}, i.e. the JSON that is sent by the <code>trendData</code> endpoints of the
+ * project action and of the dashboard portlets.
+ */
+public class TrendDataTest {
+    /** Temporary folder for the stores of the jobs. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies that the trend of a job is sent page by page, newest builds first.
+     *
+     * @throws IOException
+     *             if the trend could not be sent
+     */
+    @Test
+    public void testJobTrendPaging() throws IOException {
+        Job<?, ?> job = createJob(createRecord(1, 5, 10), createRecord(2, 5, 12), createRecord(3, 6, 8),
+                createRecord(4, 7, 7), createRecord(5, 7, 9));
+
+        JSONObject first = writeJobTrend(job, null, "2");
+        verifyArray(first.getJSONArray("builds"), 4, 5);
+        verifyArray(first.getJSONArray("total"), 7, 9);
+        verifyArray(first.getJSONObject("origins").getJSONArray("findbugs"), 7, 9);
+        assertEquals("Wrong number of timestamps", 2, first.getJSONArray("timestamps").size());
+        assertEquals("Wrong next page", 3, first.getInt("next"));
+
+        JSONObject second = writeJobTrend(job, "3", "2");
+        verifyArray(second.getJSONArray("builds"), 2, 3);
+        verifyArray(second.getJSONArray("total"), 12, 8);
+        assertEquals("Wrong next page", 1, second.getInt("next"));
+
+        JSONObject last = writeJobTrend(job, "1", "2");
+        verifyArray(last.getJSONArray("builds"), 1);
+        assertFalse("Next page of last page", last.has("next"));
+    }
+
+    /**
+     * Verifies that the number of builds of a page is limited.
+     *
+     * @throws IOException
+     *             if the trend could not be sent
+     */
+    @Test
+    public void testJobTrendLimit() throws IOException {
+        TrendStore.Record[] records = new TrendStore.Record[TrendData.MAXIMUM_LIMIT + 1];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = createRecord(i + 1, 5, i);
+        }
+        Job<?, ?> job = createJob(records);
+
+        JSONObject maximum = writeJobTrend(job, null, String.valueOf(TrendData.MAXIMUM_LIMIT * 2));
+        assertEquals("Wrong number of builds", TrendData.MAXIMUM_LIMIT, maximum.getJSONArray("builds").size());
+        assertEquals("Wrong next page", 1, maximum.getInt("next"));
+
+        JSONObject minimum = writeJobTrend(job, null, "0");
+        verifyArray(minimum.getJSONArray("builds"), records.length);
+
+        JSONObject standard = writeJobTrend(job, null, null);
+        assertEquals("Wrong number of builds", TrendData.DEFAULT_LIMIT, standard.getJSONArray("builds").size());
+    }
+
+    /**
+     * Verifies that the counts of a job without builds on a day are carried forward, but not its new warnings.
+     *
+     * @throws IOException
+     *             if the trend could not be sent
+     */
+    @Test
+    public void testDashboardTrendCarriesForwardIdleJobs() throws IOException {
+        Job<?, ?> active = createJob(createRecord(1, 5, 10), createRecord(2, 6, 12));
+        Job<?, ?> idle = createJob(createRecord(1, 5, 3));
+
+        JSONObject trend = writeDashboardTrend(null, null, null, active, idle);
+
+        verifyArray(trend.getJSONArray("days"), "2015-01-05", "2015-01-06");
+        verifyArray(trend.getJSONArray("total"), 13, 15);
+        verifyArray(trend.getJSONArray("new"), 2, 2);
+        verifyArray(trend.getJSONObject("origins").getJSONArray("findbugs"), 13, 15);
+        assertFalse("Next page of all days", trend.has("next"));
+    }
+
+    /**
+     * Verifies that the aggregated trend is sent page by page and that idle jobs are carried into a page.
+     *
+     * @throws IOException
+     *             if the trend could not be sent
+     */
+    @Test
+    public void testDashboardTrendPaging() throws IOException {
+        Job<?, ?> active = createJob(createRecord(1, 5, 10), createRecord(2, 6, 12), createRecord(3, 7, 14));
+        Job<?, ?> idle = createJob(createRecord(1, 5, 3));
+
+        JSONObject first = writeDashboardTrend(null, null, "2", active, idle);
+        verifyArray(first.getJSONArray("days"), "2015-01-06", "2015-01-07");
+        verifyArray(first.getJSONArray("total"), 15, 17);
+        assertEquals("Wrong next page", "2015-01-05", first.getString("next"));
+
+        JSONObject second = writeDashboardTrend(null, "2015-01-05", "2", active, idle);
+        verifyArray(second.getJSONArray("days"), "2015-01-05");
+        assertFalse("Next page of last page", second.has("next"));
+
+        JSONObject range = writeDashboardTrend("2015-01-07", null, null, active, idle);
+        verifyArray(range.getJSONArray("days"), "2015-01-07");
+        verifyArray(range.getJSONArray("total"), 17);
+    }
+
+    private JSONObject writeJobTrend(final Job<?, ?> job, final String to, final String limit) throws IOException {
+        StaplerRequest request = createRequest(null, to, limit);
+        StringWriter writer = new StringWriter();
+
+        TrendData.writeJobTrend(job, request, createResponse(writer));
+
+        return JSONObject.fromObject(writer.toString());
+    }
+
+    private JSONObject writeDashboardTrend(final String from, final String to, final String limit,
+            final Job<?, ?>... jobs) throws IOException {
+        StaplerRequest request = createRequest(from, to, limit);
+        StringWriter writer = new StringWriter();
+
+        TrendData.writeDashboardTrend(Arrays.asList(jobs), 0, request, createResponse(writer));
+
+        return JSONObject.fromObject(writer.toString());
+    }
+
+    private StaplerRequest createRequest(final String from, final String to, final String limit) {
+        StaplerRequest request = mock(StaplerRequest.class);
+        when(request.getParameter("from")).thenReturn(from);
+        when(request.getParameter("to")).thenReturn(to);
+        when(request.getParameter("limit")).thenReturn(limit);
+        return request;
+    }
+
+    private StaplerResponse createResponse(final StringWriter writer) throws IOException {
+        StaplerResponse response = mock(StaplerResponse.class);
+        when(response.getWriter()).thenReturn(new PrintWriter(writer));
+        return response;
+    }
+
+    private Job<?, ?> createJob(final TrendStore.Record... records) throws IOException {
+        Job<?, ?> job = mock(Job.class);
+        when(job.getRootDir()).thenReturn(folder.newFolder());
+        TrendStore.of(job).create(new ArrayList<TrendStore.Record>(Arrays.asList(records)));
+        return job;
+    }
+
+    private void verifyArray(final JSONArray actual, final Object... expected) {
+        assertEquals("Wrong number of values", expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("Wrong value " + i, expected[i], actual.get(i));
+        }
+    }
+
+    private TrendStore.Record createRecord(final int number, final int dayOfMonth, final int total) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2015, Calendar.JANUARY, dayOfMonth, 10, number % 60);
+        return new TrendStore.Record(number, calendar.getTimeInMillis(),
+                new AnalysisSummary(total, 0, total, 0, number, 0, 1, new String[] {"findbugs"}, new int[] {total}));
+    }
+}
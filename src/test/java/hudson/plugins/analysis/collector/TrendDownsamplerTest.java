@@ -0,0 +1,55 @@
+package hudson.plugins.analysis.collector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the class {@link TrendDownsampler}.
+ */
+public class TrendDownsamplerTest {
+    /**
+     * Verifies that short trends are not reduced.
+     */
+    @Test
+    public void testShortTrend() {
+        int[] selected = TrendDownsampler.select(new int[] {1, 2, 3}, 10);
+
+        assertArrayEquals("Wrong selection", new int[] {0, 1, 2}, selected);
+    }
+
+    /**
+     * Verifies that long trends are reduced to the threshold, keep the first and last build and the peak.
+     */
+    @Test
+    public void testLongTrend() {
+        int[] values = new int[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 10;
+        }
+        values[500] = 1000;
+
+        int[] selected = TrendDownsampler.select(values, 50);
+
+        assertEquals("Wrong number of builds", 50, selected.length);
+        assertEquals("Wrong first build", 0, selected[0]);
+        assertEquals("Wrong last build", 999, selected[49]);
+        boolean hasPeak = false;
+        for (int i = 0; i < selected.length; i++) {
+            if (i > 0) {
+                assertTrue("Builds not ascending", selected[i] > selected[i - 1]);
+            }
+            hasPeak |= selected[i] == 500;
+        }
+        assertTrue("Peak not retained", hasPeak);
+    }
+
+    /**
+     * Verifies the maximum number of builds for a given width.
+     */
+    @Test
+    public void testMaximumBuilds() {
+        assertEquals("Wrong maximum", 125, TrendDownsampler.getMaximumBuilds(500));
+        assertEquals("Wrong minimum", TrendDownsampler.MINIMUM_BUILDS, TrendDownsampler.getMaximumBuilds(0));
+    }
+}
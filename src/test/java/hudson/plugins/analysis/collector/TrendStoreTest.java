@@ -0,0 +1,164 @@
+package hudson.plugins.analysis.collector;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the class {@link TrendStore}.
+ */
+public class TrendStoreTest {
+    private static final long TIMESTAMP = 1420070400000L;
+
+    /** Temporary folder for the store. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private TrendStore store;
+
+    /**
+     * Creates an empty store.
+     */
+    @Before
+    public void createStore() {
+        file = new File(folder.getRoot(), TrendStore.FILE_NAME);
+        store = new TrendStore(file);
+        store.create(Collections.<TrendStore.Record>emptyList());
+    }
+
+    /**
+     * Verifies that appended records are read back sorted by build number and filtered by range.
+     *
+     * @throws IOException
+     *             if the store could not be read
+     */
+    @Test
+    public void testAppendAndRead() throws IOException {
+        assertTrue("Record not appended", store.append(createRecord(2, 20)));
+        store.append(createRecord(1, 10));
+        store.append(createRecord(3, 30));
+
+        List<TrendStore.Record> records = store.read();
+        assertEquals("Wrong number of records", 3, records.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Wrong number", i + 1, records.get(i).getNumber());
+            assertEquals("Wrong total", (i + 1) * 10, records.get(i).getSummary().getNumberOfAnnotations());
+        }
+        List<TrendStore.Record> range = store.read(2, 3);
+        assertEquals("Wrong number of records in range", 2, range.size());
+        assertEquals("Wrong first record in range", 2, range.get(0).getNumber());
+    }
+
+    /**
+     * Verifies that the last record of a build wins.
+     *
+     * @throws IOException
+     *             if the store could not be read
+     */
+    @Test
+    public void testLastRecordWins() throws IOException {
+        store.append(createRecord(1, 10));
+        store.append(createRecord(1, 15));
+
+        List<TrendStore.Record> records = store.read();
+        assertEquals("Wrong number of records", 1, records.size());
+        assertEquals("Wrong total", 15, records.get(0).getSummary().getNumberOfAnnotations());
+    }
+
+    /**
+     * Verifies that a record that has been written only partially is skipped.
+     *
+     * @throws IOException
+     *             if the store could not be read
+     */
+    @Test
+    public void testPartialRecord() throws IOException {
+        store.append(createRecord(1, 10));
+        store.append(createRecord(2, 20));
+        RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+        try {
+            truncated.setLength(truncated.length() - 3);
+        }
+        finally {
+            truncated.close();
+        }
+
+        List<TrendStore.Record> records = store.read();
+        assertEquals("Wrong number of records", 1, records.size());
+        assertEquals("Wrong number", 1, records.get(0).getNumber());
+    }
+
+    /**
+     * Verifies that records are not appended to a store that does not exist.
+     *
+     * @throws IOException
+     *             if the store could not be read
+     */
+    @Test
+    public void testMissingStore() throws IOException {
+        TrendStore missing = new TrendStore(new File(folder.newFolder(), TrendStore.FILE_NAME));
+
+        assertFalse("Record appended", missing.append(createRecord(1, 10)));
+        assertNull("Store created", missing.read());
+    }
+
+    /**
+     * Verifies that the record of a deleted build is skipped before and removed after the compaction.
+     *
+     * @throws IOException
+     *             if the store could not be read
+     */
+    @Test
+    public void testCompact() throws IOException {
+        store.append(createRecord(1, 10));
+        store.append(createRecord(2, 20));
+        store.append(createRecord(3, 30));
+
+        assertTrue("Tombstone not appended", store.delete(2));
+        verifyRemaining(store.read());
+        long length = file.length();
+
+        store.compact();
+
+        verifyRemaining(store.read());
+        assertTrue("Store not compacted", file.length() < length);
+    }
+
+    /**
+     * Verifies that a record appended after a tombstone is read.
+     *
+     * @throws IOException
+     *             if the store could not be read
+     */
+    @Test
+    public void testAppendAfterDelete() throws IOException {
+        store.append(createRecord(1, 10));
+        store.append(createRecord(2, 20));
+        store.delete(2);
+        store.append(createRecord(3, 30));
+
+        verifyRemaining(store.read());
+        assertEquals("Wrong number of records in range", 1, store.read(2, 3).size());
+    }
+
+    private void verifyRemaining(final List<TrendStore.Record> records) {
+        assertEquals("Wrong number of records", 2, records.size());
+        assertEquals("Wrong first number", 1, records.get(0).getNumber());
+        assertEquals("Wrong second number", 3, records.get(1).getNumber());
+    }
+
+    private TrendStore.Record createRecord(final int number, final int total) {
+        return new TrendStore.Record(number, TIMESTAMP + number,
+                new AnalysisSummary(total, 1, total - 2, 1, 0, 0, 1, new String[] {"findbugs"}, new int[] {total}));
+    }
+}
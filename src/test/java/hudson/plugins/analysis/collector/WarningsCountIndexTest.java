@@ -0,0 +1,114 @@
+package hudson.plugins.analysis.collector;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+
+/**
+ * Tests the class {@link WarningsCountIndex}.
+ */
+public class WarningsCountIndexTest {
+    private static final String NAME = "folder/job";
+
+    private Job<?, ?> job;
+    private WarningsCountIndex.Counter counter;
+    private WarningsCountIndex index;
+
+    /**
+     * Creates the index of a single job with 5 warnings in build 1.
+     */
+    @Before
+    public void createIndex() {
+        job = mock(Job.class);
+        when(job.getFullName()).thenReturn(NAME);
+        setLastBuild(1);
+        counter = mock(WarningsCountIndex.Counter.class);
+        when(counter.computeCount(job)).thenReturn(createCount(5));
+        index = new WarningsCountIndex(counter);
+    }
+
+    /**
+     * Verifies that the count of a job is computed once and then read from the index.
+     */
+    @Test
+    public void testGet() {
+        assertEquals("Wrong total", 5, index.get(job).getTotal());
+        assertEquals("Wrong total", 5, index.get(job).getTotal());
+
+        verify(counter, times(1)).computeCount(job);
+    }
+
+    /**
+     * Verifies that a finalized build replaces the count of the job.
+     */
+    @Test
+    public void testFinalizedBuild() {
+        index.get(job);
+        when(counter.computeCount(job)).thenReturn(createCount(7));
+
+        index.update(job, 2);
+
+        assertEquals("Wrong total", 7, index.get(job).getTotal());
+    }
+
+    /**
+     * Verifies that a rebuild does not replace the count of a build that has been finalized while the count of the
+     * rebuild has been computed for an older build.
+     */
+    @Test
+    public void testRebuildKeepsNewerCount() {
+        when(counter.computeCount(job)).thenReturn(createCount(7));
+        index.update(job, 2);
+        when(counter.computeCount(job)).thenReturn(createCount(5));
+
+        index.rebuild(Arrays.asList(job));
+
+        assertEquals("Wrong total", 7, index.get(job).getTotal());
+    }
+
+    /**
+     * Verifies that a rebuild replaces the count of the same or an older build.
+     */
+    @Test
+    public void testRebuild() {
+        index.get(job);
+        setLastBuild(3);
+        when(counter.computeCount(job)).thenReturn(createCount(9));
+
+        index.rebuild(Arrays.asList(job));
+
+        assertEquals("Wrong total", 9, index.get(job).getTotal());
+    }
+
+    /**
+     * Verifies that the count is computed again after a build or the job has been deleted or renamed.
+     */
+    @Test
+    public void testInvalidate() {
+        index.get(job);
+        when(counter.computeCount(job)).thenReturn(createCount(2));
+
+        index.invalidate(NAME);
+
+        assertEquals("Wrong total", 2, index.get(job).getTotal());
+        verify(counter, times(2)).computeCount(job);
+    }
+
+    private void setLastBuild(final int number) {
+        Run<?, ?> build = mock(Run.class);
+        when(build.getNumber()).thenReturn(number);
+        doReturn(build).when(job).getLastCompletedBuild();
+    }
+
+    private WarningsCount createCount(final int checkStyle) {
+        return new WarningsCount(new String[] {AnalysisDescriptor.CHECKSTYLE}, new int[] {checkStyle}, new Result[1]);
+    }
+}